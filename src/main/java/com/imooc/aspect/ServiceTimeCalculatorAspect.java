@@ -5,12 +5,15 @@ import org.simpleframework.aop.annotation.Aspect;
 import org.simpleframework.aop.annotation.Order;
 import org.simpleframework.aop.aspect.DefaultAspect;
 import org.simpleframework.core.annotation.Service;
+import org.simpleframework.core.annotation.Scope;
+import org.simpleframework.core.scope.ScopeType;
 
 import java.lang.reflect.Method;
 
 @Slf4j
 @Aspect(pointcut = "within(org.simpleframework.core.annotation.Component)")
 @Order(0)
+@Scope(ScopeType.THREAD)
 
 public class ServiceTimeCalculatorAspect extends DefaultAspect {
     private long timestampCache;
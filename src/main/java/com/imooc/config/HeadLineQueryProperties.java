@@ -0,0 +1,18 @@
+package com.imooc.config;
+
+import lombok.Getter;
+import org.simpleframework.core.annotation.Component;
+import org.simpleframework.inject.annotation.ConfigurationProperties;
+
+/**
+ * 头条查询相关的配置属性（即 application.properties 中以 headline.query 开头的配置属性）
+ */
+@Getter
+@Component
+@ConfigurationProperties(prefix = "headline.query")
+public class HeadLineQueryProperties {
+    // 查询的页码
+    private int pageIndex = 1;
+    // 每页的条数
+    private int pageSize = 100;
+}
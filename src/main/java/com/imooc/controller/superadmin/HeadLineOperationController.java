@@ -1,13 +1,16 @@
 package com.imooc.controller.superadmin;
 
+import com.imooc.config.HeadLineQueryProperties;
 import com.imooc.entity.bo.HeadLine;
 import com.imooc.entity.dto.Result;
 import com.imooc.service.solo.HeadLineService;
+import org.simpleframework.core.annotation.ConditionalOnProperty;
 import org.simpleframework.core.annotation.Controller;
 import org.simpleframework.inject.annotation.Autowired;
 import org.simpleframework.mvc.annotation.RequestMapping;
 import org.simpleframework.mvc.annotation.RequestParam;
 import org.simpleframework.mvc.annotation.ResponseBody;
+import org.simpleframework.mvc.annotation.Warmup;
 import org.simpleframework.mvc.type.ModelAndView;
 import org.simpleframework.mvc.type.RequestMethod;
 
@@ -16,10 +19,13 @@ import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @Controller
+@ConditionalOnProperty(name = "feature.superadmin.enabled", matchIfMissing = true)
 @RequestMapping(value = "/headline")
 public class HeadLineOperationController {
     @Autowired(value = "HeadLineServiceImpl")
     private HeadLineService headLineService;
+    @Autowired
+    private HeadLineQueryProperties headLineQueryProperties;
     @RequestMapping(value = "/add", method = RequestMethod.POST)
     public ModelAndView addHeadLine(@RequestParam("lineName") String lineName,
                                     @RequestParam("lineLink")String lineLink,
@@ -53,8 +59,9 @@ public class HeadLineOperationController {
 
     @RequestMapping(value = "/query", method = RequestMethod.GET)
     @ResponseBody
+    @Warmup
     public Result<List<HeadLine>>queryHeadLine(){
-        return headLineService.queryHeadLine(null, 1, 100);
+        return headLineService.queryHeadLine(null, headLineQueryProperties.getPageIndex(), headLineQueryProperties.getPageSize());
     }
 
 
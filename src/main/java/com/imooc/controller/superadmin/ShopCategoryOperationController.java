@@ -3,6 +3,7 @@ package com.imooc.controller.superadmin;
 import com.imooc.entity.bo.ShopCategory;
 import com.imooc.entity.dto.Result;
 import com.imooc.service.solo.ShopCategoryService;
+import org.simpleframework.core.annotation.ConditionalOnProperty;
 import org.simpleframework.core.annotation.Controller;
 import org.simpleframework.inject.annotation.Autowired;
 
@@ -11,6 +12,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @Controller
+@ConditionalOnProperty(name = "feature.superadmin.enabled", matchIfMissing = true)
 public class ShopCategoryOperationController {
     @Autowired
     private ShopCategoryService shopCategoryService;
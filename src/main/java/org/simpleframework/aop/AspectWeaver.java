@@ -1,10 +1,13 @@
 package org.simpleframework.aop;
 
+import net.sf.cglib.proxy.Enhancer;
 import org.simpleframework.aop.annotation.Aspect;
 import org.simpleframework.aop.annotation.Order;
 import org.simpleframework.aop.aspect.AspectInfo;
 import org.simpleframework.aop.aspect.DefaultAspect;
 import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.ClassMetadata;
+import org.simpleframework.core.profile.StartupProfiler;
 import org.simpleframework.util.ValidationUtil;
 
 import java.lang.annotation.Annotation;
@@ -17,9 +20,27 @@ public class AspectWeaver {
     // 该成员变量是一个 IOC 容器（即 Bean 实例容器）
     private BeanContainer beanContainer;
 
+    // 该集合中存放的是织入过程中被代理的类，以及代理它的所有切面类（以便生成容器快照时记录下来）
+    private final Map<Class<?>, List<Class<?>>> wovenAspectMap = new LinkedHashMap<>();
+
+    // 最近一次织入时使用的所有切面类对应的 AspectInfo 类对象（延迟加载的 Bean 实例化之后也要使用它们进行织入）
+    private volatile List<AspectInfo> aspectInfoList = Collections.emptyList();
+
+    // 是否已经向 IOC 容器注册了用于织入延迟加载的 Bean 的后置处理器
+    private boolean lazyBeanPostProcessorRegistered;
+
     // 构造方法
     public AspectWeaver() {
-        this.beanContainer = BeanContainer.getInstance();
+        this(BeanContainer.getInstance());
+    }
+
+    /**
+     * 对指定的 Bean 容器进行织入（如 通过构造方法创建的相互隔离的容器）
+     *
+     * @param beanContainer Bean 容器
+     */
+    public AspectWeaver(BeanContainer beanContainer) {
+        this.beanContainer = beanContainer;
     }
 
     /**
@@ -36,18 +57,27 @@ public class AspectWeaver {
      *
      */
     public void doAop() {
+        // 获取 IOC 容器中的所有类（这里面也包括了加了 @Aspect 注解的切面类），然后对它们进行织入
+        doAop(beanContainer.getClasses());
+    }
+
+    /**
+     * 该方法用于只对指定的类进行织入（如 热加载时只需要对重新加载的类进行织入）
+     * 织入的步骤与上面的 doAop() 方法相同
+     *
+     * @param classSet 需要进行织入的类
+     */
+    public void doAop(Set<Class<?>> classSet) {
         // 1.  获取 IOC 容器（即 Bean 实例容器）中所有加了 @Aspect 注解的类（即 切面类），并把这些类存放到一个 Set 集合中
         Set<Class<?>> aspectSet = beanContainer.getClassesByAnnotation(Aspect.class);
 
-        if(ValidationUtil.isEmpty(aspectSet)){
+        if(ValidationUtil.isEmpty(aspectSet) || ValidationUtil.isEmpty(classSet)){
             return;
         }
 
         // 2. 把上一步获取到的所有切面类对应的相关信息（如 切入点表达式）封装成一个 AspectInfo 类实例，存放到一个集合中
         List<AspectInfo> aspectInfoList = packAspectInfoList(aspectSet);
-
-        // 获取 IOC 容器中的所有类（这里面也包括了加了 @Aspect 注解的切面类）
-        Set<Class<?>> classSet = beanContainer.getClasses();
+        registerLazyBeanPostProcessor(aspectInfoList);
 
         // 3. 遍历 IOC 容器（即 Bean 实例容器）中所有的类，筛选出遍历的到每一个类都能被哪些切入点表达式定位到
         //    然后
@@ -62,7 +92,11 @@ public class AspectWeaver {
             // 我们这里需要排除调用这些切面类（即 那些加了 @Aspect 注解的类）（因为对切面类进行织入会造成死循环）
             // 该 isAnnotationPresent() 方法就是用于判断当前遍历到的类是否是加了 @Aspect 注解
             // 如果是就说明它是切面类，就不走下面的逻辑
-            if(targetClass.isAnnotationPresent(Aspect.class)){
+            if(ClassMetadata.of(targetClass).isAnnotationPresent(Aspect.class)){
+                continue;
+            }
+            // 延迟加载的 Bean 以及非单例的 Bean 此时还没有实例化，它们会在实例化之后再由下面注册的后置处理器进行织入
+            if(beanContainer.isLazy(targetClass) || beanContainer.isScoped(targetClass)){
                 continue;
             }
 
@@ -79,6 +113,81 @@ public class AspectWeaver {
 
     }
 
+    /**
+     * 该方法用于根据容器快照中记录的织入结果进行织入
+     * 即
+     * 直接按照快照中记录的 被代理的类 以及 代理它的切面类 生成代理类对象
+     * 而不需要再遍历 IOC 容器中所有的类，并使用所有切面类的切入点表达式对它们进行初筛
+     *
+     * @param proxyClassMap Key 为需要被代理的类，Value 为代理它的切面类
+     */
+    public void doAop(Map<Class<?>, List<Class<?>>> proxyClassMap) {
+        if (ValidationUtil.isEmpty(proxyClassMap)) {
+            return;
+        }
+        Set<Class<?>> aspectSet = beanContainer.getClassesByAnnotation(Aspect.class);
+        if (ValidationUtil.isEmpty(aspectSet)) {
+            return;
+        }
+
+        // 把所有切面类对应的 AspectInfo 类对象按照切面类进行归类，以便下面根据切面类直接找到它所对应的 AspectInfo 类对象
+        List<AspectInfo> aspectInfoList = packAspectInfoList(aspectSet);
+        registerLazyBeanPostProcessor(aspectInfoList);
+        Map<Class<?>, AspectInfo> aspectInfoMap = new HashMap<>();
+        for (AspectInfo aspectInfo : aspectInfoList) {
+            aspectInfoMap.put(getAspectClass(aspectInfo), aspectInfo);
+        }
+
+        for (Map.Entry<Class<?>, List<Class<?>>> entry : proxyClassMap.entrySet()) {
+            List<AspectInfo> matchedAspectList = new ArrayList<>();
+            for (Class<?> aspectClass : entry.getValue()) {
+                AspectInfo aspectInfo = aspectInfoMap.get(aspectClass);
+                if (aspectInfo == null) {
+                    throw new RuntimeException("aspect " + aspectClass.getName() + " recorded in snapshot is not in BeanContainer");
+                }
+                matchedAspectList.add(aspectInfo);
+            }
+            wrapIfNecessary(matchedAspectList, entry.getKey());
+        }
+    }
+
+    /**
+     * 该方法用于向 IOC 容器注册一个后置处理器，用于对延迟加载的 Bean 进行织入
+     * 即
+     * 延迟加载的 Bean 在第一次被获取时才会实例化，此时再使用切入点表达式对它进行初筛，并返回织入了横切关注点的代理类对象
+     * 注意
+     * 该代理类对象不会被放入到 IOC 容器中，而是由 IOC 容器中该 Bean 对应的 LazyBeanHolder 类对象持有
+     *
+     * @param aspectInfoList 所有切面类对应的 AspectInfo 类对象
+     */
+    private synchronized void registerLazyBeanPostProcessor(List<AspectInfo> aspectInfoList) {
+        this.aspectInfoList = aspectInfoList;
+        if (lazyBeanPostProcessorRegistered) {
+            return;
+        }
+        beanContainer.addBeanPostProcessor((beanClass, bean) -> {
+            // 不能对切面类进行织入（如 THREAD 作用域的切面类）
+            if (ClassMetadata.of(beanClass).isAnnotationPresent(Aspect.class)) {
+                return bean;
+            }
+            List<AspectInfo> roughMatchedAspectList = collectRoughMatchedAspectListForSpecificClass(this.aspectInfoList, beanClass);
+            if (ValidationUtil.isEmpty(roughMatchedAspectList)) {
+                return bean;
+            }
+            return ProxyCreator.createProxy(beanClass, new AspectListExecutor(beanClass, roughMatchedAspectList));
+        });
+        lazyBeanPostProcessorRegistered = true;
+    }
+
+    /**
+     * 获取织入过程中被代理的类，以及代理它的所有切面类
+     *
+     * @return Key 为被代理的类，Value 为代理它的切面类
+     */
+    public Map<Class<?>, List<Class<?>>> getWovenAspectMap() {
+        return wovenAspectMap;
+    }
+
     /**
      * 该方法用于把经过筛选的 AspectInfo 类对应的切面类中的那些横切关注点织入到目标（即 被代理的方法）上
      * 然后
@@ -101,12 +210,21 @@ public class AspectWeaver {
         // 创建一个 MethodInterceptor 接口的实现子类 AspectListExecutor 类对象
         // 然后
         // 通过 CGLib 生成一个织入了横切关注点的代理类对象
-        AspectListExecutor aspectListExecutor = new AspectListExecutor(targetClass, roughMatchedAspectList);
-        Object proxyBean = ProxyCreator.createProxy(targetClass, aspectListExecutor);
+        Object proxyBean = StartupProfiler.getInstance().time("proxy", targetClass.getName(), () -> {
+            AspectListExecutor aspectListExecutor = new AspectListExecutor(targetClass, roughMatchedAspectList);
+            return ProxyCreator.createProxy(targetClass, aspectListExecutor);
+        });
 
         // 将动态代理类对象添加到我们定义的 IOC 容器（即此时的 beanContainer）中，覆盖原来被代理前的 Bean 实例
         //（即这里是用动态代理对象替换调用了容器中的原来的对象）
         beanContainer.addBean(targetClass, proxyBean);
+
+        // 记录下代理该类的所有切面类
+        List<Class<?>> aspectClassList = new ArrayList<>();
+        for (AspectInfo aspectInfo : roughMatchedAspectList) {
+            aspectClassList.add(getAspectClass(aspectInfo));
+        }
+        wovenAspectMap.put(targetClass, aspectClassList);
     }
 
 
@@ -124,7 +242,10 @@ public class AspectWeaver {
         for(AspectInfo aspectInfo : aspectInfoList){
             // 调用 PointcutLocator 类中的 roughMatches() 方法，判断当前这个类是否能被当前 AspectInfo 类对象所对应的切入点表达式定位到
             // 如果可以，就把该 AspectInfo 类对象放入到一个新的集合中
-            if(aspectInfo.getPointcutLocator().roughMatches(targetClass)){
+            //（同时按切面汇总记录切入点匹配所花费的时间）
+            boolean roughMatched = StartupProfiler.getInstance().time("aspect", getAspectClass(aspectInfo).getName(),
+                    () -> aspectInfo.getPointcutLocator().roughMatches(targetClass));
+            if(roughMatched){
 
                 roughMatchedAspectList.add(aspectInfo);
             }
@@ -153,9 +274,11 @@ public class AspectWeaver {
                 // 以及
                 // @Aspect 注解的值（即 切入点）
                 // 把这些信息都封装到 AspectInfo 类中
-                Order orderTag = aspectClass.getAnnotation(Order.class);
-                Aspect aspectTag = aspectClass.getAnnotation(Aspect.class);
-                DefaultAspect defaultAspect = (DefaultAspect) beanContainer.getBean(aspectClass);
+                ClassMetadata aspectMetadata = ClassMetadata.of(aspectClass);
+                Order orderTag = aspectMetadata.getAnnotation(Order.class);
+                Aspect aspectTag = aspectMetadata.getAnnotation(Aspect.class);
+                // 如果切面类是非单例的（如 THREAD 作用域，以便切面中的成员变量不会被多个线程共享），这里获取到的是它的作用域代理类对象
+                DefaultAspect defaultAspect = (DefaultAspect) beanContainer.getBeanReference(aspectClass, aspectClass);
                 // 创建表达式定位器（即 PointcutLocator 类对象），构造方法中存入切入点表达式
                 PointcutLocator pointcutLocator = new PointcutLocator(aspectTag.pointcut());
                 // 把获取到的相关信息封装到 AspectInfo 类对象中
@@ -172,6 +295,14 @@ public class AspectWeaver {
     }
 
 
+    /**
+     * 获取 AspectInfo 类对象所对应的切面类（如果切面类对象是作用域代理类对象，那么它的父类才是切面类）
+     */
+    private Class<?> getAspectClass(AspectInfo aspectInfo) {
+        Class<?> aspectClass = aspectInfo.getAspectObject().getClass();
+        return Enhancer.isEnhanced(aspectClass) ? aspectClass.getSuperclass() : aspectClass;
+    }
+
     /**
      * 该方法主要是用于验证，我们获取到的类是否符合我们定义的 AOP 规范
      * 即
@@ -185,8 +316,9 @@ public class AspectWeaver {
      */
     private boolean verifyAspect(Class<?> aspectClass) {
         // 判断形参 aspectClass 接收的类是否加上了 @Aspect 和 @Order 注解，并且该类是否是 DefaultAspect 类的子类
-        return aspectClass.isAnnotationPresent(Aspect.class) &&
-                aspectClass.isAnnotationPresent(Order.class) &&
+        ClassMetadata metadata = ClassMetadata.of(aspectClass);
+        return metadata.isAnnotationPresent(Aspect.class) &&
+                metadata.isAnnotationPresent(Order.class) &&
                 DefaultAspect.class.isAssignableFrom(aspectClass);
     }
 }
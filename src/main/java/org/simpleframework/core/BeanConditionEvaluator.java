@@ -0,0 +1,128 @@
+package org.simpleframework.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.core.annotation.ConditionalOnClass;
+import org.simpleframework.core.annotation.ConditionalOnMissingBean;
+import org.simpleframework.core.annotation.ConditionalOnProperty;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.util.ValidationUtil;
+
+import java.util.*;
+
+/**
+ * 该类用于在实例化之前根据条件注解（即 @ConditionalOnProperty，@ConditionalOnClass 和 @ConditionalOnMissingBean）过滤 Bean 类
+ * 即
+ * 不满足条件的 Bean 类根本不会被放入到 IOC 容器中，因此不会被实例化，不会被 AOP 代理，也不会出现在路由表中
+ *
+ * 注意
+ * 先判断 @ConditionalOnProperty 和 @ConditionalOnClass（它们只依赖于配置属性和 classpath）
+ * 然后
+ * 再判断 @ConditionalOnMissingBean（它依赖于其他 Bean 类是否被加载），此时没有该注解的 Bean 类总是优先
+ * 加了该注解的 Bean 类之间则按照全类名的顺序依次判断，以便每次的结果都是确定的
+ */
+@Slf4j
+class BeanConditionEvaluator {
+    private final Environment environment;
+    private final BeanContainer beanContainer;
+
+    BeanConditionEvaluator(Environment environment, BeanContainer beanContainer) {
+        this.environment = environment;
+        this.beanContainer = beanContainer;
+    }
+
+    /**
+     * 过滤出满足条件的 Bean 类
+     *
+     * @param classList Bean 类
+     * @return 满足条件的 Bean 类（保持原来的顺序）
+     */
+    List<Class<?>> filter(List<Class<?>> classList) {
+        List<Class<?>> matchedList = new ArrayList<>();
+        List<Class<?>> missingBeanList = new ArrayList<>();
+        for (Class<?> clazz : classList) {
+            if (!matchesProperty(clazz) || !matchesClass(clazz)) {
+                continue;
+            }
+            if (ClassMetadata.of(clazz).isAnnotationPresent(ConditionalOnMissingBean.class)) {
+                missingBeanList.add(clazz);
+            } else {
+                matchedList.add(clazz);
+            }
+        }
+        if (missingBeanList.isEmpty()) {
+            return logSkipped(classList, matchedList);
+        }
+        missingBeanList.sort(Comparator.comparing(Class::getName));
+        for (Class<?> clazz : missingBeanList) {
+            if (matchesMissingBean(clazz, matchedList)) {
+                matchedList.add(clazz);
+            }
+        }
+        // 恢复成原来的顺序
+        Set<Class<?>> matchedSet = new HashSet<>(matchedList);
+        matchedList.clear();
+        for (Class<?> clazz : classList) {
+            if (matchedSet.contains(clazz)) {
+                matchedList.add(clazz);
+            }
+        }
+        return logSkipped(classList, matchedList);
+    }
+
+    private boolean matchesProperty(Class<?> clazz) {
+        ConditionalOnProperty condition = ClassMetadata.of(clazz).getAnnotation(ConditionalOnProperty.class);
+        if (condition == null) {
+            return true;
+        }
+        String value = environment.getProperty(condition.name());
+        if (value == null) {
+            return condition.matchIfMissing();
+        }
+        return ValidationUtil.isEmpty(condition.havingValue())
+                ? !"false".equalsIgnoreCase(value)
+                : condition.havingValue().equalsIgnoreCase(value);
+    }
+
+    private boolean matchesClass(Class<?> clazz) {
+        ConditionalOnClass condition = ClassMetadata.of(clazz).getAnnotation(ConditionalOnClass.class);
+        if (condition == null) {
+            return true;
+        }
+        ClassLoader classLoader = clazz.getClassLoader();
+        for (String className : condition.value()) {
+            // 只查找 .class 文件，不加载该类
+            if (classLoader.getResource(className.replace('.', '/') + ".class") == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesMissingBean(Class<?> clazz, List<Class<?>> matchedList) {
+        for (Class<?> type : ClassMetadata.of(clazz).getAnnotation(ConditionalOnMissingBean.class).value()) {
+            for (Class<?> matchedClass : matchedList) {
+                if (matchedClass != clazz && type.isAssignableFrom(matchedClass)) {
+                    return false;
+                }
+            }
+            // 父容器中已经有该类型的 Bean 时也不再加载
+            BeanContainer parent = beanContainer.getParent();
+            if (parent != null && (parent.containsBean(type) || !ValidationUtil.isEmpty(parent.getClassesBySuper(type)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Class<?>> logSkipped(List<Class<?>> classList, List<Class<?>> matchedList) {
+        if (matchedList.size() < classList.size()) {
+            Set<Class<?>> matchedSet = new HashSet<>(matchedList);
+            for (Class<?> clazz : classList) {
+                if (!matchedSet.contains(clazz)) {
+                    log.info("skip bean {}, its conditions are not matched", clazz.getName());
+                }
+            }
+        }
+        return matchedList;
+    }
+}
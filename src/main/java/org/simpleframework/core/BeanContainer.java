@@ -1,26 +1,39 @@
 package org.simpleframework.core;
 
-import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.simpleframework.aop.annotation.Aspect;
 import org.simpleframework.core.annotation.Component;
 import org.simpleframework.core.annotation.Controller;
+import org.simpleframework.core.annotation.Lazy;
 import org.simpleframework.core.annotation.Repository;
 import org.simpleframework.core.annotation.Service;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.core.index.BeanIndex;
+import org.simpleframework.core.profile.StartupProfiler;
 import org.simpleframework.util.ClassUtil;
+import org.simpleframework.util.PackageTrie;
 import org.simpleframework.util.ValidationUtil;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 该类就是 IoC 容器（该类中使用了枚举类型的单例模式）
+ * 该类就是 IoC 容器
+ * 即
+ * getInstance() 方法返回的是默认的全局容器（该默认容器使用了枚举类型的单例模式）
+ * 同时
+ * 也可以直接通过构造方法创建相互隔离的容器实例（如 并行执行的测试，或者在同一个 JVM 中嵌入多个应用）
+ * 然后
+ * 把它传给 DependencyInjector，AspectWeaver 以及 ControllerRequestProcessor 等类的构造方法即可
  */
 @Slf4j
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
 public class BeanContainer {
     /**
      * 定义 Map 集合用于存放所有被配置标记的目标对象（如被 @Controller，@Component 等注解标记的类的对象）
@@ -28,6 +41,57 @@ public class BeanContainer {
      */
     private final Map<Class<?>, Object> beanMap = new ConcurrentHashMap();
 
+    /**
+     * 注解索引
+     * 即
+     * Key 为注解，Value 为 bean 容器中所有加了该注解的类（在类被放入 bean 容器时就建好索引，并随 addBean()，removeBean() 方法一起更新）
+     * 这样
+     * getClassesByAnnotation() 方法就不需要每次都遍历整个 bean 容器了
+     */
+    private final Map<Class<? extends Annotation>, Set<Class<?>>> annotationIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 类型层次索引
+     * 即
+     * Key 为父类或者接口，Value 为 bean 容器中所有继承了该父类或者实现了该接口的类（包括间接继承和间接实现的，但不包括该父类或者接口本身）
+     *（与注解索引一样，在类被放入 bean 容器时就建好索引，并随 addBean()，removeBean() 方法一起更新）
+     * 这样
+     * getClassesBySuper() 方法（即依赖注入时查找接口的实现类）就不需要每次都遍历整个 bean 容器了
+     */
+    private final Map<Class<?>, Set<Class<?>>> supertypeIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 名称索引
+     * 即
+     * Key 为 Bean 的名称（即 @Component，@Service 等注解的值，为空时使用类的简单类名），Value 为该名称所对应的类
+     *（与注解索引一样，随 addBean()，removeBean() 方法一起更新）
+     * 这样
+     * 按名称注入（即 @Autowired 注解的值）以及按名称获取 Bean 时就不需要再遍历所有实现类并比较它们的类名了
+     */
+    private final Map<String, Class<?>> nameIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 冻结之后的 Bean 容器（没有冻结，或者冻结之后容器又发生了变化时为 null）
+     *（见 freeze() 方法）
+     */
+    private volatile FrozenBeanTable frozenBeanTable;
+
+    /**
+     * Bean 的后置处理器（用于处理延迟加载的 Bean 以及非单例的 Bean，如 AspectWeaver 和 DependencyInjector 注册的后置处理器）
+     */
+    private final List<BeanPostProcessor> beanPostProcessors = new CopyOnWriteArrayList<>();
+
+    /**
+     * 正在使用该容器（即这一代容器）处理的请求的数量（见 beginRequest()，endRequest() 方法）
+     * 热加载时，上一代容器中被替换掉的实例要等到该数量降为 0 之后才会被销毁（见 awaitRequests() 方法）
+     */
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    /**
+     * 实例化 Bean 时所使用的线程池的大小（默认为 CPU 核数，设置为 1 时即串行实例化）
+     */
+    public static final String INSTANTIATION_THREADS_PROPERTY = "simpleframework.instantiation.threads";
+
     /**
      * 定义一个 List 集合用于存放我们创建的那些注解的 Class 文件对象
      */
@@ -35,7 +99,7 @@ public class BeanContainer {
             = Arrays.asList(Component.class, Controller.class, Service.class, Repository.class, Aspect.class);
 
     /**
-     * 获取 Bean 容器实例
+     * 获取默认的全局 Bean 容器实例
      *
      * @return BeanContainer
      */
@@ -52,12 +116,109 @@ public class BeanContainer {
         }
     }
 
+    /**
+     * 父容器（只有通过 createChild() 方法创建的子容器才有父容器）
+     * 即
+     * 子容器中找不到的 Bean 会继续到父容器中查找，而父容器并不知道子容器的存在
+     * 这样
+     * 多个租户（或者模块）就可以共享父容器中那些开销较大的公共 Bean，而每个子容器中只需要存放各自特有的 Bean
+     * 注意
+     * 1. 根据类或者名称查找某一个 Bean 的方法（如 getBean()，getBeanClass()，containsBean()，isLazy()，isScoped()，getClassesBySuper()）
+     *    都会继续到父容器中查找（getClassesBySuper() 只有在子容器中没有任何实现类时才会到父容器中查找，即子容器中的实现类会覆盖父容器中的实现类）
+     * 2. 遍历 Bean 的方法（如 getClasses()，getBeans()，getClassesByAnnotation()）只会返回当前容器自己的 Bean
+     *    因为织入，路由和生命周期管理都是按容器进行的，父容器中的 Controller 和切面类已经由父容器自己处理过了
+     */
+    private BeanContainer parent;
+
+    /**
+     * 创建一个以当前容器为父容器的子容器
+     * 注意
+     * 子容器的 addBean()，removeBean() 等方法只会修改子容器本身，父容器对于子容器来说是只读的
+     *
+     * @return 子容器
+     */
+    public BeanContainer createChild() {
+        BeanContainer child = new BeanContainer();
+        child.parent = this;
+        return child;
+    }
+
+    /**
+     * 创建当前容器的下一代容器（如 热加载时），当前容器本身不会被修改
+     * 即
+     * 新容器直接复用当前容器中 retainedClasses 所对应的单例 Bean 实例（这些实例不会被重新织入，也不会被重新注入）
+     * 然后
+     * 按照与 loadBeans() 相同的流程（即条件注解，@Lazy，@Scope，按依赖顺序实例化）创建 classSet 中的 Bean
+     * 注意
+     * 1. 延迟加载的 Bean 以及非单例的 Bean 的定义是绑定在当前容器上的，因此它们不能被复用，只能放到 classSet 中重新创建
+     * 2. 调用方还需要对新创建的 Bean 进行织入，配置属性绑定，依赖注入和初始化，然后冻结新容器之后再发布它
+     *
+     * @param retainedClasses 需要复用实例的类
+     * @param classSet        需要重新创建的 Bean 类
+     * @return 下一代容器（与当前容器有相同的父容器）
+     */
+    public synchronized BeanContainer createNextGeneration(Set<Class<?>> retainedClasses, Collection<Class<?>> classSet) {
+        BeanContainer next = new BeanContainer();
+        next.parent = parent;
+        for (Class<?> clazz : retainedClasses) {
+            Object bean = beanMap.get(clazz);
+            if (bean == null || bean instanceof LazyBeanHolder || bean instanceof ScopedBeanHolder) {
+                throw new RuntimeException(clazz.getName() + " is not an instantiated singleton in this BeanContainer");
+            }
+            next.addBean(clazz, bean);
+        }
+        if (!ValidationUtil.isEmpty(classSet)) {
+            next.instantiateBeans(classSet);
+        }
+        next.loaded = true;
+        return next;
+    }
+
+    /**
+     * 获取父容器
+     *
+     * @return 父容器，没有父容器时返回 null
+     */
+    public BeanContainer getParent() {
+        return parent;
+    }
+
     /**
      * 定义成员变量 loaded 用于判断 bean 容器（即上面创建的 Map 集合 beanMap ）是否被加载过
      *（其实就是判断下面的 loadBeans() 方法有没有执行过）
      */
     private boolean loaded = false;
 
+    /**
+     * 最近一次加载 Bean 容器时传入的所有类
+     * 即
+     * 扫描（或者从索引中）加载的类都是通过 ClassUtil.loadClass() 方法加载的，此时并不会初始化它们
+     */
+    private Set<Class<?>> loadedClassSet = Collections.emptySet();
+
+    /**
+     * 统计最近一次加载 Bean 容器时传入的类中，到目前为止仍然没有被初始化（即没有执行静态初始化代码）的类的数量
+     * 即
+     * 调用该方法时逐个检查这些类在 JVM 中实际的初始化状态（而不是根据 Bean 的种类推算）
+     * 这样
+     * 被其他代码（如 创建 CGLib 代理类）初始化了的类也不会被算进来
+     *
+     * @return 数量，当前 JVM 无法判断类的初始化状态时返回 -1
+     */
+    public int getUninitializedClassCount() {
+        int count = 0;
+        for (Class<?> clazz : loadedClassSet) {
+            Boolean initialized = ClassUtil.isInitialized(clazz);
+            if (initialized == null) {
+                return -1;
+            }
+            if (!initialized) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * bean 容器（即上面创建的 Map 集合 beanMap ）是否被加载过
      *
@@ -83,6 +244,21 @@ public class BeanContainer {
      * @param packageName 该形参用于接收包名
      */
     public synchronized void loadBeans(String packageName) {
+        loadBeans(Collections.singletonList(packageName), null, null);
+    }
+
+    /**
+     * 该方法用于扫描多个包，获取这些包下所有使用了我们定义的那些注解的类的实例，然后把这些实例放入到 Bean 容器中
+     * 同时
+     * 可以通过 include/exclude 规则（如 com.imooc.entity，*.demo.*）只扫描其中的一部分子包
+     * 这些规则会被编译成一棵前缀树，被排除的子包所对应的文件夹根本不会被遍历
+     *（该方法为同步方法）
+     *
+     * @param packageNames 需要扫描的包名
+     * @param includes     include 规则（为空时表示扫描这些包下所有没有被排除的子包）
+     * @param excludes     exclude 规则
+     */
+    public synchronized void loadBeans(List<String> packageNames, List<String> includes, List<String> excludes) {
         // 判断 bean 容器（即上面创建的 Map 集合 beanMap ）是否被加载过（其实就是是否以及往成员变量 beanMap 中存放过元素了）
         // 其实就是判断这个 loadBeans() 方法是否被执行过一次了
         if (isLoaded()) {
@@ -91,41 +267,192 @@ public class BeanContainer {
             return;
         }
 
-        // 调用我们定义的 extractPackageClass() 方法获取形参 packageName 所指向的包下的所有的类的 Class 类对象
-        Set<Class<?>> classSet = ClassUtil.extractPackageClass(packageName);
+        // 把 include/exclude 规则编译成前缀树（没有任何规则时为 null）
+        PackageTrie packageTrie = PackageTrie.compile(includes, excludes);
+
+        // 如果包含该包的所有 jar 包和 classes 文件夹中都有编译期生成的 Bean 索引文件，就直接从索引中获取该包下所有 Bean 类的 Class 类对象
+        // 否则（如 只有某个依赖的 jar 包带了索引文件）
+        // 调用我们定义的 extractPackageClass() 方法获取这些包下的所有的类的 Class 类对象（同时合并索引中该包下的类）
+        //（这里使用并行扫描的方式，以便加快大型项目的启动速度）
+        // 注意
+        // 这里会直接读取 .class 文件的字节，只加载那些加了我们定义的注解的类，其他的类（如实体类，DTO 等）都不会被加载
+        Set<Class<?>> classSet = new HashSet<>();
+        StartupProfiler.getInstance().time("phase", "scan", () -> {
+            ClassLoader classLoader = ClassUtil.getClassLoader();
+            BeanIndex beanIndex = BeanIndex.load(classLoader);
+            for (String packageName : packageNames) {
+                Set<Class<?>> packageClassSet;
+                if (beanIndex != null && beanIndex.isCovered(packageName, classLoader)) {
+                    packageClassSet = beanIndex.getBeanClasses(packageName);
+                } else {
+                    packageClassSet = new HashSet<>();
+                    Set<Class<?>> scannedClassSet = ClassUtil.extractPackageClass(packageName, true, BEAN_ANNOTATION, packageTrie);
+                    if (scannedClassSet != null) {
+                        packageClassSet.addAll(scannedClassSet);
+                    }
+                    if (beanIndex != null) {
+                        packageClassSet.addAll(beanIndex.getBeanClasses(packageName));
+                    }
+                }
+                if (ValidationUtil.isEmpty(packageClassSet)) {
+                    log.warn("extract nothing from packageName" + packageName);
+                    continue;
+                }
+                for (Class<?> clazz : packageClassSet) {
+                    // 索引中的类还没有经过 include/exclude 规则的过滤
+                    if (packageTrie == null || packageTrie.acceptClass(clazz.getName())) {
+                        classSet.add(clazz);
+                    }
+                }
+            }
+        });
 
         // 调用我们定义的 isEmpty() 方法，判断 Set 结合是否为空
         if (ValidationUtil.isEmpty(classSet)) {
-            log.warn("extract nothing from packageName" + packageName);
+            log.warn("extract nothing from packageNames" + packageNames);
             return;
         }
 
-        // 遍历上面获取到的所有的 Class 类对象，检查它们是否使用了我们定义的注解（即 Component, Controller, Service 等注解）
-        // 如果使用了，就调用我们定义的 newInstance() 方法创建它们的实例
-        // 然后
-        // 以该类的 Class 类对象为 Key，该类的实例为 Value，把它们存放到 bean 容器（即当前 beanMap 这个集合）中
+        // 调用下面定义的 instantiateBeans() 方法，创建这些类中所有 Bean 类的实例，并存放到 bean 容器中
+        instantiateBeans(classSet);
+
+        loaded = true;
+
+        log.info("loaded {} beans from packages {}", beanMap.size(), packageNames);
+    }
+
+    /**
+     * 该方法用于直接根据给定的 Bean 类创建它们的实例，然后把这些实例放入到 Bean 容器中（不需要再扫描包）
+     * 如
+     * 根据容器快照中记录的 Bean 类恢复 Bean 容器
+     *（该方法为同步方法）
+     *
+     * @param classSet Bean 类的集合
+     */
+    public synchronized void loadBeans(Collection<Class<?>> classSet) {
+        if (isLoaded()) {
+            log.warn("BeanContainer has been loaded.");
+
+            return;
+        }
+        if (ValidationUtil.isEmpty(classSet)) {
+            log.warn("nothing to load into BeanContainer");
+            return;
+        }
+
+        instantiateBeans(classSet);
+
+        loaded = true;
+
+        log.info("restored {} beans without scanning", beanMap.size());
+    }
+
+    private void instantiateBeans(Collection<Class<?>> classSet) {
+        // 遍历所有的 Class 类对象，检查它们是否使用了我们定义的注解（即 Component, Controller, Service 等注解）
+        // 注意
+        // 同一个类即使加了多个这样的注解，也只会被实例化一次
+        List<Class<?>> beanClassList = new ArrayList<>();
         for (Class<?> clazz : classSet) {
-            for (Class<? extends Annotation> annotation : BEAN_ANNOTATION) {
-                //如果类上面标记了定义的注解
-                if (clazz.isAnnotationPresent(annotation)) {
-                    //将目标类本身作为键，目标类的实例作为值，放入到beanMap中
-                    beanMap.put(clazz, ClassUtil.newInstance(clazz, true));
-                }
+            if (isBeanClass(clazz)) {
+                beanClassList.add(clazz);
             }
         }
+        // 在实例化之前根据条件注解（如 @ConditionalOnProperty）过滤掉不满足条件的 Bean 类
+        // 这样
+        // 被关闭的功能所对应的 Bean 既不会占用堆内存，也不会被 AOP 代理，也不会出现在路由表中
+        beanClassList = new BeanConditionEvaluator(Environment.getInstance(), this).filter(beanClassList);
 
-        loaded = true;
+        List<Class<?>> eagerClassList = new ArrayList<>();
+        for (Class<?> clazz : beanClassList) {
+            // 非单例的类（即 @Scope 注解的值不为 SINGLETON 的类）此时也不会被实例化，而是只把它的定义（即 ScopedBeanHolder 类对象）放入到beanMap中
+            if (ScopedBeanHolder.isScoped(clazz)) {
+                addBean(clazz, new ScopedBeanHolder(clazz, this));
+            }
+            // 加了 @Lazy 注解的类此时不会被实例化，而是只把它的定义（即 LazyBeanHolder 类对象）放入到beanMap中
+            else if (ClassMetadata.of(clazz).isAnnotationPresent(Lazy.class)) {
+                addBean(clazz, new LazyBeanHolder(clazz, this));
+            } else {
+                eagerClassList.add(clazz);
+            }
+        }
+
+        // 根据 @Autowired 注解构建 Bean 之间的依赖关系图，然后按照拓扑顺序，在一个有界的线程池中并行地创建这些类的实例
+        // 然后
+        // 以该类的 Class 类对象为 Key，该类的实例为 Value，把它们存放到 bean 容器（即当前 beanMap 这个集合）中
+        BeanDependencyGraph dependencyGraph = BeanDependencyGraph.build(eagerClassList);
+        Map<Class<?>, Object> instanceMap = createInstances(dependencyGraph);
+        // 所有实例都创建完成之后，才在当前线程中按照拓扑顺序把它们一起放入到 bean 容器中
+        // 这样
+        // 之后的 DependencyInjector 看到的就总是一个完整的，一致的 bean 容器
+        for (Class<?> clazz : dependencyGraph.getSortedClasses()) {
+            addBean(clazz, instanceMap.get(clazz));
+        }
+        loadedClassSet = new HashSet<>(classSet);
+    }
+
+    /**
+     * 按照依赖关系图的拓扑顺序创建所有 Bean 的实例
+     * 即
+     * 每个 Bean 都会在它所依赖的所有 Bean 实例化完成之后才开始实例化，而互相独立的 Bean 则会在线程池中并行地实例化
+     * 注意
+     * 线程池的大小默认为 CPU 核数（可以通过 simpleframework.instantiation.threads 属性设置，设置为 1 时即串行实例化）
+     *
+     * @param dependencyGraph 依赖关系图
+     * @return Key 为 Bean 类，Value 为它的实例
+     */
+    private Map<Class<?>, Object> createInstances(BeanDependencyGraph dependencyGraph) {
+        Map<Class<?>, Object> instanceMap = new ConcurrentHashMap<>();
+        dependencyGraph.runInOrder("bean-instantiation-", Integer.getInteger(INSTANTIATION_THREADS_PROPERTY,
+                Runtime.getRuntime().availableProcessors()), false, 0,
+                clazz -> instanceMap.put(clazz, createInstance(clazz)));
+        return instanceMap;
+    }
+
+    private Object createInstance(Class<?> clazz) {
+        // 同时记录下每个 Bean 实例化所花费的时间
+        return StartupProfiler.getInstance().time("bean", clazz.getName(), () -> ClassUtil.newInstance(clazz, true));
+    }
+
+    /**
+     * 判断指定的类是否加了我们定义的那些注解（即 Component, Controller, Service 等注解），即该类是否是 Bean 类
+     *
+     * @param clazz Class对象
+     * @return 是否是 Bean 类
+     */
+    public static boolean isBeanClass(Class<?> clazz) {
+        ClassMetadata metadata = ClassMetadata.of(clazz);
+        for (Class<? extends Annotation> annotation : BEAN_ANNOTATION) {
+            if (metadata.isAnnotationPresent(annotation)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * 添加一个 class 类对象及它对应的类的实例
      *
+     * 注意
+     * 该类的名称已经被另一个类占用时会直接抛出异常（此时 bean 容器不会被修改），需要在注解上显式地指定不同的名称
+     *
      * @param clazz Class对象
      * @param bean  Bean实例
      * @return 原有的Bean实例, 没有则返回null
      */
     public Object addBean(Class<?> clazz, Object bean) {
-        return beanMap.put(clazz, bean);
+        String beanName = getBeanName(clazz);
+        Class<?> existingClass = nameIndex.putIfAbsent(beanName, clazz);
+        if (existingClass != null && existingClass != clazz) {
+            throw new RuntimeException("duplicate bean name " + beanName + " for " + existingClass.getName() + " and "
+                    + clazz.getName() + ", please set an explicit name on one of them");
+        }
+        Object oldBean = beanMap.put(clazz, bean);
+        thaw();
+        // 只有新加入 bean 容器的类才需要建立索引（如 AOP 时用代理类对象替换原来的实例时，类本身并没有变化）
+        if (oldBean == null) {
+            indexClass(clazz);
+        }
+        return oldBean;
     }
 
     /**
@@ -135,7 +462,89 @@ public class BeanContainer {
      * @return 删除的Bean实例, 没有则返回null
      */
     public Object removeBean(Class<?> clazz) {
-        return beanMap.remove(clazz);
+        Object oldBean = beanMap.remove(clazz);
+        thaw();
+        if (oldBean != null) {
+            unindexClass(clazz);
+        }
+        return oldBean;
+    }
+
+    /**
+     * 把该类加到它上面所有注解的索引中
+     */
+    private void indexClass(Class<?> clazz) {
+        for (Annotation annotation : ClassMetadata.of(clazz).getAnnotations()) {
+            annotationIndex.computeIfAbsent(annotation.annotationType(), key -> ConcurrentHashMap.newKeySet()).add(clazz);
+        }
+        for (Class<?> supertype : getSupertypes(clazz)) {
+            supertypeIndex.computeIfAbsent(supertype, key -> ConcurrentHashMap.newKeySet()).add(clazz);
+        }
+    }
+
+    /**
+     * 把该类从它上面所有注解的索引中移除
+     */
+    private void unindexClass(Class<?> clazz) {
+        for (Annotation annotation : ClassMetadata.of(clazz).getAnnotations()) {
+            Set<Class<?>> classSet = annotationIndex.get(annotation.annotationType());
+            if (classSet != null) {
+                classSet.remove(clazz);
+            }
+        }
+        for (Class<?> supertype : getSupertypes(clazz)) {
+            Set<Class<?>> classSet = supertypeIndex.get(supertype);
+            if (classSet != null) {
+                classSet.remove(clazz);
+            }
+        }
+        // 只移除该类自己的名称索引（同名的另一个类的索引不受影响）
+        nameIndex.remove(getBeanName(clazz), clazz);
+    }
+
+    /**
+     * 获取 Bean 类的名称
+     * 即
+     * @Component，@Service，@Controller，@Repository 注解的值，没有指定时使用类的简单类名（如 HeadLineServiceImpl）
+     *
+     * @param clazz Bean 类
+     * @return Bean 的名称
+     */
+    public static String getBeanName(Class<?> clazz) {
+        ClassMetadata metadata = ClassMetadata.of(clazz);
+        String beanName = "";
+        if (metadata.isAnnotationPresent(Component.class)) {
+            beanName = metadata.getAnnotation(Component.class).value();
+        } else if (metadata.isAnnotationPresent(Service.class)) {
+            beanName = metadata.getAnnotation(Service.class).value();
+        } else if (metadata.isAnnotationPresent(Controller.class)) {
+            beanName = metadata.getAnnotation(Controller.class).value();
+        } else if (metadata.isAnnotationPresent(Repository.class)) {
+            beanName = metadata.getAnnotation(Repository.class).value();
+        }
+        return ValidationUtil.isEmpty(beanName) ? clazz.getSimpleName() : beanName;
+    }
+
+    /**
+     * 获取该类的所有父类以及它（包括它的父类）实现的所有接口（包括这些接口的父接口）
+     */
+    static Set<Class<?>> getSupertypes(Class<?> clazz) {
+        Set<Class<?>> supertypeSet = new HashSet<>();
+        Deque<Class<?>> typeQueue = new ArrayDeque<>();
+        typeQueue.add(clazz);
+        while (!typeQueue.isEmpty()) {
+            Class<?> type = typeQueue.poll();
+            Class<?> superclass = type.getSuperclass();
+            if (superclass != null && supertypeSet.add(superclass)) {
+                typeQueue.add(superclass);
+            }
+            for (Class<?> superInterface : type.getInterfaces()) {
+                if (supertypeSet.add(superInterface)) {
+                    typeQueue.add(superInterface);
+                }
+            }
+        }
+        return supertypeSet;
     }
 
     /**
@@ -145,7 +554,294 @@ public class BeanContainer {
      * @return Bean实例
      */
     public Object getBean(Class<?> clazz) {
-        return beanMap.get(clazz);
+        Object bean = lookup(clazz);
+        // 如果是延迟加载的 Bean，那么第一次获取它时才会实例化它
+        if (bean instanceof LazyBeanHolder) {
+            return ((LazyBeanHolder) bean).get();
+        }
+        // 如果是非单例的 Bean，那么返回当前作用域所对应的实例
+        if (bean instanceof ScopedBeanHolder) {
+            return ((ScopedBeanHolder) bean).get();
+        }
+        return bean;
+    }
+
+    /**
+     * 把用完的非单例 Bean 的实例放回对象池（只对开启了池化的 PROTOTYPE 和 REQUEST 作用域的 Bean 有效）
+     * 注意
+     * 在请求中获取的实例会在请求结束时自动放回对象池，不需要调用该方法
+     *
+     * @param clazz Class对象
+     * @param bean  Bean 实例
+     */
+    public void releaseBean(Class<?> clazz, Object bean) {
+        Object holder = beanMap.get(clazz);
+        if (holder instanceof ScopedBeanHolder) {
+            ((ScopedBeanHolder) holder).release(bean);
+        }
+    }
+
+    /**
+     * 冻结 Bean 容器
+     * 即
+     * 在依赖注入完成之后（此时 beanMap 已经不会再变化了），把 beanMap 编译成一个不可变的结构（即 FrozenBeanTable 类对象）
+     * 之后
+     * getBean() 等方法都会直接从该结构中查找 Bean（每个类第一次查找之后，再次查找时就只是一次字段读取加一次数组访问）
+     * 注意
+     * 冻结之后如果又调用了 addBean()，removeBean() 方法（如 热加载），容器就会自动解冻，需要时再重新调用该方法冻结
+     */
+    public void freeze() {
+        frozenBeanTable = new FrozenBeanTable(beanMap);
+        log.debug("BeanContainer frozen with {} beans", beanMap.size());
+    }
+
+    /**
+     * 判断 Bean 容器当前是否处于冻结状态
+     *
+     * @return 是否处于冻结状态
+     */
+    public boolean isFrozen() {
+        return frozenBeanTable != null;
+    }
+
+    private void thaw() {
+        frozenBeanTable = null;
+    }
+
+    /**
+     * 查找 Class 对象在 bean 容器中所对应的值（冻结时从冻结之后的结构中查找，否则从 beanMap 中查找）
+     */
+    private Object lookup(Class<?> clazz) {
+        FrozenBeanTable frozen = frozenBeanTable;
+        Object bean = frozen != null ? frozen.get(clazz) : beanMap.get(clazz);
+        // 当前容器中找不到时，继续到父容器中查找
+        return bean == null && parent != null ? parent.lookup(clazz) : bean;
+    }
+
+    /**
+     * 根据 Bean 的名称获取 Bean 实例（直接从名称索引中查找）
+     *
+     * @param beanName Bean 的名称
+     * @return Bean实例，没有该名称的 Bean 时返回 null
+     */
+    public Object getBean(String beanName) {
+        Class<?> clazz = getBeanClass(beanName);
+        return clazz == null ? null : getBean(clazz);
+    }
+
+    /**
+     * 根据 Bean 的名称获取它所对应的类
+     *
+     * @param beanName Bean 的名称
+     * @return Bean 类，没有该名称的 Bean 时返回 null
+     */
+    public Class<?> getBeanClass(String beanName) {
+        Class<?> clazz = nameIndex.get(beanName);
+        return clazz == null && parent != null ? parent.getBeanClass(beanName) : clazz;
+    }
+
+    /**
+     * 根据 Class 对象获取 Bean 的引用（用于注入到其他 Bean 中）
+     * 即
+     * 对于还没有实例化的延迟加载的 Bean，返回一个延迟加载代理类对象（这样注入时就不会触发它的实例化）
+     * 对于非单例的 Bean，返回一个作用域代理类对象
+     * 对于其他的 Bean，直接返回它的实例
+     *
+     * @param clazz         Class对象
+     * @param referenceType 引用的数据类型（如成员变量的数据类型）
+     * @return Bean实例或者延迟加载代理类对象
+     */
+    public Object getBeanReference(Class<?> clazz, Class<?> referenceType) {
+        Object bean = lookup(clazz);
+        if (bean instanceof LazyBeanHolder) {
+            return ((LazyBeanHolder) bean).getReference(referenceType);
+        }
+        // 非单例的 Bean 注入的是作用域代理类对象，它的每次方法调用都会转发给当前作用域所对应的实例
+        if (bean instanceof ScopedBeanHolder) {
+            return ((ScopedBeanHolder) bean).getReference(referenceType);
+        }
+        return bean;
+    }
+
+    /**
+     * 判断 bean 容器中是否有该 Class 对象（延迟加载的 Bean 即使还没有实例化也算）
+     *
+     * @param clazz Class对象
+     * @return 是否存在
+     */
+    public boolean containsBean(Class<?> clazz) {
+        return beanMap.containsKey(clazz) || (parent != null && parent.containsBean(clazz));
+    }
+
+    /**
+     * 判断该 Class 对象所对应的 Bean 是否是延迟加载的 Bean
+     *
+     * @param clazz Class对象
+     * @return 是否是延迟加载的 Bean
+     */
+    public boolean isLazy(Class<?> clazz) {
+        return lookup(clazz) instanceof LazyBeanHolder;
+    }
+
+    /**
+     * 判断该 Class 对象所对应的 Bean 是否是非单例的 Bean（即 PROTOTYPE，REQUEST 或者 THREAD 作用域的 Bean）
+     *
+     * @param clazz Class对象
+     * @return 是否是非单例的 Bean
+     */
+    public boolean isScoped(Class<?> clazz) {
+        return lookup(clazz) instanceof ScopedBeanHolder;
+    }
+
+    /**
+     * 注册 Bean 的后置处理器（延迟加载的 Bean 实例化之后会依次交给这些后置处理器处理）
+     *
+     * @param beanPostProcessor 后置处理器
+     */
+    public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        beanPostProcessors.add(beanPostProcessor);
+    }
+
+    /**
+     * 依次使用所有的后置处理器处理刚实例化好的 Bean
+     */
+    Object postProcess(Class<?> beanClass, Object bean) {
+        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
+            bean = beanPostProcessor.postProcess(beanClass, bean);
+        }
+        // 这些 Bean 是在 initializeBeans() 之后才实例化的，因此处理完之后要立即调用它们的初始化方法
+        LifecycleMethods.of(beanClass).invokeInitMethods(bean);
+        return bean;
+    }
+
+    /**
+     * 调用 bean 容器中所有已经实例化了的单例 Bean 的初始化方法（即加了 @PostConstruct 注解的方法）
+     * 即
+     * 在依赖注入完成之后，按照依赖关系在线程池中并行地调用这些方法（每个 Bean 的初始化方法都会在它所依赖的 Bean 初始化完成之后才被调用）
+     * 这样
+     * 预热缓存，创建连接池等工作就可以在处理第一个请求之前并行地完成了
+     * 注意
+     * 延迟加载的 Bean 以及非单例的 Bean 会在它们的每个实例被创建时调用初始化方法
+     */
+    public void initializeBeans() {
+        initializeBeans(beanMap.keySet());
+        // 此时启动过程已经基本完成了，统计有多少加载了的类直到现在都还没有被初始化（即启动时实际避免了的类初始化）
+        log.info("{} of {} loaded classes are still uninitialized after initialization",
+                getUninitializedClassCount(), loadedClassSet.size());
+    }
+
+    /**
+     * 只调用指定的类所对应的 Bean 的初始化方法（如 热加载时只需要初始化重新加载的类）
+     *
+     * @param classSet 需要初始化的类
+     */
+    public void initializeBeans(Set<Class<?>> classSet) {
+        Map<Class<?>, Object> instanceMap = getInstantiatedBeans();
+        instanceMap.keySet().retainAll(classSet);
+        BeanDependencyGraph.build(instanceMap.keySet()).runInOrder("bean-init-", lifecycleThreadCount(), false, 0, clazz -> {
+            LifecycleMethods lifecycleMethods = LifecycleMethods.of(clazz);
+            if (lifecycleMethods.hasInitMethods()) {
+                StartupProfiler.getInstance().time("init", clazz.getName(),
+                        () -> lifecycleMethods.invokeInitMethods(instanceMap.get(clazz)));
+            }
+        });
+    }
+
+    /**
+     * 登记一个开始使用该容器处理的请求（处理完毕之后必须调用 endRequest() 方法）
+     */
+    public void beginRequest() {
+        inFlightRequests.incrementAndGet();
+    }
+
+    /**
+     * 登记一个使用该容器处理完毕的请求（最后一个请求处理完毕时唤醒正在 awaitRequests() 方法中等待的线程）
+     */
+    public void endRequest() {
+        if (inFlightRequests.decrementAndGet() == 0) {
+            synchronized (inFlightRequests) {
+                inFlightRequests.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 等待所有正在使用该容器处理的请求处理完毕
+     * 注意
+     * 调用该方法之前，应该已经发布了下一代容器（这样就不会再有新的请求登记到该容器上了）
+     *
+     * @param timeoutMillis 最多等待的时间（单位为毫秒）
+     * @return 是否所有请求都已经处理完毕（超时时返回 false）
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean awaitRequests(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (inFlightRequests) {
+            while (inFlightRequests.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(inFlightRequests, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 调用 bean 容器中所有已经实例化了的单例 Bean 的销毁方法（即加了 @PreDestroy 注解的方法）
+     * 即
+     * 按照与依赖关系相反的顺序调用这些方法（每个 Bean 的销毁方法都会在依赖它的 Bean 销毁完成之后才被调用），互相独立的 Bean 会被并行地销毁
+     * 注意
+     * 每个 Bean 的销毁方法最多只会等待 timeoutMillis 毫秒，超时或者失败时只会打印警告日志，然后继续销毁其他 Bean
+     *
+     * @param timeoutMillis 每个 Bean 的销毁方法的超时时间
+     */
+    public void destroyBeans(long timeoutMillis) {
+        destroyBeans(beanMap.keySet(), timeoutMillis);
+    }
+
+    /**
+     * 只调用指定的类所对应的 Bean 的销毁方法（如 热加载时只需要销毁被下一代容器替换掉的实例）
+     *
+     * @param classSet      需要销毁的类
+     * @param timeoutMillis 每个 Bean 的销毁方法的超时时间
+     */
+    public void destroyBeans(Set<Class<?>> classSet, long timeoutMillis) {
+        Map<Class<?>, Object> instanceMap = getInstantiatedBeans();
+        instanceMap.keySet().retainAll(classSet);
+        if (instanceMap.isEmpty()) {
+            return;
+        }
+        // 没有销毁方法的 Bean 也要留在依赖关系图中，以保证它两边的 Bean 之间的销毁顺序
+        BeanDependencyGraph.build(instanceMap.keySet()).runInOrder("bean-destroy-", lifecycleThreadCount(), true, timeoutMillis, clazz -> {
+            LifecycleMethods lifecycleMethods = LifecycleMethods.of(clazz);
+            if (lifecycleMethods.hasDestroyMethods()) {
+                lifecycleMethods.invokeDestroyMethods(instanceMap.get(clazz));
+            }
+        });
+        log.info("destroyed {} beans", instanceMap.size());
+    }
+
+    /**
+     * 获取 bean 容器（不包括父容器）中所有已经实例化了的单例 Bean（即不包括还没有实例化的延迟加载的 Bean 以及非单例的 Bean）
+     */
+    private Map<Class<?>, Object> getInstantiatedBeans() {
+        Map<Class<?>, Object> instanceMap = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, Object> entry : beanMap.entrySet()) {
+            Object bean = entry.getValue();
+            if (bean instanceof LazyBeanHolder) {
+                bean = ((LazyBeanHolder) bean).getIfCreated();
+            }
+            if (bean != null && !(bean instanceof ScopedBeanHolder)) {
+                instanceMap.put(entry.getKey(), bean);
+            }
+        }
+        return instanceMap;
+    }
+
+    private static int lifecycleThreadCount() {
+        return Integer.getInteger(INSTANTIATION_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
     }
     /**
      * 获取容器管理的所有Class对象集合
@@ -161,64 +857,89 @@ public class BeanContainer {
      * @return Bean集合
      */
     public Set<Object> getBeans(){
-        return new HashSet<>( beanMap.values());
+        // 冻结之后直接返回冻结时创建好的只读集合
+        FrozenBeanTable frozen = frozenBeanTable;
+        if (frozen != null && frozen.getBeanSet() != null) {
+            return frozen.getBeanSet();
+        }
+        Set<Object> beanSet = new HashSet<>();
+        for (Object bean : beanMap.values()) {
+            // 还没有实例化的延迟加载的 Bean 不会被包含在内（获取所有 Bean 时不应该触发它们的实例化）
+            if (bean instanceof LazyBeanHolder) {
+                bean = ((LazyBeanHolder) bean).getIfCreated();
+            }
+            // 非单例的 Bean 没有唯一的实例，因此也不会被包含在内
+            if (bean instanceof ScopedBeanHolder) {
+                continue;
+            }
+            if (bean != null) {
+                beanSet.add(bean);
+            }
+        }
+        return beanSet;
+    }
+
+    /**
+     * 获取 bean 容器中每个类当前所对应的对象（用于内存占用分析等）
+     * 即
+     * 单例的 Bean 以及已经实例化的延迟加载的 Bean 返回它的实例
+     * 还没有实例化的延迟加载的 Bean 以及非单例的 Bean 返回它的定义（即 LazyBeanHolder，ScopedBeanHolder 类对象）
+     *（获取时不会触发延迟加载的 Bean 的实例化）
+     *
+     * @return Key 为 Class 对象，Value 为对应的实例或定义
+     */
+    public Map<Class<?>, Object> getBeanEntries() {
+        Map<Class<?>, Object> entryMap = new HashMap<>();
+        for (Map.Entry<Class<?>, Object> entry : beanMap.entrySet()) {
+            Object bean = entry.getValue();
+            if (bean instanceof LazyBeanHolder && ((LazyBeanHolder) bean).getIfCreated() != null) {
+                bean = ((LazyBeanHolder) bean).getIfCreated();
+            }
+            entryMap.put(entry.getKey(), bean);
+        }
+        return entryMap;
     }
 
     /**
      * 该方法用于 bean 容器中获取使用了指定注解的 bean 的 Class类对象集合
+     *（这里直接从注解索引中获取，返回的是该索引的副本，因此调用者可以随意修改它，之后容器的变化也不会影响它）
+     * 注意
+     * 与 getClassesBySuper() 不同，该方法不会到父容器中查找（即只返回当前容器自己的 Bean 类，原因见成员变量 parent 上的注释）
      *
      * @param annotation 注解
      * @return Class集合
      */
     public Set<Class<?>> getClassesByAnnotation(Class<? extends Annotation> annotation){
-        // 1.获取 bean 容器中的所有 Class 对象
-        Set<Class<?>> keySet = getClasses();
-
-        if(ValidationUtil.isEmpty(keySet)){
+        if(beanMap.isEmpty()){
             log.warn("nothing in beanMap");
             return null;
         }
-        // 2.通过注解筛选被注解标记的class对象，并添加到classSet里
-
 
-        Set<Class<?>> classSet = new HashSet<>();
-
-        // 获取 bean 容器中的所有 Class 对象
-        for(Class<?> clazz : keySet){
-            //类是否有相关的注解标记
-            if(clazz.isAnnotationPresent(annotation)){
-                classSet.add(clazz);
-            }
-        }
-        return classSet.size() > 0 ? classSet: null;
+        // 从注解索引中获取被该注解标记的class对象
+        Set<Class<?>> classSet = annotationIndex.get(annotation);
+        return ValidationUtil.isEmpty(classSet) ? null : new HashSet<>(classSet);
     }
     /**
      * 该方法用于获取指定 接口所对应的实现子类 或者 父类所对应的子类 的 Class 类对象集合（不包括该类和接口本身）
+     *（当前容器中没有时会继续到父容器中查找）
+     *（这里直接从类型层次索引中获取，返回的是该索引的副本，因此调用者可以随意修改它，之后容器的变化也不会影响它）
      *
      * @param interfaceOrClass 接口Class或者父类Class
      * @return Class集合
      */
     public Set<Class<?>> getClassesBySuper(Class<?> interfaceOrClass){
-        // 1.获取 bean 容器中的所有 Class 对象
-        Set<Class<?>> keySet = getClasses();
-        if(ValidationUtil.isEmpty(keySet)){
+        if(beanMap.isEmpty() && parent == null){
             log.warn("nothing in beanMap");
             return null;
         }
-        // 2.判断keySet里的元素是否是传入的接口或者类的子类，如果是，就将其添加到classSet里
 
-
-        Set<Class<?>> classSet = new HashSet<>();
-
-        // 遍历这些 Class 类对象
-        for(Class<?> clazz : keySet){
-            // 调用 Class 类的 isAssignableFrom() 方法，判断 keySet 集合里的元素是否是传入的接口或者类的子类
-            // 并且判断当前遍历到的 Class 类对象不是传入该方法的类或者接口本身
-            if(interfaceOrClass.isAssignableFrom(clazz) && !clazz.equals(interfaceOrClass)){
-                classSet.add(clazz);
-            }
+        // 直接从类型层次索引中获取该接口的实现子类或者该父类的子类（索引中本来就不包括该类和接口本身）
+        Set<Class<?>> classSet = supertypeIndex.get(interfaceOrClass);
+        if (!ValidationUtil.isEmpty(classSet)) {
+            return new HashSet<>(classSet);
         }
-        return classSet.size() > 0 ? classSet: null;
+        // 当前容器中没有时，再到父容器中查找（即子容器中的实现类会覆盖父容器中的实现类）
+        return parent == null ? null : parent.getClassesBySuper(interfaceOrClass);
     }
 
 }
@@ -0,0 +1,266 @@
+package org.simpleframework.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.inject.annotation.Autowired;
+import org.simpleframework.util.ValidationUtil;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 该类就是根据 @Autowired 注解构建出来的 Bean 依赖关系图（有向无环图）
+ * 即
+ * 如果 Bean 类 A 中有一个加了 @Autowired 注解的成员变量，它最终会注入 Bean 类 B 的实例，那么就有一条 A -> B 的边
+ * 然后
+ * 通过拓扑排序得到 Bean 的实例化顺序（被依赖的 Bean 总是排在依赖它的 Bean 前面）
+ *
+ * 注意
+ * 成员变量的注入本身并不要求依赖关系无环，因此遇到循环依赖时只会打印出完整的依赖路径作为警告，并忽略形成环的那一条边
+ */
+@Slf4j
+class BeanDependencyGraph {
+    // Key 为 Bean 类，Value 为它所依赖的 Bean 类（保持插入顺序，以便每次构建出来的实例化顺序都是确定的）
+    private final Map<Class<?>, Set<Class<?>>> dependencyMap = new LinkedHashMap<>();
+    // 拓扑排序后的 Bean 类（即实例化顺序）
+    private final List<Class<?>> sortedClassList = new ArrayList<>();
+    // 构建过程中发现的循环依赖路径（如 A -> B -> A）
+    private final List<String> cyclePathList = new ArrayList<>();
+
+    private BeanDependencyGraph() {
+    }
+
+    /**
+     * 根据 Bean 类中加了 @Autowired 注解的成员变量构建依赖关系图
+     *
+     * @param classSet 所有的 Bean 类
+     * @return 依赖关系图
+     */
+    static BeanDependencyGraph build(Collection<Class<?>> classSet) {
+        BeanDependencyGraph graph = new BeanDependencyGraph();
+        CandidateIndex candidateIndex = new CandidateIndex(classSet);
+        for (Class<?> clazz : classSet) {
+            Set<Class<?>> dependencySet = new LinkedHashSet<>();
+            for (Field field : ClassMetadata.of(clazz).getAnnotatedFields(Autowired.class)) {
+                Autowired autowired = field.getAnnotation(Autowired.class);
+                dependencySet.addAll(candidateIndex.resolve(field.getType(), autowired.value()));
+            }
+            dependencySet.remove(clazz);
+            graph.dependencyMap.put(clazz, dependencySet);
+        }
+        graph.sort();
+        return graph;
+    }
+
+    /**
+     * 该类就是构建依赖关系图时所使用的候选 Bean 类索引
+     * 即
+     * 在构建依赖关系图之前，先对所有的 Bean 类建好类型层次索引以及名称索引（与 BeanContainer 中的索引相同）
+     * 这样
+     * 解析每个成员变量时只需要查找索引，而不需要再对所有的 Bean 类逐一调用 isAssignableFrom() 方法了
+     */
+    private static class CandidateIndex {
+        // 所有的 Bean 类
+        private final Set<Class<?>> classSet;
+        // Key 为父类或者接口，Value 为所有继承了该父类或者实现了该接口的 Bean 类（保持 Bean 类的顺序）
+        private final Map<Class<?>, Set<Class<?>>> supertypeIndex = new HashMap<>();
+        // Key 为 Bean 的名称，Value 为该名称所对应的 Bean 类
+        private final Map<String, Set<Class<?>>> nameIndex = new HashMap<>();
+
+        CandidateIndex(Collection<Class<?>> classes) {
+            this.classSet = new HashSet<>(classes);
+            for (Class<?> clazz : classes) {
+                for (Class<?> supertype : BeanContainer.getSupertypes(clazz)) {
+                    supertypeIndex.computeIfAbsent(supertype, key -> new LinkedHashSet<>()).add(clazz);
+                }
+                nameIndex.computeIfAbsent(BeanContainer.getBeanName(clazz), key -> new LinkedHashSet<>()).add(clazz);
+            }
+        }
+
+        /**
+         * 找出成员变量最终可能注入的 Bean 类（解析规则与 DependencyInjector 相同，即先按类型本身查找，再按接口或父类查找）
+         */
+        Set<Class<?>> resolve(Class<?> fieldClass, String autowiredValue) {
+            if (classSet.contains(fieldClass)) {
+                return Collections.singleton(fieldClass);
+            }
+            if (ValidationUtil.isEmpty(autowiredValue)) {
+                return supertypeIndex.getOrDefault(fieldClass, Collections.emptySet());
+            }
+            // 指定了名称时，只需要检查该名称所对应的 Bean 类是否是成员变量的类型的子类即可
+            Set<Class<?>> candidateSet = new LinkedHashSet<>();
+            for (Class<?> clazz : nameIndex.getOrDefault(autowiredValue, Collections.emptySet())) {
+                if (fieldClass.isAssignableFrom(clazz)) {
+                    candidateSet.add(clazz);
+                }
+            }
+            return candidateSet;
+        }
+    }
+
+    /**
+     * 通过深度优先遍历进行拓扑排序，同时记录下遇到的所有循环依赖
+     */
+    private void sort() {
+        Set<Class<?>> visitedSet = new HashSet<>();
+        // 当前这条遍历路径上的 Bean 类（用于检测循环依赖，以及打印出完整的依赖路径）
+        LinkedHashSet<Class<?>> pathSet = new LinkedHashSet<>();
+        for (Class<?> clazz : dependencyMap.keySet()) {
+            visit(clazz, visitedSet, pathSet);
+        }
+    }
+
+    private void visit(Class<?> clazz, Set<Class<?>> visitedSet, LinkedHashSet<Class<?>> pathSet) {
+        if (visitedSet.contains(clazz)) {
+            return;
+        }
+        pathSet.add(clazz);
+        Iterator<Class<?>> iterator = dependencyMap.get(clazz).iterator();
+        while (iterator.hasNext()) {
+            Class<?> dependency = iterator.next();
+            if (pathSet.contains(dependency)) {
+                // 遇到了循环依赖，记录下完整的依赖路径，然后去掉这条边（否则就无法进行拓扑排序了）
+                String cyclePath = describeCycle(pathSet, dependency);
+                log.warn("circular dependency detected: {}", cyclePath);
+                cyclePathList.add(cyclePath);
+                iterator.remove();
+                continue;
+            }
+            visit(dependency, visitedSet, pathSet);
+        }
+        pathSet.remove(clazz);
+        visitedSet.add(clazz);
+        // 所有依赖都已经排在前面了，此时才把当前 Bean 类加入到实例化顺序中
+        sortedClassList.add(clazz);
+    }
+
+    private static String describeCycle(LinkedHashSet<Class<?>> pathSet, Class<?> dependency) {
+        StringBuilder builder = new StringBuilder();
+        boolean inCycle = false;
+        for (Class<?> clazz : pathSet) {
+            inCycle = inCycle || clazz == dependency;
+            if (inCycle) {
+                builder.append(clazz.getName()).append(" -> ");
+            }
+        }
+        return builder.append(dependency.getName()).toString();
+    }
+
+    /**
+     * 按照依赖关系在一个有界的线程池中并行地对每个 Bean 类执行任务
+     * 即
+     * reverse 为 false 时，每个 Bean 类的任务都会在它所依赖的所有 Bean 类的任务完成之后才开始执行（如 实例化，初始化）
+     * reverse 为 true 时则相反，每个 Bean 类的任务都会在依赖它的所有 Bean 类的任务完成之后才开始执行（如 销毁）
+     * 而互相独立的 Bean 类的任务则会并行地执行
+     *
+     * 注意
+     * timeoutMillis 大于 0 时，每个任务最多只会等待该时间，超时或者抛出异常的任务只会被记录到日志中，不会影响其他任务的执行
+     * 否则
+     * 任意一个任务抛出异常时，依赖它的任务都不会再执行，并且该方法最终会抛出该异常
+     *
+     * @param threadNamePrefix 线程池中线程的名称前缀
+     * @param threadCount      线程池的大小（小于等于 1 并且没有设置超时时间时，直接在当前线程中按顺序执行）
+     * @param reverse          是否按照相反的依赖顺序执行
+     * @param timeoutMillis    每个任务的超时时间
+     * @param task             任务
+     */
+    void runInOrder(String threadNamePrefix, int threadCount, boolean reverse, long timeoutMillis, Consumer<Class<?>> task) {
+        List<Class<?>> orderedClassList = new ArrayList<>(sortedClassList);
+        Map<Class<?>, Set<Class<?>>> prerequisiteMap = reverse ? getDependents() : dependencyMap;
+        if (reverse) {
+            Collections.reverse(orderedClassList);
+        }
+        threadCount = Math.min(threadCount, orderedClassList.size());
+        if (threadCount <= 1 && timeoutMillis <= 0) {
+            orderedClassList.forEach(task);
+            return;
+        }
+
+        // 线程池中的线程的上下文类加载器不一定是当前 Web 应用的类加载器，因此这里要把当前线程的类加载器传给这些线程
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        });
+        try {
+            // 因为 orderedClassList 已经是按照执行顺序排好序的了，所以遍历到每个 Bean 类时，它需要等待的那些任务的 Future 都已经创建好了
+            Map<Class<?>, CompletableFuture<Void>> futureMap = new HashMap<>();
+            for (Class<?> clazz : orderedClassList) {
+                CompletableFuture<?>[] prerequisiteFutures = prerequisiteMap.getOrDefault(clazz, Collections.emptySet()).stream()
+                        .map(futureMap::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                CompletableFuture<Void> future;
+                if (timeoutMillis > 0) {
+                    // 超时时间从该任务真正开始执行时算起
+                    future = CompletableFuture.allOf(prerequisiteFutures)
+                            .thenCompose(ignored -> CompletableFuture.runAsync(() -> task.accept(clazz), executor)
+                                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                                    .exceptionally(e -> {
+                                        log.warn("task of {} failed or timed out after {}ms: {}", clazz.getName(), timeoutMillis, e.toString());
+                                        return null;
+                                    }));
+                } else {
+                    future = CompletableFuture.allOf(prerequisiteFutures)
+                            .thenRunAsync(() -> task.accept(clazz), executor);
+                }
+                futureMap.put(clazz, future);
+            }
+            CompletableFuture.allOf(futureMap.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            log.error("run bean tasks error:", e.getCause());
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取每个 Bean 类被哪些 Bean 类所依赖（即把依赖关系图中所有的边反过来）
+     */
+    private Map<Class<?>, Set<Class<?>>> getDependents() {
+        Map<Class<?>, Set<Class<?>>> dependentMap = new HashMap<>();
+        for (Map.Entry<Class<?>, Set<Class<?>>> entry : dependencyMap.entrySet()) {
+            for (Class<?> dependency : entry.getValue()) {
+                dependentMap.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(entry.getKey());
+            }
+        }
+        return dependentMap;
+    }
+
+    /**
+     * 获取 Bean 类所依赖的 Bean 类（不包括形成循环依赖的那些边）
+     *
+     * @param clazz Bean 类
+     * @return 所依赖的 Bean 类
+     */
+    Set<Class<?>> getDependencies(Class<?> clazz) {
+        return dependencyMap.getOrDefault(clazz, Collections.emptySet());
+    }
+
+    /**
+     * 获取拓扑排序后的 Bean 类（被依赖的 Bean 类总是排在依赖它的 Bean 类前面）
+     *
+     * @return 实例化顺序
+     */
+    List<Class<?>> getSortedClasses() {
+        return sortedClassList;
+    }
+
+    /**
+     * 获取构建过程中发现的所有循环依赖路径
+     *
+     * @return 循环依赖路径
+     */
+    List<String> getCyclePaths() {
+        return cyclePathList;
+    }
+}
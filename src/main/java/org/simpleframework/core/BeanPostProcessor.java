@@ -0,0 +1,21 @@
+package org.simpleframework.core;
+
+/**
+ * 该接口就是 Bean 的后置处理器
+ * 即
+ * 延迟加载的 Bean（即加了 @Lazy 注解的 Bean）以及非单例的 Bean（即加了 @Scope 注解的 Bean）的每个实例被创建之后
+ * 都会依次交给所有注册到 IOC 容器中的后置处理器进行处理
+ * 如
+ * AspectWeaver 会为它生成代理类对象（即织入），DependencyInjector 会为它注入依赖
+ *（因为这些 Bean 在 doAop()，doIoc() 执行的时候还没有被实例化）
+ */
+public interface BeanPostProcessor {
+    /**
+     * 对刚实例化好的 Bean 进行处理
+     *
+     * @param beanClass Bean 类
+     * @param bean      Bean 实例
+     * @return 处理后的 Bean 实例（可以是原来的实例，也可以是它的代理类对象）
+     */
+    Object postProcess(Class<?> beanClass, Object bean);
+}
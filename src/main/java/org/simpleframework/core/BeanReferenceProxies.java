@@ -0,0 +1,57 @@
+package org.simpleframework.core;
+
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
+import sun.reflect.ReflectionFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * 该类用于创建注入到其他 Bean 中的引用代理类对象（即延迟加载代理类对象，以及作用域代理类对象）
+ * 即
+ * 引用的数据类型是接口时，代理类只实现该接口，不会用到 Bean 类的构造方法
+ * 否则
+ * 代理类只能是 Bean 类的子类，此时通过 ReflectionFactory（即 Objenesis 所使用的方式）直接分配代理类对象，而不调用 Bean 类的构造方法
+ * 这样
+ * 注入引用时不会多创建一个 Bean 实例（也就不会提前执行构造方法中的逻辑，或者提前占用堆内存），真正的实例仍然只会在第一次使用时创建
+ *
+ * 注意
+ * 创建 Bean 类的子类时仍然会执行 Bean 类的静态初始化块，因此延迟加载的 Bean 最好通过接口注入
+ */
+final class BeanReferenceProxies {
+    private BeanReferenceProxies() {
+    }
+
+    /**
+     * 创建引用代理类对象
+     *
+     * @param beanClass     Bean 类
+     * @param referenceType 引用的数据类型（如成员变量的数据类型）
+     * @param callbackType  回调的类型（如 LazyLoader，Dispatcher）
+     * @param callback      回调
+     * @return 引用代理类对象
+     */
+    static Object create(Class<?> beanClass, Class<?> referenceType, Class<? extends Callback> callbackType, Callback callback) {
+        Enhancer enhancer = new Enhancer();
+        enhancer.setClassLoader(beanClass.getClassLoader());
+        if (referenceType.isInterface()) {
+            enhancer.setInterfaces(new Class<?>[]{referenceType});
+            enhancer.setCallback(callback);
+            return enhancer.create();
+        }
+        // 只生成代理类（同一个 Bean 类的代理类会被 Enhancer 缓存），然后跳过构造方法分配代理类对象，再设置它的回调
+        enhancer.setSuperclass(beanClass);
+        enhancer.setCallbackType(callbackType);
+        Class<?> proxyClass = enhancer.createClass();
+        try {
+            Constructor<?> constructor = ReflectionFactory.getReflectionFactory()
+                    .newConstructorForSerialization(proxyClass, Object.class.getDeclaredConstructor());
+            Factory proxy = (Factory) constructor.newInstance();
+            proxy.setCallback(0, callback);
+            return proxy;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("unable to create reference proxy for " + beanClass.getName(), e);
+        }
+    }
+}
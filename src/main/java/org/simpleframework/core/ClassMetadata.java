@@ -0,0 +1,174 @@
+package org.simpleframework.core;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 该类就是一个类的反射元数据缓存（即该类声明的成员变量，方法，方法的形参，以及加在该类上的注解）
+ * 即
+ * Class 类中的 getDeclaredFields()，getDeclaredMethods() 等方法，以及 Method 类中的 getParameters() 方法每次调用都会在 JDK 内部复制一份数组
+ * 因此
+ * 每个类只会在第一次使用时通过反射读取一次这些元数据，之后扫描，IOC，AOP 以及构建路由表时都直接从 ClassValue 中获取
+ *（ClassValue 的值是直接保存在 Class 类对象上的，热加载生成的新的类自然会有新的元数据）
+ *
+ * 注意
+ * 这里返回的 Field 和 Method 类对象是所有调用方共享的，调用方不应该修改它们（除了调用 setAccessible(true)）
+ */
+public final class ClassMetadata {
+    private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    // 加在该类上的注解（包括通过 @Inherited 继承来的注解）
+    private final Map<Class<? extends Annotation>, Annotation> annotationMap;
+    // 该类声明的成员变量
+    private final List<Field> fieldList;
+    // 该类声明的方法
+    private final List<Method> methodList;
+    // 每个方法的形参（第一次获取时才读取）
+    private final Map<Method, List<Parameter>> parameterMap = new ConcurrentHashMap<>();
+    // 加了某个注解的成员变量和方法（第一次获取时才筛选）
+    private final Map<Class<? extends Annotation>, List<Field>> annotatedFieldMap = new ConcurrentHashMap<>();
+    private final Map<Class<? extends Annotation>, List<Method>> annotatedMethodMap = new ConcurrentHashMap<>();
+
+    private ClassMetadata(Class<?> type) {
+        this.type = type;
+        Map<Class<? extends Annotation>, Annotation> annotations = new HashMap<>();
+        for (Annotation annotation : type.getAnnotations()) {
+            annotations.put(annotation.annotationType(), annotation);
+        }
+        this.annotationMap = annotations.isEmpty() ? Collections.emptyMap() : annotations;
+        this.fieldList = Collections.unmodifiableList(Arrays.asList(type.getDeclaredFields()));
+        this.methodList = Collections.unmodifiableList(Arrays.asList(type.getDeclaredMethods()));
+    }
+
+    /**
+     * 获取类的反射元数据
+     *
+     * @param type 类
+     * @return 反射元数据
+     */
+    public static ClassMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * 获取加在该类上的注解
+     *
+     * @param annotationClass 注解类型
+     * @return 注解，没有加该注解时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <A extends Annotation> A getAnnotation(Class<A> annotationClass) {
+        return (A) annotationMap.get(annotationClass);
+    }
+
+    /**
+     * 判断该类上是否加了指定的注解
+     *
+     * @param annotationClass 注解类型
+     * @return 是否加了该注解
+     */
+    public boolean isAnnotationPresent(Class<? extends Annotation> annotationClass) {
+        return annotationMap.containsKey(annotationClass);
+    }
+
+    /**
+     * 获取加在该类上的所有注解
+     *
+     * @return 注解集合
+     */
+    public Collection<Annotation> getAnnotations() {
+        return annotationMap.values();
+    }
+
+    /**
+     * 获取该类声明的所有成员变量（即 getDeclaredFields() 方法的返回值）
+     *
+     * @return 成员变量
+     */
+    public List<Field> getFields() {
+        return fieldList;
+    }
+
+    /**
+     * 根据成员变量名获取该类声明的成员变量
+     *
+     * @param name 成员变量名
+     * @return 成员变量，没有该成员变量时返回 null
+     */
+    public Field getField(String name) {
+        for (Field field : fieldList) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取该类声明的所有加了指定注解的成员变量
+     *
+     * @param annotationClass 注解类型
+     * @return 成员变量
+     */
+    public List<Field> getAnnotatedFields(Class<? extends Annotation> annotationClass) {
+        return annotatedFieldMap.computeIfAbsent(annotationClass, key -> {
+            List<Field> annotatedFieldList = new ArrayList<>();
+            for (Field field : fieldList) {
+                if (field.isAnnotationPresent(key)) {
+                    annotatedFieldList.add(field);
+                }
+            }
+            return annotatedFieldList.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(annotatedFieldList);
+        });
+    }
+
+    /**
+     * 获取该类声明的所有方法（即 getDeclaredMethods() 方法的返回值）
+     *
+     * @return 方法
+     */
+    public List<Method> getMethods() {
+        return methodList;
+    }
+
+    /**
+     * 获取该类声明的所有加了指定注解的方法
+     *
+     * @param annotationClass 注解类型
+     * @return 方法
+     */
+    public List<Method> getAnnotatedMethods(Class<? extends Annotation> annotationClass) {
+        return annotatedMethodMap.computeIfAbsent(annotationClass, key -> {
+            List<Method> annotatedMethodList = new ArrayList<>();
+            for (Method method : methodList) {
+                if (method.isAnnotationPresent(key)) {
+                    annotatedMethodList.add(method);
+                }
+            }
+            return annotatedMethodList.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(annotatedMethodList);
+        });
+    }
+
+    /**
+     * 获取该类声明的方法的形参
+     *
+     * @param method 该类声明的方法
+     * @return 形参
+     */
+    public List<Parameter> getParameters(Method method) {
+        if (method.getDeclaringClass() != type) {
+            throw new RuntimeException(method + " is not declared by " + type.getName());
+        }
+        return parameterMap.computeIfAbsent(method, key -> Collections.unmodifiableList(Arrays.asList(key.getParameters())));
+    }
+}
@@ -0,0 +1,77 @@
+package org.simpleframework.core;
+
+import java.util.*;
+
+/**
+ * 该类就是冻结之后的 Bean 容器（即 BeanContainer 的 freeze() 方法把 beanMap 编译成的不可变结构）
+ * 即
+ * 冻结时为每个 Bean 类分配一个固定的下标，把所有的 Bean 按下标存放到一个数组中
+ * 然后
+ * 通过 ClassValue 把 Bean 类与它的下标绑定起来（ClassValue 的值是直接保存在 Class 类对象上的）
+ * 这样
+ * 每个类第一次查找之后，之后的查找就只是读取 Class 类对象上的值再加一次数组访问，不需要计算哈希值，也不需要任何锁
+ *
+ * 注意
+ * 该结构一旦创建就不会再被修改，IOC 容器发生任何变化时都会丢弃该结构（即解冻），需要时再重新冻结
+ */
+class FrozenBeanTable {
+    // 没有该 Bean 类时所对应的下标
+    private static final int ABSENT = -1;
+
+    // 按下标存放的所有 Bean（包括延迟加载的 Bean 以及非单例的 Bean 所对应的 Holder 类对象）
+    private final Object[] beans;
+    // Bean 类与它在数组中的下标的绑定关系
+    private final ClassValue<Integer> slotIndex;
+    // 冻结时所有 Bean 实例的只读集合（以便 getBeans() 方法不需要每次都重新创建一个集合）
+    private final Set<Object> beanSet;
+    // 冻结时是否存在还没有实例化的延迟加载的 Bean（此时 getBeans() 方法不能直接返回上面的集合）
+    private final boolean hasPendingLazyBeans;
+
+    FrozenBeanTable(Map<Class<?>, Object> beanMap) {
+        Map<Class<?>, Integer> indexMap = new HashMap<>();
+        this.beans = new Object[beanMap.size()];
+        Set<Object> instanceSet = new HashSet<>();
+        boolean pendingLazyBeans = false;
+        int index = 0;
+        for (Map.Entry<Class<?>, Object> entry : beanMap.entrySet()) {
+            Object bean = entry.getValue();
+            indexMap.put(entry.getKey(), index);
+            beans[index++] = bean;
+            if (bean instanceof LazyBeanHolder) {
+                bean = ((LazyBeanHolder) bean).getIfCreated();
+                pendingLazyBeans = pendingLazyBeans || bean == null;
+            }
+            if (bean != null && !(bean instanceof ScopedBeanHolder)) {
+                instanceSet.add(bean);
+            }
+        }
+        this.slotIndex = new ClassValue<Integer>() {
+            @Override
+            protected Integer computeValue(Class<?> type) {
+                return indexMap.getOrDefault(type, ABSENT);
+            }
+        };
+        this.beanSet = Collections.unmodifiableSet(instanceSet);
+        this.hasPendingLazyBeans = pendingLazyBeans;
+    }
+
+    /**
+     * 获取 Bean 类在冻结时所对应的 Bean
+     *
+     * @param clazz Bean 类
+     * @return Bean（可能是 Holder 类对象），没有该 Bean 类时返回 null
+     */
+    Object get(Class<?> clazz) {
+        int index = slotIndex.get(clazz);
+        return index == ABSENT ? null : beans[index];
+    }
+
+    /**
+     * 获取冻结时所有 Bean 实例的只读集合
+     *
+     * @return Bean 实例集合，存在还没有实例化的延迟加载的 Bean 时返回 null（因为它们之后可能会被实例化）
+     */
+    Set<Object> getBeanSet() {
+        return hasPendingLazyBeans ? null : beanSet;
+    }
+}
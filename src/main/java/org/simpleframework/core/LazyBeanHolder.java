@@ -0,0 +1,78 @@
+package org.simpleframework.core;
+
+import net.sf.cglib.proxy.LazyLoader;
+import org.simpleframework.util.ClassUtil;
+
+/**
+ * 该类用于持有一个延迟加载的 Bean（即加了 @Lazy 注解的 Bean）
+ * 即
+ * loadBeans() 时只会为该 Bean 创建一个 LazyBeanHolder 类对象（即 Bean 的定义），并把它存放到 IOC 容器中
+ * 直到第一次调用 get() 方法时才会真正实例化该 Bean
+ *
+ * 注意
+ * 实例化时只会锁住该 LazyBeanHolder 类对象本身（即双重检查锁定），而不是整个 IOC 容器
+ * 这样
+ * 1. 多个线程同时第一次获取该 Bean 时，只有一个线程会实例化该 Bean，并调用后置处理器以及初始化方法（即加了 @PostConstruct 注解的方法）
+ *    其他线程会等待它完成之后直接使用它发布的实例（不会有被丢弃的，已经初始化了但永远不会被销毁的实例）
+ * 2. 实例化完成之后，获取该 Bean 只需要一次 volatile 读，获取其他延迟加载的 Bean 也不会被阻塞
+ */
+class LazyBeanHolder {
+    private final Class<?> beanClass;
+    private final BeanContainer beanContainer;
+    // 实例化（并经过所有后置处理器处理，以及调用了初始化方法）之后的 Bean
+    private volatile Object instance;
+
+    LazyBeanHolder(Class<?> beanClass, BeanContainer beanContainer) {
+        this.beanClass = beanClass;
+        this.beanContainer = beanContainer;
+    }
+
+    /**
+     * 获取该 Bean 的实例（第一次调用时才会实例化该 Bean）
+     *
+     * @return Bean 实例
+     */
+    Object get() {
+        Object bean = instance;
+        if (bean != null) {
+            return bean;
+        }
+        synchronized (this) {
+            // 等待锁的过程中其他线程可能已经完成了实例化
+            bean = instance;
+            if (bean == null) {
+                bean = beanContainer.postProcess(beanClass, ClassUtil.newInstance(beanClass, true));
+                instance = bean;
+            }
+            return bean;
+        }
+    }
+
+    /**
+     * 获取已经实例化好的 Bean 实例
+     *
+     * @return Bean 实例，还没有实例化时返回 null
+     */
+    Object getIfCreated() {
+        return instance;
+    }
+
+    /**
+     * 获取该 Bean 的引用（用于注入到其他 Bean 中）
+     * 即
+     * 如果该 Bean 已经实例化了，就直接返回它的实例
+     * 否则
+     * 返回一个轻量的延迟加载代理类对象，第一次调用它的方法时才会通过 get() 方法实例化该 Bean，之后的调用都会直接转发给该 Bean
+     *
+     * @param referenceType 引用的数据类型（如成员变量的数据类型）（无论是否是接口，创建代理类对象时都不会调用 Bean 类的构造方法）
+     * @return Bean 实例或者延迟加载代理类对象
+     */
+    Object getReference(Class<?> referenceType) {
+        Object bean = instance;
+        if (bean != null) {
+            return bean;
+        }
+        LazyLoader lazyLoader = this::get;
+        return BeanReferenceProxies.create(beanClass, referenceType, LazyLoader.class, lazyLoader);
+    }
+}
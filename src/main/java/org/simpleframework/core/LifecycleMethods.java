@@ -0,0 +1,111 @@
+package org.simpleframework.core;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.cglib.proxy.Enhancer;
+import org.simpleframework.core.annotation.PostConstruct;
+import org.simpleframework.core.annotation.PreDestroy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 该类用于存放一个 Bean 类的生命周期回调方法（即加了 @PostConstruct 和 @PreDestroy 注解的方法）
+ * 即
+ * 每个类只会在第一次使用时通过反射查找一次这些方法，之后都直接从 ClassValue 中获取（即查找结果是缓存在 Class 类对象上的）
+ */
+@Slf4j
+class LifecycleMethods {
+    private static final ClassValue<LifecycleMethods> CACHE = new ClassValue<LifecycleMethods>() {
+        @Override
+        protected LifecycleMethods computeValue(Class<?> type) {
+            return new LifecycleMethods(type);
+        }
+    };
+
+    // 初始化方法（父类中的方法排在前面）
+    private final List<Method> initMethods;
+    // 销毁方法（子类中的方法排在前面）
+    private final List<Method> destroyMethods;
+
+    private LifecycleMethods(Class<?> beanClass) {
+        List<Method> initMethodList = new ArrayList<>();
+        List<Method> destroyMethodList = new ArrayList<>();
+        // 代理类（如 AOP 生成的 CGLib 代理类）上的方法不会保留注解，因此这里从被代理的类开始查找
+        Class<?> type = Enhancer.isEnhanced(beanClass) ? beanClass.getSuperclass() : beanClass;
+        for (; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Method method : ClassMetadata.of(type).getMethods()) {
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    initMethodList.add(0, verify(method));
+                }
+                if (method.isAnnotationPresent(PreDestroy.class)) {
+                    destroyMethodList.add(verify(method));
+                }
+            }
+        }
+        this.initMethods = initMethodList.isEmpty() ? Collections.emptyList() : initMethodList;
+        this.destroyMethods = destroyMethodList.isEmpty() ? Collections.emptyList() : destroyMethodList;
+    }
+
+    /**
+     * 获取 Bean 类的生命周期回调方法
+     *
+     * @param beanClass Bean 类
+     * @return 生命周期回调方法
+     */
+    static LifecycleMethods of(Class<?> beanClass) {
+        return CACHE.get(beanClass);
+    }
+
+    boolean hasInitMethods() {
+        return !initMethods.isEmpty();
+    }
+
+    boolean hasDestroyMethods() {
+        return !destroyMethods.isEmpty();
+    }
+
+    /**
+     * 调用 Bean 实例的所有初始化方法
+     *
+     * @param bean Bean 实例
+     */
+    void invokeInitMethods(Object bean) {
+        invoke(initMethods, bean);
+    }
+
+    /**
+     * 调用 Bean 实例的所有销毁方法
+     *
+     * @param bean Bean 实例
+     */
+    void invokeDestroyMethods(Object bean) {
+        invoke(destroyMethods, bean);
+    }
+
+    private static void invoke(List<Method> methods, Object bean) {
+        for (Method method : methods) {
+            try {
+                method.invoke(bean);
+            } catch (IllegalAccessException e) {
+                log.error("invoke lifecycle method error:", e);
+                throw new RuntimeException(e);
+            } catch (InvocationTargetException e) {
+                log.error("lifecycle method {}.{} failed:", method.getDeclaringClass().getName(), method.getName(), e.getTargetException());
+                throw new RuntimeException(e.getTargetException());
+            }
+        }
+    }
+
+    private static Method verify(Method method) {
+        if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) {
+            throw new RuntimeException("lifecycle method " + method.getDeclaringClass().getName() + "." + method.getName()
+                    + " must be a non-static method without parameters");
+        }
+        method.setAccessible(true);
+        return method;
+    }
+}
@@ -0,0 +1,135 @@
+package org.simpleframework.core;
+
+import net.sf.cglib.proxy.Dispatcher;
+import org.simpleframework.core.annotation.Scope;
+import org.simpleframework.core.scope.BeanPool;
+import org.simpleframework.core.scope.RequestScope;
+import org.simpleframework.core.scope.ScopeType;
+import org.simpleframework.util.ClassUtil;
+
+/**
+ * 该类用于持有一个非单例的 Bean（即 @Scope 注解的值为 PROTOTYPE，REQUEST 或者 THREAD 的 Bean）
+ * 即
+ * IOC 容器中存放的不是该 Bean 的实例，而是该类对象（即 Bean 的定义）
+ * 每次调用 get() 方法时，都会根据作用域返回当前所对应的实例（如 当前请求的实例，当前线程的实例，或者一个新的实例）
+ *
+ * 注意
+ * 注入到其他 Bean 中的是一个作用域代理类对象（即 getReference() 方法的返回值）
+ * 它的每次方法调用都会先找到当前所对应的实例，然后再转发给该实例
+ * 其中
+ * PROTOTYPE 作用域的代理类对象在每个请求（不在请求中时为每个线程）中绑定一个自己的实例，而不是每次方法调用都获取一个新的实例
+ * 这样
+ * 通过同一个引用的多次方法调用操作的总是同一个实例，池化的实例也只会在请求结束时才放回对象池，不会在请求之外被耗尽
+ */
+class ScopedBeanHolder {
+    private final Class<?> beanClass;
+    private final BeanContainer beanContainer;
+    private final ScopeType scopeType;
+    // 对象池（没有开启池化或者作用域为 THREAD 时为 null）
+    private final BeanPool beanPool;
+    // THREAD 作用域的 Bean 在每个线程中所对应的实例
+    private final ThreadLocal<Object> threadInstance;
+
+    ScopedBeanHolder(Class<?> beanClass, BeanContainer beanContainer) {
+        Scope scope = ClassMetadata.of(beanClass).getAnnotation(Scope.class);
+        this.beanClass = beanClass;
+        this.beanContainer = beanContainer;
+        this.scopeType = scope.value();
+        this.beanPool = scope.pooled() && scopeType != ScopeType.THREAD ? new BeanPool(scope.poolSize(), this::create) : null;
+        this.threadInstance = scopeType == ScopeType.THREAD ? ThreadLocal.withInitial(this::create) : null;
+    }
+
+    /**
+     * 判断 Bean 类是否是非单例的 Bean 类
+     *
+     * @param beanClass Bean 类
+     * @return 是否是非单例的 Bean 类
+     */
+    static boolean isScoped(Class<?> beanClass) {
+        Scope scope = ClassMetadata.of(beanClass).getAnnotation(Scope.class);
+        return scope != null && scope.value() != ScopeType.SINGLETON;
+    }
+
+    /**
+     * 根据作用域获取当前所对应的实例
+     *
+     * @return Bean 实例
+     */
+    Object get() {
+        switch (scopeType) {
+            case THREAD:
+                return threadInstance.get();
+            case REQUEST:
+                RequestScope requestScope = RequestScope.current();
+                if (requestScope == null) {
+                    throw new RuntimeException("no active request for request scoped bean " + beanClass.getName());
+                }
+                return requestScope.get(beanClass, () -> acquire(requestScope));
+            default:
+                // PROTOTYPE 作用域的 Bean 如果是在请求中获取的，那么请求结束时会自动放回对象池，否则需要调用者自己放回对象池
+                return acquire(RequestScope.current());
+        }
+    }
+
+    /**
+     * 把用完的实例放回对象池（没有开启池化时什么都不做）
+     *
+     * @param bean Bean 实例
+     */
+    void release(Object bean) {
+        if (beanPool != null) {
+            beanPool.release(bean);
+        }
+    }
+
+    /**
+     * 获取该 Bean 的作用域代理类对象（用于注入到其他 Bean 中）
+     *
+     * @param referenceType 引用的数据类型（如成员变量的数据类型）（无论是否是接口，创建代理类对象时都不会调用 Bean 类的构造方法）
+     * @return 作用域代理类对象
+     */
+    Object getReference(Class<?> referenceType) {
+        Dispatcher dispatcher = scopeType == ScopeType.PROTOTYPE ? prototypeDispatcher() : this::get;
+        return BeanReferenceProxies.create(beanClass, referenceType, Dispatcher.class, dispatcher);
+    }
+
+    BeanPool getBeanPool() {
+        return beanPool;
+    }
+
+    /**
+     * 创建 PROTOTYPE 作用域代理类对象所使用的 Dispatcher
+     * 即
+     * 在请求中，该代理类对象在每个请求中绑定一个实例（池化的实例在请求结束时放回对象池）
+     * 不在请求中时，该代理类对象在每个线程中绑定一个新创建的实例（该实例不会从对象池中获取，因为没有人会把它放回对象池）
+     *
+     * @return Dispatcher
+     */
+    private Dispatcher prototypeDispatcher() {
+        // 该代理类对象在请求作用域中所对应的 Key（每个代理类对象都有自己的实例）
+        Object referenceKey = new Object();
+        ThreadLocal<Object> referenceInstance = ThreadLocal.withInitial(this::create);
+        return () -> {
+            RequestScope requestScope = RequestScope.current();
+            if (requestScope == null) {
+                return referenceInstance.get();
+            }
+            return requestScope.get(referenceKey, () -> acquire(requestScope));
+        };
+    }
+
+    private Object acquire(RequestScope requestScope) {
+        if (beanPool == null) {
+            return create();
+        }
+        Object bean = beanPool.acquire();
+        if (requestScope != null) {
+            requestScope.onCompletion(() -> beanPool.release(bean));
+        }
+        return bean;
+    }
+
+    private Object create() {
+        return beanContainer.postProcess(beanClass, ClassUtil.newInstance(beanClass, true));
+    }
+}
@@ -8,4 +8,6 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Component {
+    // Bean 的名称（为空时使用类的简单类名），可以通过 @Autowired 注解的值或者 BeanContainer 的 getBean(String) 方法按名称获取该 Bean
+    String value() default "";
 }
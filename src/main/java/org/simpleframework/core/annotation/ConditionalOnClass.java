@@ -0,0 +1,21 @@
+package org.simpleframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @ConditionalOnClass 注解，该注解的功能和 Spring Boot 中的 @ConditionalOnClass 注解类似
+ * 即
+ * 只有 classpath 下存在这些类时，加了该注解的 Bean 类才会被放入到 IOC 容器中
+ *
+ * 注意
+ * 这里使用全类名而不是 Class 类对象，这样判断时只需要查找对应的 .class 文件，不需要加载这些类（不存在时也不会抛出 NoClassDefFoundError）
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalOnClass {
+    // 必须存在的类的全类名
+    String[] value();
+}
@@ -0,0 +1,19 @@
+package org.simpleframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @ConditionalOnMissingBean 注解，该注解的功能和 Spring Boot 中的 @ConditionalOnMissingBean 注解类似
+ * 即
+ * 只有 IOC 容器中没有其他 Bean 类是这些类型（即 这些类本身，或者它们的实现类，子类）时，加了该注解的 Bean 类才会被放入到 IOC 容器中
+ *（适用于提供默认实现，如 用户自己实现了 HeadLineService 接口时，框架提供的默认实现就不再加载）
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalOnMissingBean {
+    // 类型
+    Class<?>[] value();
+}
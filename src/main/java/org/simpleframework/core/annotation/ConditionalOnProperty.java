@@ -0,0 +1,26 @@
+package org.simpleframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @ConditionalOnProperty 注解，该注解的功能和 Spring Boot 中的 @ConditionalOnProperty 注解类似
+ * 即
+ * 只有配置属性（见 Environment）满足条件时，加了该注解的 Bean 类才会被放入到 IOC 容器中
+ * 如
+ * @ConditionalOnProperty(name = "feature.admin.enabled", havingValue = "true") 表示只有 feature.admin.enabled=true 时才会加载该 Bean
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalOnProperty {
+    // 配置属性名
+    String name();
+
+    // 配置属性的期望值（为空时表示只要该属性存在并且值不为 false 即可）
+    String havingValue() default "";
+
+    // 没有该配置属性时是否满足条件
+    boolean matchIfMissing() default false;
+}
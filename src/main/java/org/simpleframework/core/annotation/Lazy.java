@@ -0,0 +1,16 @@
+package org.simpleframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @Lazy 注解，该注解的功能和 Spring 中的 @Lazy 注解一样
+ * 加了该注解的 Bean 类在 loadBeans() 时不会被实例化，而是在第一次调用 getBean() 方法获取它时才会被实例化
+ *（适用于那些很少被用到的 Bean，如只服务于后台管理接口的 Controller 和 Service）
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Lazy {
+}
@@ -0,0 +1,19 @@
+package org.simpleframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @PostConstruct 注解，该注解的功能和 JSR-250 中的 @PostConstruct 注解一样
+ * 即
+ * Bean 完成依赖注入之后（即 DispatcherServlet 调用 BeanContainer 的 initializeBeans() 方法时）会调用加了该注解的方法
+ *（适用于需要在处理第一个请求之前完成的预热工作，如 加载缓存，创建连接池等）
+ * 注意
+ * 加了该注解的方法不能有参数，互相独立的 Bean 的初始化方法会被并行地调用
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PostConstruct {
+}
@@ -0,0 +1,19 @@
+package org.simpleframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @PreDestroy 注解，该注解的功能和 JSR-250 中的 @PreDestroy 注解一样
+ * 即
+ * 应用关闭时（即 DispatcherServlet 的 destroy() 方法被调用时）会按照与依赖关系相反的顺序调用加了该注解的方法
+ *（适用于释放连接池，缓冲区等资源）
+ * 注意
+ * 加了该注解的方法不能有参数，每个方法的执行时间都有超时限制，超时之后会直接继续销毁其他 Bean
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PreDestroy {
+}
@@ -0,0 +1,32 @@
+package org.simpleframework.core.annotation;
+
+import org.simpleframework.core.scope.ScopeType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 定义 @Scope 注解，该注解的功能和 Spring 中的 @Scope 注解类似
+ * 即
+ * 用于指定 Bean 的作用域（默认为单例，即整个 IOC 容器中只有一个实例）
+ * 如
+ * PROTOTYPE 表示每次获取都创建一个新的实例，REQUEST 表示每个 HTTP 请求一个实例，THREAD 表示每个线程一个实例
+ *
+ * 注意
+ * pooled 为 true 时，PROTOTYPE 和 REQUEST 作用域的实例在用完之后（即请求结束时，或者调用 BeanContainer 的 releaseBean() 方法时）
+ * 会先调用它的 reset() 方法（如果实现了 Resettable 接口），然后放回到对象池中，以便之后复用，避免高并发下频繁地创建对象
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Scope {
+    // 作用域
+    ScopeType value() default ScopeType.SINGLETON;
+
+    // 是否对该 Bean 的实例进行池化（只对 PROTOTYPE 和 REQUEST 作用域有效）
+    boolean pooled() default false;
+
+    // 对象池中每个 CPU 核所对应的空闲列表的最大长度
+    int poolSize() default 16;
+}
@@ -0,0 +1,159 @@
+package org.simpleframework.core.env;
+
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.util.ClassUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 该类就是配置属性源
+ * 即
+ * 配置属性来自 classpath 下的 application.properties 文件，以及 JVM 系统属性（即 -D 参数，同名时系统属性优先）
+ *
+ * 注意
+ * 配置属性是一个不可变的快照，读取时不需要加任何锁
+ * 重新加载配置文件时（见 reload() 方法）会创建一个新的快照，然后整体替换掉旧的快照，再通知监听者（如 ConfigurationBinder）
+ */
+@Slf4j
+public class Environment {
+    // 配置文件的文件名
+    public static final String PROPERTIES_FILE_NAME = "application.properties";
+
+    // 配置属性的快照
+    private volatile Map<String, String> properties;
+    // 配置属性发生变化后需要通知的监听者
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 获取配置属性源实例
+     *
+     * @return Environment
+     */
+    public static Environment getInstance() {
+        return EnvironmentHolder.HOLDER.instance;
+    }
+
+    private enum EnvironmentHolder {
+        HOLDER;
+        private final Environment instance;
+
+        EnvironmentHolder() {
+            instance = new Environment();
+        }
+    }
+
+    private Environment() {
+        this.properties = loadProperties();
+    }
+
+    /**
+     * 获取配置属性
+     *
+     * @param name 配置属性名
+     * @return 配置属性值，没有该配置属性时返回 null
+     */
+    public String getProperty(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * 获取配置属性
+     *
+     * @param name         配置属性名
+     * @param defaultValue 没有该配置属性时的默认值
+     * @return 配置属性值
+     */
+    public String getProperty(String name, String defaultValue) {
+        return properties.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * 获取所有配置属性的只读快照
+     *
+     * @return 配置属性
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * 添加配置属性发生变化后需要通知的监听者
+     *
+     * @param listener 监听者
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * 移除配置属性发生变化后需要通知的监听者
+     *
+     * @param listener 监听者
+     */
+    public void removeReloadListener(Runnable listener) {
+        reloadListeners.remove(listener);
+    }
+
+    /**
+     * 重新加载配置属性，配置属性发生了变化时整体替换掉旧的快照，然后通知监听者
+     * 注意
+     * 条件注解（如 @ConditionalOnProperty）只在启动时判断一次，重新加载配置属性并不会改变 IOC 容器中有哪些 Bean
+     *
+     * @return 配置属性是否发生了变化
+     */
+    public synchronized boolean reload() {
+        Map<String, String> propertyMap = loadProperties();
+        if (propertyMap.equals(properties)) {
+            return false;
+        }
+        this.properties = propertyMap;
+        log.info("configuration properties reloaded");
+        for (Runnable listener : reloadListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("notify configuration reload listener error:", e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 计算所有配置属性的指纹（配置属性决定了哪些 Bean 会被加载，因此容器快照也需要在配置属性发生变化时失效）
+     *
+     * @return 指纹
+     */
+    public String fingerprint() {
+        return Integer.toHexString(new TreeMap<>(properties).hashCode());
+    }
+
+    private static Map<String, String> loadProperties() {
+        Map<String, String> propertyMap = new HashMap<>();
+        try (InputStream inputStream = ClassUtil.getClassLoader().getResourceAsStream(PROPERTIES_FILE_NAME)) {
+            if (inputStream != null) {
+                Properties fileProperties = new Properties();
+                try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                    fileProperties.load(reader);
+                }
+                fileProperties.stringPropertyNames().forEach(name -> propertyMap.put(name, fileProperties.getProperty(name).trim()));
+            }
+        } catch (IOException e) {
+            log.error("load {} error:", PROPERTIES_FILE_NAME, e);
+            throw new RuntimeException(e);
+        }
+        Properties systemProperties = System.getProperties();
+        systemProperties.stringPropertyNames().forEach(name -> propertyMap.put(name, systemProperties.getProperty(name)));
+        return Collections.unmodifiableMap(propertyMap);
+    }
+}
@@ -0,0 +1,114 @@
+package org.simpleframework.core.env;
+
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.util.ClassUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 该类用于监听配置文件（即 classpath 下的 application.properties 文件）
+ * 即
+ * 通过 WatchService 监听配置文件所在的文件夹，配置文件发生变化时调用 Environment 的 reload() 方法重新加载配置属性
+ * 这样
+ * 不需要重启就能调整配置属性（该功能默认开启，可以通过 -Dsimpleframework.config.watch=false 关闭）
+ *
+ * 注意
+ * 配置文件被打包在 jar 包中时无法监听
+ */
+@Slf4j
+public class PropertiesWatcher implements Runnable {
+    // 是否监听配置文件（默认监听）
+    public static final String WATCH_PROPERTY = "simpleframework.config.watch";
+    // 收到文件变化事件后，等待这么长的时间内没有新的事件了才重新加载（因为编辑器保存文件时往往会连续产生多个事件）
+    private static final long QUIET_PERIOD_MILLIS = 300;
+
+    private final Environment environment;
+    private final WatchService watchService;
+    private final Thread watchThread;
+    private volatile boolean running = true;
+
+    private PropertiesWatcher(Environment environment, Path directory) throws IOException {
+        this.environment = environment;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watchThread = new Thread(this, "simpleframework-config-watch");
+        this.watchThread.setDaemon(true);
+        this.watchThread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * 开始监听配置文件
+     *
+     * @param environment 配置属性源
+     * @return PropertiesWatcher，没有开启监听，没有配置文件，或者配置文件不在文件夹中（如被打包在 jar 包中）时返回 null
+     */
+    public static PropertiesWatcher start(Environment environment) {
+        if (!Boolean.parseBoolean(System.getProperty(WATCH_PROPERTY, "true"))) {
+            return null;
+        }
+        URL url = ClassUtil.getClassLoader().getResource(Environment.PROPERTIES_FILE_NAME);
+        if (url == null || !url.getProtocol().equalsIgnoreCase(ClassUtil.FILE_PROTOCOL)) {
+            return null;
+        }
+        try {
+            PropertiesWatcher watcher = new PropertiesWatcher(environment, new File(url.toURI()).getParentFile().toPath());
+            watcher.watchThread.start();
+            log.info("watching configuration file {}", url);
+            return watcher;
+        } catch (IOException | URISyntaxException e) {
+            log.error("watch configuration file error:", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 停止监听
+     */
+    public void stop() {
+        running = false;
+        watchThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("close watch service error: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            boolean changed = false;
+            try {
+                // 阻塞等待第一个文件变化事件，然后把一段时间内连续发生的事件合并成一次重新加载
+                WatchKey watchKey = watchService.take();
+                while (watchKey != null) {
+                    for (WatchEvent<?> event : watchKey.pollEvents()) {
+                        changed = changed || Environment.PROPERTIES_FILE_NAME.equals(String.valueOf(event.context()));
+                    }
+                    watchKey.reset();
+                    watchKey = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            if (changed) {
+                try {
+                    environment.reload();
+                } catch (RuntimeException e) {
+                    log.error("reload configuration failed, keep using the previous one:", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.simpleframework.core.index;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.util.ClassUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 该类就是 BeanIndexProcessor 在编译期生成的 Bean 索引文件（即 META-INF/simpleframework.beans）在运行时的表示
+ *
+ * 索引文件中每一行都是一条记录，记录中的各列之间用制表符分隔，第一列为记录的类型
+ * bean      全类名  注解的全类名
+ *
+ * 注意
+ * classpath 下的每个根（即每个 jar 包或者 classes 文件夹）都可能有自己的索引文件，这里会把它们合并起来
+ * 但是
+ * 索引只代表它所在的根中的 Bean，因此只有当一个包所在的所有根都有索引文件时，才能只从索引中获取该包下的 Bean（见 isCovered() 方法）
+ * 否则（如 只有某个依赖的 jar 包带了索引文件）仍然需要扫描该包
+ */
+@Slf4j
+@Getter
+public class BeanIndex {
+    public static final String INDEX_LOCATION = BeanIndexFormat.INDEX_LOCATION;
+    // 旧版本的索引文件中还会有 autowired 和 mapping 记录，它们从来没有被使用过，读取时直接忽略
+    private static final Set<String> LEGACY_RECORDS = new HashSet<>(Arrays.asList("autowired", "mapping"));
+
+    // 索引中所有 Bean 类的全类名
+    private final List<String> beanClassNames = new ArrayList<>();
+    // 所有带有索引文件的根（即索引文件的 URL 去掉 META-INF/simpleframework.beans 之后的部分）
+    private final Set<String> indexedRoots = new HashSet<>();
+
+    /**
+     * 读取 classpath 下所有的 Bean 索引文件（每个 jar 包都可能有一个），并把它们合并起来
+     *
+     * @param classLoader 类加载器
+     * @return Bean 索引，如果 classpath 下不存在索引文件就返回 null（此时应该退回到扫描 classpath 的方式）
+     */
+    public static BeanIndex load(ClassLoader classLoader) {
+        Enumeration<URL> urls;
+        try {
+            urls = classLoader.getResources(INDEX_LOCATION);
+        } catch (IOException e) {
+            log.warn("unable to look up bean index: {}", e.getMessage());
+            return null;
+        }
+        if (!urls.hasMoreElements()) {
+            return null;
+        }
+
+        BeanIndex beanIndex = new BeanIndex();
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            String urlString = url.toString();
+            beanIndex.indexedRoots.add(urlString.substring(0, urlString.length() - INDEX_LOCATION.length()));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    beanIndex.addLine(line);
+                }
+            } catch (IOException e) {
+                log.error("read bean index error:", e);
+                throw new RuntimeException(e);
+            }
+        }
+        return beanIndex;
+    }
+
+    /**
+     * 判断指定的包是否完全被索引覆盖了
+     * 即
+     * classpath 下包含该包的每一个根（jar 包或者 classes 文件夹）都带有索引文件
+     * 这样
+     * 该包下的所有 Bean 就都可以直接从索引中获取，而不需要再扫描该包了
+     *
+     * @param packageName 包名
+     * @param classLoader 类加载器
+     * @return 是否被索引完全覆盖（classpath 下找不到该包时返回 false）
+     */
+    public boolean isCovered(String packageName, ClassLoader classLoader) {
+        String packagePath = packageName.replace(".", "/");
+        Enumeration<URL> urls;
+        try {
+            urls = classLoader.getResources(packagePath);
+        } catch (IOException e) {
+            log.warn("unable to look up package {}: {}", packageName, e.getMessage());
+            return false;
+        }
+        boolean found = false;
+        while (urls.hasMoreElements()) {
+            String urlString = urls.nextElement().toString();
+            if (urlString.endsWith("/")) {
+                urlString = urlString.substring(0, urlString.length() - 1);
+            }
+            if (!urlString.endsWith(packagePath)
+                    || !indexedRoots.contains(urlString.substring(0, urlString.length() - packagePath.length()))) {
+                return false;
+            }
+            found = true;
+        }
+        return found;
+    }
+
+    /**
+     * 获取索引中指定包（包括子包）下所有 Bean 类的 Class 类对象
+     *
+     * @param packageName 包名
+     * @return Class 集合
+     */
+    public Set<Class<?>> getBeanClasses(String packageName) {
+        Set<Class<?>> classSet = new HashSet<>();
+        String prefix = packageName + ".";
+        for (String className : beanClassNames) {
+            if (className.startsWith(prefix)) {
+                classSet.add(ClassUtil.loadClass(className));
+            }
+        }
+        return classSet;
+    }
+
+    private void addLine(String line) {
+        String className = BeanIndexFormat.parseBeanClassName(line);
+        if (className != null) {
+            beanClassNames.add(className);
+        } else if (!line.isEmpty() && !line.startsWith("#") && !LEGACY_RECORDS.contains(line.split(BeanIndexFormat.SEPARATOR, 2)[0])) {
+            log.warn("unknown bean index record: {}", line);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.simpleframework.core.index;
+
+/**
+ * 该类定义了 Bean 索引文件（即 META-INF/simpleframework.beans）的格式，BeanIndexProcessor 写入索引文件和 BeanIndex 读取索引文件时都使用它
+ *
+ * 注意
+ * 该类会和 BeanIndexProcessor 一起在编译期被单独编译出来（见 pom.xml 中的 compile-bean-index-processor），
+ * 因此它不能依赖框架中的其他类，也不能使用 lombok
+ */
+final class BeanIndexFormat {
+    static final String INDEX_LOCATION = "META-INF/simpleframework.beans";
+    static final String BEAN = "bean";
+    static final String SEPARATOR = "\t";
+
+    private BeanIndexFormat() {
+    }
+
+    /**
+     * 解析索引文件中的一行
+     *
+     * @param line 索引文件中的一行
+     * @return 如果是 bean 记录就返回其中的全类名，否则返回 null
+     */
+    static String parseBeanClassName(String line) {
+        String[] columns = line.split(SEPARATOR, -1);
+        return columns.length >= 2 && BEAN.equals(columns[0]) ? columns[1] : null;
+    }
+
+    static String join(String... columns) {
+        return String.join(SEPARATOR, columns);
+    }
+}
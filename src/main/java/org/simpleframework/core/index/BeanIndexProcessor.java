@@ -0,0 +1,179 @@
+package org.simpleframework.core.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 该类是一个注解处理器，它会在编译期把所有加了 @Component，@Controller，@Service，@Repository，@Aspect 注解的类
+ * 写入到 META-INF/simpleframework.beans 这个索引文件中
+ * 这样
+ * BeanContainer 在启动时只需要顺序读取一遍该索引文件就能获取到所有的 Bean，而不需要再去扫描 classpath
+ *
+ * 注意
+ * 增量编译时只有一部分类会被重新编译，因此写入索引文件时会合并已有的索引文件中那些没有被重新编译的类的记录
+ *（被删除的类的记录会被去掉，重新编译后不再是 Bean 的类的记录也会被去掉）
+ *
+ * 该注解处理器需要在编译使用本框架的项目时通过 -processor 参数（或 maven-compiler-plugin 的 annotationProcessors 配置）显式指定
+ *（显式指定注解处理器后，javac 就不会再自动发现其他注解处理器了，因此此时还需要同时指定 lombok.launch.AnnotationProcessorHider$AnnotationProcessor）
+ * 本项目自己的配置见 pom.xml 中的 maven-compiler-plugin（该类会先被单独编译出来，然后再用于编译整个项目）
+ */
+@SupportedAnnotationTypes({
+        BeanIndexProcessor.COMPONENT,
+        BeanIndexProcessor.CONTROLLER,
+        BeanIndexProcessor.SERVICE,
+        BeanIndexProcessor.REPOSITORY,
+        BeanIndexProcessor.ASPECT
+})
+public class BeanIndexProcessor extends AbstractProcessor {
+    // 这里只能使用注解的全类名，而不能直接引用这些注解的 Class 类对象（因为编译期这些注解可能还没有被编译出来）
+    static final String COMPONENT = "org.simpleframework.core.annotation.Component";
+    static final String CONTROLLER = "org.simpleframework.core.annotation.Controller";
+    static final String SERVICE = "org.simpleframework.core.annotation.Service";
+    static final String REPOSITORY = "org.simpleframework.core.annotation.Repository";
+    static final String ASPECT = "org.simpleframework.aop.annotation.Aspect";
+
+    // 该集合中存放的就是要写入到索引文件中的每一行（由于注解处理器会执行多轮，因此这里要把每一轮的结果都收集起来，在最后一轮再统一写入）
+    private final Set<String> indexLines = new LinkedHashSet<>();
+    // 本次编译的所有类（包括内部类）的二进制名，已有的索引文件中这些类的记录都以本次编译的结果为准
+    private final Set<String> compiledClassNames = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // 最后一轮时把收集到的信息写入到索引文件中
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element rootElement : roundEnv.getRootElements()) {
+            collectCompiledClassNames(rootElement);
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    recordBean((TypeElement) element, annotation.getQualifiedName().toString());
+                }
+            }
+        }
+
+        // 返回 false 表示不独占这些注解，以便其他注解处理器（如 lombok）也能处理它们
+        return false;
+    }
+
+    /**
+     * 记录一个 Bean 类
+     *
+     * @param typeElement    Bean 类
+     * @param annotationName 该类上加的注解的全类名
+     */
+    private void recordBean(TypeElement typeElement, String annotationName) {
+        indexLines.add(BeanIndexFormat.join(BeanIndexFormat.BEAN, binaryName(typeElement), annotationName));
+    }
+
+    /**
+     * 记录本次编译的类以及它的所有内部类
+     */
+    private void collectCompiledClassNames(Element element) {
+        if (element instanceof TypeElement) {
+            compiledClassNames.add(binaryName((TypeElement) element));
+            for (Element enclosed : element.getEnclosedElements()) {
+                collectCompiledClassNames(enclosed);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        List<String> retainedLines = readExistingIndex();
+        // 既没有 Bean，也没有需要更新的已有索引文件时就不生成索引文件了
+        if (retainedLines == null && indexLines.isEmpty()) {
+            return;
+        }
+        Set<String> lines = new LinkedHashSet<>();
+        if (retainedLines != null) {
+            lines.addAll(retainedLines);
+        }
+        lines.addAll(indexLines);
+        try {
+            FileObject resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", BeanIndexFormat.INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "unable to write bean index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取输出目录中已有的索引文件（即上一次编译生成的），只保留那些本次没有被重新编译，并且仍然存在的类的记录
+     *
+     * @return 需要保留的记录，没有已有的索引文件时返回 null
+     */
+    private List<String> readExistingIndex() {
+        List<String> retainedLines = new ArrayList<>();
+        FileObject existing;
+        try {
+            existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", BeanIndexFormat.INDEX_LOCATION);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String className = BeanIndexFormat.parseBeanClassName(line);
+                if (className != null && !compiledClassNames.contains(className) && classExists(className)) {
+                    retainedLines.add(line);
+                }
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // 第一次编译时还没有索引文件
+            return null;
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "unable to read existing bean index: " + e.getMessage());
+        }
+        return retainedLines;
+    }
+
+    /**
+     * 判断上一次编译的类是否仍然存在（被删除的类的记录不应该再保留在索引中）
+     */
+    private boolean classExists(String binaryName) {
+        return processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.')) != null;
+    }
+
+    /**
+     * 获取类的二进制名（即内部类使用 $ 分隔的全类名，这样 Class.forName() 才能加载它）
+     */
+    private String binaryName(TypeElement typeElement) {
+        return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+}
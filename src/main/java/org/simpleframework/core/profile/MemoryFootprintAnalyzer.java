@@ -0,0 +1,119 @@
+package org.simpleframework.core.profile;
+
+import org.simpleframework.core.BeanContainer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 该类用于分析 Bean 容器以及容器中的 Bean 所占用的堆内存
+ * 即
+ * 对容器中的每个 Bean，从该 Bean 开始遍历它可达的对象图（遇到其他 Bean 时停止），估算出该 Bean 所占用的内存
+ * 同时
+ * 把 AOP 代理以及注入的延迟加载代理的开销，Bean 容器本身（如 各种索引）的开销，以及通过 addSubsystem() 方法添加的子系统（如 路由表）的开销单独统计出来
+ *
+ * 注意
+ * 1. 估算的方式见 ObjectGraphSizer 类，结果只是一个近似值，主要用于找出占用内存最多的 Bean
+ * 2. 被多个 Bean 共同引用的（不是 Bean 的）对象会被计入每一个引用它的 Bean
+ * 3. 非单例的 Bean 统计的是它的定义（即 ScopedBeanHolder 类对象）以及对象池中的实例，ThreadLocal 中的实例无法被统计
+ */
+public class MemoryFootprintAnalyzer {
+    // 是否在启动完成后进行内存占用分析（由于需要遍历所有 Bean 的对象图，默认不开启）
+    public static final String REPORT_ENABLED_PROPERTY = "simpleframework.memory.report";
+    // 内存占用分析报告的文件名
+    public static final String REPORT_FILE_NAME = "memory-footprint.json";
+    // 估算每个 Bean（或子系统）时最多访问的对象数
+    public static final int DEFAULT_MAX_OBJECTS = 100_000;
+
+    private final BeanContainer beanContainer;
+    private final int maxObjects;
+    // 需要单独统计的子系统（Key 为子系统的名称，Value 为子系统的根对象）
+    private final Map<String, Object> subsystemMap = new LinkedHashMap<>();
+
+    public MemoryFootprintAnalyzer(BeanContainer beanContainer) {
+        this(beanContainer, DEFAULT_MAX_OBJECTS);
+    }
+
+    public MemoryFootprintAnalyzer(BeanContainer beanContainer, int maxObjects) {
+        this.beanContainer = beanContainer;
+        this.maxObjects = maxObjects;
+    }
+
+    /**
+     * 是否开启了启动完成后的内存占用分析
+     *
+     * @return 是否开启
+     */
+    public static boolean isReportEnabled() {
+        return Boolean.getBoolean(REPORT_ENABLED_PROPERTY);
+    }
+
+    /**
+     * 添加一个需要单独统计的子系统（如 ControllerRequestProcessor 的路由表）
+     *
+     * @param name 子系统的名称
+     * @param root 子系统的根对象
+     * @return 当前 MemoryFootprintAnalyzer 类对象
+     */
+    public MemoryFootprintAnalyzer addSubsystem(String name, Object root) {
+        subsystemMap.put(name, root);
+        return this;
+    }
+
+    /**
+     * 进行内存占用分析
+     *
+     * @return 分析结果
+     */
+    public MemoryFootprintReport analyze() {
+        Map<Class<?>, Object> beanEntryMap = beanContainer.getBeanEntries();
+        // 所有 Bean（以及延迟加载的 Bean 和非单例的 Bean 的定义）都是边界对象
+        List<Object> boundaries = new ArrayList<>(beanEntryMap.values());
+        boundaries.addAll(beanContainer.getBeans());
+        ObjectGraphSizer sizer = new ObjectGraphSizer(boundaries, maxObjects);
+
+        List<MemoryFootprintReport.BeanFootprint> beanList = new ArrayList<>();
+        long beanBytes = 0;
+        long proxyBytes = 0;
+        int beanObjectCount = 0;
+        int proxyObjectCount = 0;
+        boolean beanTruncated = false;
+        for (Map.Entry<Class<?>, Object> entry : beanEntryMap.entrySet()) {
+            Class<?> beanClass = entry.getKey();
+            ObjectGraphSizer.Measurement measurement = sizer.measure(entry.getValue());
+            beanList.add(new MemoryFootprintReport.BeanFootprint(BeanContainer.getBeanName(beanClass), beanClass.getName(),
+                    kindOf(beanClass), measurement.bytes, measurement.proxyBytes, measurement.objectCount, measurement.truncated));
+            beanBytes += measurement.bytes - measurement.proxyBytes;
+            proxyBytes += measurement.proxyBytes;
+            beanObjectCount += measurement.objectCount - measurement.proxyObjectCount;
+            proxyObjectCount += measurement.proxyObjectCount;
+            beanTruncated |= measurement.truncated;
+        }
+        beanList.sort(Comparator.comparingLong(MemoryFootprintReport.BeanFootprint::getRetainedBytes).reversed());
+
+        List<MemoryFootprintReport.SubsystemFootprint> subsystemList = new ArrayList<>();
+        subsystemList.add(new MemoryFootprintReport.SubsystemFootprint("beans", beanBytes, beanObjectCount, beanTruncated));
+        subsystemList.add(new MemoryFootprintReport.SubsystemFootprint("proxies", proxyBytes, proxyObjectCount, beanTruncated));
+        long totalBytes = beanBytes + proxyBytes;
+        Map<String, Object> rootMap = new LinkedHashMap<>();
+        rootMap.put("container", beanContainer);
+        rootMap.putAll(subsystemMap);
+        for (Map.Entry<String, Object> entry : rootMap.entrySet()) {
+            ObjectGraphSizer.Measurement measurement = sizer.measure(entry.getValue());
+            subsystemList.add(new MemoryFootprintReport.SubsystemFootprint(entry.getKey(), measurement.bytes,
+                    measurement.objectCount, measurement.truncated));
+            totalBytes += measurement.bytes;
+        }
+        return new MemoryFootprintReport(totalBytes, beanList, subsystemList);
+    }
+
+    private String kindOf(Class<?> beanClass) {
+        if (beanContainer.isLazy(beanClass)) {
+            return "lazy";
+        }
+        return beanContainer.isScoped(beanClass) ? "scoped" : "singleton";
+    }
+}
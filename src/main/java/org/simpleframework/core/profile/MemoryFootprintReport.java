@@ -0,0 +1,98 @@
+package org.simpleframework.core.profile;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 该类是 Bean 容器内存占用分析的结果（见 MemoryFootprintAnalyzer 类）
+ * 即
+ * 每个 Bean 估算的内存占用（按从大到小排序），以及每个子系统（如 Bean 本身，代理，容器本身，路由表）估算的内存占用
+ */
+@Slf4j
+@Getter
+@AllArgsConstructor
+public class MemoryFootprintReport {
+    // 日志摘要中最多打印的 Bean 的个数
+    private static final int SUMMARY_LIMIT = 10;
+
+    // 所有 Bean 以及所有子系统估算的内存占用之和（字节）
+    private final long totalBytes;
+    // 每个 Bean 的内存占用（按从大到小排序）
+    private final List<BeanFootprint> beans;
+    // 每个子系统的内存占用
+    private final List<SubsystemFootprint> subsystems;
+
+    /**
+     * 在日志中打印摘要（即每个子系统的内存占用，以及内存占用最大的几个 Bean）
+     */
+    public void logSummary() {
+        log.info("memory footprint: {} KB in {} beans", totalBytes / 1024, beans.size());
+        for (SubsystemFootprint subsystem : subsystems) {
+            log.info("  [subsystem] {}: {} KB, {} objects{}", subsystem.getName(), subsystem.getRetainedBytes() / 1024,
+                    subsystem.getObjectCount(), subsystem.isTruncated() ? " (truncated)" : "");
+        }
+        for (BeanFootprint bean : beans.subList(0, Math.min(SUMMARY_LIMIT, beans.size()))) {
+            log.info("  [bean] {} ({}): {} KB, proxy {} KB, {} objects{}", bean.getBeanClass(), bean.getKind(),
+                    bean.getRetainedBytes() / 1024, bean.getProxyBytes() / 1024, bean.getObjectCount(),
+                    bean.isTruncated() ? " (truncated)" : "");
+        }
+    }
+
+    /**
+     * 把分析结果以 JSON 格式写入到指定的文件中
+     *
+     * @param reportFile 报告文件
+     */
+    public void writeTo(File reportFile) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try {
+            Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+            try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(this, writer);
+            }
+            log.info("memory footprint written to {}", reportFile.getAbsolutePath());
+        } catch (IOException e) {
+            log.warn("unable to write memory footprint {}: {}", reportFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 一个 Bean 的内存占用
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BeanFootprint {
+        private final String beanName;
+        private final String beanClass;
+        // Bean 的类型（即 singleton，lazy，scoped）
+        private final String kind;
+        // 从该 Bean 开始可达的（不包括其他 Bean 的）所有对象的大小之和（字节）
+        private final long retainedBytes;
+        // 其中属于代理（如 AOP 代理，注入的延迟加载代理）的开销（字节）
+        private final long proxyBytes;
+        private final int objectCount;
+        private final boolean truncated;
+    }
+
+    /**
+     * 一个子系统的内存占用
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SubsystemFootprint {
+        private final String name;
+        private final long retainedBytes;
+        private final int objectCount;
+        private final boolean truncated;
+    }
+}
@@ -0,0 +1,293 @@
+package org.simpleframework.core.profile;
+
+import net.sf.cglib.proxy.Enhancer;
+import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.ClassMetadata;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 该类用于估算一个对象图所占用的堆内存大小
+ * 即
+ * 从根对象开始，沿着成员变量（以及数组元素，集合元素）遍历所有可达的对象，累加它们的浅层大小（即 对象头 + 成员变量 + 对齐填充）
+ *
+ * 注意
+ * 1. 这里没有使用 Instrumentation，而是按照 HotSpot 虚拟机的对象布局进行估算
+ *   （64 位并开启压缩指针时对象头为 12 字节，引用为 4 字节，所有对象都按 8 字节对齐），因此结果只是一个近似值
+ * 2. 通过 IdentityHashMap 记录已经访问过的对象，因此循环引用不会导致死循环
+ *    同时
+ *    访问的对象数达到上限时就停止遍历，并把结果标记为 truncated（这样遇到很大的对象图时也不会长时间卡住）
+ * 3. 遇到边界对象（如其他 Bean，Bean 容器，Class 类对象，类加载器，线程）时不会继续遍历
+ *    这样
+ *    一个 Bean 的大小就不会把它所依赖的其他 Bean 也算进来
+ * 4. JDK 中的类的私有成员变量在模块系统下不一定能访问，因此这里不会通过反射读取它们
+ *    即
+ *    数组按元素遍历，Map 和 Collection 通过它们的公开接口遍历元素并估算内部结构（如 哈希表，节点）的大小
+ *    String 按字符数估算，其他 JDK 中的对象只统计浅层大小
+ * 5. 通过 CGLib 代理类中的成员变量（即 CGLIB$ 开头的成员变量，如 CGLIB$CALLBACK_0）可达的对象
+ *    以及
+ *    作为其他对象的成员变量的代理类对象（如 注入的延迟加载代理类对象）会被计入代理的开销
+ */
+final class ObjectGraphSizer {
+    private static final boolean IS_64_BIT = !"32".equals(System.getProperty("sun.arch.data.model"));
+    // 最大堆小于 32 GB 时 HotSpot 默认会开启压缩指针
+    private static final boolean COMPRESSED_OOPS = IS_64_BIT && Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024;
+    static final int REFERENCE_SIZE = IS_64_BIT && !COMPRESSED_OOPS ? 8 : 4;
+    static final int OBJECT_HEADER_SIZE = IS_64_BIT ? (COMPRESSED_OOPS ? 12 : 16) : 8;
+    // 数组的对象头中还有一个 int 类型的数组长度
+    static final int ARRAY_HEADER_SIZE = OBJECT_HEADER_SIZE + 4;
+    private static final int OBJECT_ALIGNMENT = 8;
+    // 哈希表中一个节点的大小（即 hash，key，value，next）
+    private static final long HASH_NODE_SIZE = align(OBJECT_HEADER_SIZE + 4 + 3L * REFERENCE_SIZE);
+    private static final String PROXY_FIELD_PREFIX = "CGLIB$";
+
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return new ClassLayout(type);
+        }
+    };
+
+    // 边界对象（即不会继续遍历的对象，如 Bean 容器中的所有 Bean）
+    private final Set<Object> boundarySet;
+    // 每次估算最多访问的对象数
+    private final int maxObjects;
+
+    ObjectGraphSizer(Collection<?> boundaries, int maxObjects) {
+        this.boundarySet = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.boundarySet.addAll(boundaries);
+        this.maxObjects = maxObjects;
+    }
+
+    /**
+     * 估算从根对象开始可达的对象所占用的堆内存大小（根对象本身即使是边界对象也会被统计）
+     *
+     * @param root 根对象
+     * @return 估算结果
+     */
+    Measurement measure(Object root) {
+        Measurement measurement = new Measurement();
+        if (root == null) {
+            return measurement;
+        }
+        Map<Object, Boolean> visited = new IdentityHashMap<>();
+        Deque<Object> pending = new ArrayDeque<>();
+        // 与 pending 一一对应，记录该对象是否是通过代理类中的成员变量到达的
+        Deque<Boolean> pendingProxy = new ArrayDeque<>();
+        visited.put(root, Boolean.TRUE);
+        pending.push(root);
+        pendingProxy.push(Boolean.FALSE);
+        while (!pending.isEmpty()) {
+            if (measurement.objectCount >= maxObjects) {
+                measurement.truncated = true;
+                break;
+            }
+            Object current = pending.pop();
+            boolean proxy = pendingProxy.pop();
+            measurement.objectCount++;
+            if (proxy) {
+                measurement.proxyObjectCount++;
+            }
+            sizeOf(current, proxy, measurement, (child, childProxy) -> {
+                if (child == null || visited.containsKey(child) || isBoundary(child)) {
+                    return;
+                }
+                visited.put(child, Boolean.TRUE);
+                pending.push(child);
+                // 代理对象所引用的对象也都属于代理的开销
+                pendingProxy.push(proxy || childProxy || LAYOUTS.get(child.getClass()).enhanced);
+            });
+        }
+        return measurement;
+    }
+
+    private boolean isBoundary(Object object) {
+        return boundarySet.contains(object) || object instanceof Class || object instanceof ClassLoader
+                || object instanceof Thread || object instanceof ThreadGroup || object instanceof BeanContainer
+                || object instanceof Enum;
+    }
+
+    /**
+     * 统计一个对象本身的大小，并把它引用的对象交给 visitor 处理
+     */
+    private void sizeOf(Object object, boolean proxy, Measurement measurement, ChildVisitor visitor) {
+        Class<?> type = object.getClass();
+        long size;
+        if (type.isArray()) {
+            size = sizeOfArray(object, visitor);
+        } else {
+            ClassLayout layout = LAYOUTS.get(type);
+            size = layout.shallowSize;
+            if (layout.jdkClass) {
+                size += sizeOfJdkObject(object, visitor);
+            } else {
+                for (Field field : layout.referenceFields) {
+                    Object value;
+                    try {
+                        value = field.get(object);
+                    } catch (IllegalAccessException | RuntimeException e) {
+                        continue;
+                    }
+                    visitor.visit(value, field.getName().startsWith(PROXY_FIELD_PREFIX));
+                }
+                if (!proxy) {
+                    measurement.proxyBytes += layout.proxyFieldSize;
+                }
+            }
+        }
+        measurement.bytes += size;
+        if (proxy) {
+            measurement.proxyBytes += size;
+        }
+    }
+
+    private static long sizeOfArray(Object array, ChildVisitor visitor) {
+        Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            int length = Array.getLength(array);
+            return align(ARRAY_HEADER_SIZE + (long) length * primitiveSize(componentType));
+        }
+        Object[] elements = (Object[]) array;
+        for (Object element : elements) {
+            visitor.visit(element, false);
+        }
+        return align(ARRAY_HEADER_SIZE + (long) elements.length * REFERENCE_SIZE);
+    }
+
+    /**
+     * 估算 JDK 中的对象的内部结构的大小（不包括该对象本身的浅层大小）
+     */
+    private static long sizeOfJdkObject(Object object, ChildVisitor visitor) {
+        try {
+            if (object instanceof String) {
+                String value = (String) object;
+                boolean latin1 = value.chars().allMatch(c -> c < 256);
+                return align(ARRAY_HEADER_SIZE + (long) value.length() * (latin1 ? 1 : 2));
+            }
+            if (object instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) object;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    visitor.visit(entry.getKey(), false);
+                    visitor.visit(entry.getValue(), false);
+                }
+                return sizeOfHashTable(map.size());
+            }
+            if (object instanceof Collection) {
+                Collection<?> collection = (Collection<?>) object;
+                for (Object element : collection) {
+                    visitor.visit(element, false);
+                }
+                // HashSet 等 Set 内部就是一个哈希表，其他集合按一个引用数组估算
+                return object instanceof Set ? sizeOfHashTable(collection.size())
+                        : align(ARRAY_HEADER_SIZE + (long) collection.size() * REFERENCE_SIZE);
+            }
+            if (object instanceof AtomicReference) {
+                visitor.visit(((AtomicReference<?>) object).get(), false);
+            }
+        } catch (RuntimeException e) {
+            // 遍历时集合被并发修改等情况下，只统计已经遍历到的部分
+        }
+        return 0;
+    }
+
+    private static long sizeOfHashTable(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        // 哈希表的容量为大于 size / 0.75 的最小的 2 的幂
+        long capacity = Long.highestOneBit(Math.max(1, (long) (size / 0.75f)) * 2 - 1);
+        return align(ARRAY_HEADER_SIZE + capacity * REFERENCE_SIZE) + size * HASH_NODE_SIZE;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    private static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+
+    @FunctionalInterface
+    private interface ChildVisitor {
+        void visit(Object child, boolean proxy);
+    }
+
+    /**
+     * 一个类的对象布局（即 浅层大小，以及需要继续遍历的引用类型的成员变量，包括从父类继承来的）
+     */
+    private static final class ClassLayout {
+        private final long shallowSize;
+        // 代理类中的成员变量（即 CGLIB$ 开头的成员变量）所占用的大小
+        private final long proxyFieldSize;
+        private final List<Field> referenceFields = new ArrayList<>();
+        private final boolean jdkClass;
+        private final boolean enhanced;
+
+        ClassLayout(Class<?> type) {
+            this.jdkClass = isJdkClass(type);
+            this.enhanced = !jdkClass && Enhancer.isEnhanced(type);
+            long fieldSize = 0;
+            long proxySize = 0;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : ClassMetadata.of(current).getFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    int size = field.getType().isPrimitive() ? primitiveSize(field.getType()) : REFERENCE_SIZE;
+                    fieldSize += size;
+                    if (field.getName().startsWith(PROXY_FIELD_PREFIX)) {
+                        proxySize += size;
+                    }
+                    if (!jdkClass && !field.getType().isPrimitive() && trySetAccessible(field)) {
+                        referenceFields.add(field);
+                    }
+                }
+            }
+            this.shallowSize = align(OBJECT_HEADER_SIZE + fieldSize);
+            this.proxyFieldSize = proxySize;
+        }
+
+        private static boolean trySetAccessible(Field field) {
+            try {
+                return field.trySetAccessible();
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 一次估算的结果
+     */
+    static final class Measurement {
+        // 所有可达对象的大小之和（字节）
+        long bytes;
+        // 其中属于代理的开销（字节）
+        long proxyBytes;
+        // 访问过的对象数
+        int objectCount;
+        // 其中属于代理的对象数
+        int proxyObjectCount;
+        // 是否因为访问的对象数达到上限而提前停止了遍历
+        boolean truncated;
+    }
+}
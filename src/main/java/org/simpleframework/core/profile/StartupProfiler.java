@@ -0,0 +1,223 @@
+package org.simpleframework.core.profile;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 该类用于分析框架的启动过程（即 DispatcherServlet 的 init() 方法）
+ * 即
+ * 记录下每个启动阶段，每个 Bean 的实例化，每个切面的切入点匹配，以及路由表的构建所花费的 墙钟时间，CPU 时间 和 分配的内存字节数
+ * 然后
+ * 在启动完成后把这些数据以 JSON 格式写入到文件中，同时在日志中打印一份摘要
+ *
+ * 注意
+ * 1. 启动分析默认不开启，需要通过系统属性 simpleframework.startup.profile=true 开启（未开启时 start() 方法返回的是什么都不记录的空步骤）
+ * 2. CPU 时间和内存分配量统计的只是调用线程本身的，并行扫描时 ForkJoinPool 中的其他线程所消耗的 CPU 时间不会被统计在内
+ */
+@Slf4j
+public class StartupProfiler {
+    // 是否开启启动分析（默认不开启）
+    public static final String PROFILE_ENABLED_PROPERTY = "simpleframework.startup.profile";
+    // 启动分析报告的文件名
+    public static final String REPORT_FILE_NAME = "startup-profile.json";
+    // 日志摘要中每个类别最多打印的条数
+    private static final int SUMMARY_LIMIT = 10;
+
+    private final boolean enabled;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    // 以 类别 + 名称 为 Key 汇总的记录（同一个切面的多次切入点匹配会被汇总成一条记录）
+    private final Map<String, StepRecord> recordMap = new ConcurrentHashMap<>();
+
+    private StartupProfiler() {
+        this(Boolean.getBoolean(PROFILE_ENABLED_PROPERTY));
+    }
+
+    /**
+     * 创建一个独立的启动分析器（不会与全局的启动分析器共享记录，主要用于测试）
+     *
+     * @param enabled 是否开启
+     */
+    StartupProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 获取启动分析器实例
+     *
+     * @return StartupProfiler
+     */
+    public static StartupProfiler getInstance() {
+        return ProfilerHolder.HOLDER.instance;
+    }
+
+    private enum ProfilerHolder {
+        HOLDER;
+        private StartupProfiler instance;
+
+        ProfilerHolder() {
+            instance = new StartupProfiler();
+        }
+    }
+
+    /**
+     * 开始一个被计时的步骤
+     *
+     * @param category 步骤的类别（如 phase，bean，aspect，route）
+     * @param name     步骤的名称
+     * @return StartupStep，调用它的 end() 方法即结束计时
+     */
+    public StartupStep start(String category, String name) {
+        return enabled ? new StartupStep(this, category, name) : StartupStep.NONE;
+    }
+
+    /**
+     * 执行一个被计时的步骤（执行完成或者抛出异常时都会结束计时）
+     *
+     * @param category 步骤的类别（如 phase，bean，aspect，route）
+     * @param name     步骤的名称
+     * @param task     该步骤要执行的操作
+     */
+    public void time(String category, String name, Runnable task) {
+        StartupStep step = start(category, name);
+        try {
+            task.run();
+        } finally {
+            step.end();
+        }
+    }
+
+    /**
+     * 执行一个被计时的步骤，并返回它的结果（执行完成或者抛出异常时都会结束计时）
+     *
+     * @param category 步骤的类别（如 phase，bean，aspect，route）
+     * @param name     步骤的名称
+     * @param task     该步骤要执行的操作
+     * @return 该操作的结果
+     */
+    public <T> T time(String category, String name, Supplier<T> task) {
+        StartupStep step = start(category, name);
+        try {
+            return task.get();
+        } finally {
+            step.end();
+        }
+    }
+
+    void record(String category, String name, long wallNanos, long cpuNanos, long allocatedBytes) {
+        recordMap.computeIfAbsent(category + ":" + name, key -> new StepRecord(category, name))
+                .add(wallNanos, cpuNanos, allocatedBytes);
+    }
+
+    long currentThreadCpuNanos() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    long currentThreadAllocatedBytes() {
+        // 获取线程已分配的内存字节数需要用到 HotSpot 提供的扩展接口，其他虚拟机上就不统计了
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (hotSpotBean.isThreadAllocatedMemorySupported() && hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+                return hotSpotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 获取目前为止的所有记录（按类别分组，同一类别中按墙钟时间降序排序）
+     *
+     * @return 记录集合
+     */
+    public List<StepRecord> getRecords() {
+        List<StepRecord> recordList = new ArrayList<>(recordMap.values());
+        recordList.sort(Comparator.comparing(StepRecord::getCategory)
+                .thenComparing(Comparator.comparingLong(StepRecord::getWallNanos).reversed()));
+        return recordList;
+    }
+
+    /**
+     * 结束启动分析，把分析报告写入到指定的文件中，并在日志中打印摘要，然后清空所有记录
+     *
+     * @param reportFile 报告文件（为 null 时只打印日志摘要）
+     */
+    public void finish(File reportFile) {
+        if (!enabled) {
+            return;
+        }
+        List<StepRecord> recordList = getRecords();
+        logSummary(recordList);
+        if (reportFile != null) {
+            writeReport(recordList, reportFile);
+        }
+        recordMap.clear();
+    }
+
+    private void logSummary(List<StepRecord> recordList) {
+        Map<String, Integer> printedCount = new LinkedHashMap<>();
+        log.info("startup profile ({} steps):", recordList.size());
+        for (StepRecord record : recordList) {
+            int count = printedCount.merge(record.getCategory(), 1, Integer::sum);
+            if (count > SUMMARY_LIMIT) {
+                continue;
+            }
+            log.info("  [{}] {} x{}: wall {} ms, cpu {} ms, allocated {} KB", record.getCategory(), record.getName(),
+                    record.getCount(), record.getWallNanos() / 1_000_000.0, record.getCpuNanos() / 1_000_000.0,
+                    record.getAllocatedBytes() / 1024);
+        }
+    }
+
+    private void writeReport(List<StepRecord> recordList, File reportFile) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try {
+            Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+            try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(recordList, writer);
+            }
+            log.info("startup profile written to {}", reportFile.getAbsolutePath());
+        } catch (IOException e) {
+            log.warn("unable to write startup profile {}: {}", reportFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 该类是对某一个步骤（或同类别同名称的多个步骤）的统计结果的封装
+     */
+    @Getter
+    public static class StepRecord {
+        private final String category;
+        private final String name;
+        private long count;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        StepRecord(String category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.count++;
+            this.wallNanos += wallNanos;
+            this.cpuNanos += cpuNanos;
+            this.allocatedBytes += allocatedBytes;
+        }
+    }
+}
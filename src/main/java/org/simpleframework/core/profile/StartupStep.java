@@ -0,0 +1,46 @@
+package org.simpleframework.core.profile;
+
+/**
+ * 该类代表启动过程中的一个被计时的步骤（如一个启动阶段，一个 Bean 的实例化等）
+ * 它会在创建时记录下当前线程的 墙钟时间，CPU 时间以及已分配的内存字节数
+ * 然后
+ * 在 end() 方法被调用时计算出这一步骤的耗时和内存分配量，并交给 StartupProfiler 汇总
+ *
+ * 注意
+ * 一般直接使用 StartupProfiler 的 time() 方法执行被计时的步骤即可，它会负责调用 end() 方法
+ */
+public class StartupStep {
+    // 启动分析未开启时使用的空步骤（即什么都不记录）
+    static final StartupStep NONE = new StartupStep(null, null, null);
+
+    private final StartupProfiler profiler;
+    // 步骤的类别（如 phase，bean，aspect，route）
+    private final String category;
+    // 步骤的名称（如 loadBeans，Bean 的全类名等）
+    private final String name;
+    private final long startWallNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+
+    StartupStep(StartupProfiler profiler, String category, String name) {
+        this.profiler = profiler;
+        this.category = category;
+        this.name = name;
+        this.startWallNanos = System.nanoTime();
+        this.startCpuNanos = profiler == null ? 0 : profiler.currentThreadCpuNanos();
+        this.startAllocatedBytes = profiler == null ? 0 : profiler.currentThreadAllocatedBytes();
+    }
+
+    /**
+     * 结束计时，并把这一步骤的统计结果交给 StartupProfiler 汇总
+     */
+    public void end() {
+        if (profiler == null) {
+            return;
+        }
+        profiler.record(category, name,
+                System.nanoTime() - startWallNanos,
+                profiler.currentThreadCpuNanos() - startCpuNanos,
+                profiler.currentThreadAllocatedBytes() - startAllocatedBytes);
+    }
+}
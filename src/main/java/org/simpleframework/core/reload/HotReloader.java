@@ -0,0 +1,460 @@
+package org.simpleframework.core.reload;
+
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.aop.AspectWeaver;
+import org.simpleframework.aop.annotation.Aspect;
+import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.ClassMetadata;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.inject.ConfigurationBinder;
+import org.simpleframework.inject.DependencyInjector;
+import org.simpleframework.inject.annotation.Autowired;
+import org.simpleframework.util.ClassUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 该类用于实现开发环境下的热加载
+ * 即
+ * 通过 WatchService 监听 .class 文件所在的文件夹，当其中的 .class 文件发生变化时（如 IDE 重新编译了某个类）
+ * 只使用一个新的 ReloadingClassLoader 重新加载发生了变化的类，然后
+ * 1. 在一个全新的 Bean 容器（即下一代容器）中创建这些类，以及依赖了它们的类的新实例，其他 Bean 直接复用上一代容器中的实例
+ * 2. 只对这些新实例进行织入，配置属性绑定，依赖注入和初始化，然后冻结下一代容器
+ * 3. 通过一次 volatile 写发布下一代容器，然后通知监听者（如 ControllerRequestProcessor）根据下一代容器整体替换它们的映射表
+ * 4. 等待上一代容器上正在处理中的请求都处理完毕之后，再调用被替换掉的旧实例的销毁方法
+ * 这样
+ * 不需要重启 Tomcat 就能使修改生效（该功能默认关闭，需要通过 -Dsimpleframework.hotreload=true 开启）
+ * 而且上一代容器在整个过程中都不会被修改，正在处理中的请求仍然会使用上一代容器处理完毕，某一步失败时也不会留下新旧混杂的容器
+ *
+ * 注意
+ * 1. 接口，注解以及切面类发生变化时无法热加载（因为其他没有变化的类仍然引用着它们的旧版本），此时需要重启
+ * 2. 全局容器（即 BeanContainer.getInstance()）本身不会被替换，需要通过 getBeanContainer() 或者监听者获取当前这一代容器
+ */
+@Slf4j
+public class HotReloader implements Runnable {
+    // 是否启用热加载（默认不启用）
+    public static final String HOT_RELOAD_PROPERTY = "simpleframework.hotreload";
+    // 收到文件变化事件后，等待这么长的时间内没有新的事件了才进行热加载（因为 IDE 重新编译时往往会连续写入多个 .class 文件）
+    private static final long QUIET_PERIOD_MILLIS = 300;
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    // 被替换掉的旧实例的销毁方法的超时时间（单位为毫秒）
+    private static final long DESTROY_TIMEOUT_MILLIS = 5000;
+    // 销毁被替换掉的旧实例之前，最多等待上一代容器上正在处理中的请求这么长的时间（单位为毫秒）
+    private static final long DRAIN_TIMEOUT_MILLIS = 30000;
+
+    // 当前这一代 Bean 容器（每次热加载都会整体替换成下一代容器）
+    private volatile BeanContainer beanContainer;
+    // 当前这一代容器所对应的配置属性绑定器（第一代容器的绑定器不由热加载器创建，因此为 null）
+    private ConfigurationBinder configurationBinder;
+    // .class 文件的根目录（如 WEB-INF/classes）
+    private final File classesDirectory;
+    // Web 应用的类加载器，即每一代 ReloadingClassLoader 的父类加载器
+    private final ClassLoader parentClassLoader;
+    private final WatchService watchService;
+    // 每个被监听的文件夹所对应的 WatchKey
+    private final Map<WatchKey, Path> watchKeyMap = new HashMap<>();
+    // 热加载完成后需要通知的监听者
+    private final List<Consumer<BeanContainer>> reloadListeners = new CopyOnWriteArrayList<>();
+    // 所有被热加载过的类的全类名
+    // 注意
+    // 之后每一代 ReloadingClassLoader 都要重新定义这些类，否则它们仍然会引用上一代类加载器中的旧版本
+    private final Set<String> reloadClassNames = new HashSet<>();
+    private final Thread watchThread;
+    private volatile boolean running = true;
+    // 当前是第几代（即热加载了多少次）
+    private int generation;
+
+    HotReloader(BeanContainer beanContainer, List<File> packageDirectoryList, File classesDirectory,
+                        ClassLoader parentClassLoader) throws IOException {
+        this.beanContainer = beanContainer;
+        this.classesDirectory = classesDirectory;
+        this.parentClassLoader = parentClassLoader;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (File packageDirectory : packageDirectoryList) {
+            registerDirectory(packageDirectory.toPath());
+        }
+
+        this.watchThread = new Thread(this, "simpleframework-hot-reload");
+        this.watchThread.setDaemon(true);
+        this.watchThread.setContextClassLoader(parentClassLoader);
+    }
+
+    /**
+     * 开始监听指定包下的 .class 文件
+     *
+     * @param packageNames 包名
+     * @return HotReloader，没有启用热加载，或者这些包都不在文件夹中（如被打包在 jar 包中）时返回 null
+     */
+    public static HotReloader start(List<String> packageNames) {
+        return start(packageNames, BeanContainer.getInstance());
+    }
+
+    /**
+     * 开始监听指定包下的 .class 文件，发生变化时替换指定的 Bean 容器中对应的 Bean
+     *
+     * @param packageNames  包名
+     * @param beanContainer Bean 容器
+     * @return HotReloader，没有启用热加载，或者这些包都不在文件夹中（如被打包在 jar 包中）时返回 null
+     */
+    public static HotReloader start(List<String> packageNames, BeanContainer beanContainer) {
+        if (!Boolean.getBoolean(HOT_RELOAD_PROPERTY)) {
+            return null;
+        }
+        ClassLoader classLoader = ClassUtil.getClassLoader();
+        List<File> packageDirectoryList = new ArrayList<>();
+        File classesDirectory = null;
+        try {
+            for (String packageName : packageNames) {
+                URL url = classLoader.getResource(packageName.replace(".", "/"));
+                if (url == null || !url.getProtocol().equalsIgnoreCase(ClassUtil.FILE_PROTOCOL)) {
+                    log.warn("hot reload is only supported for classes in a directory, package: {}", packageName);
+                    continue;
+                }
+                File packageDirectory = new File(url.toURI());
+                // 包名中有几级，.class 文件的根目录就在包所在的文件夹往上几级
+                File packageRoot = packageDirectory;
+                for (int i = 0; i < packageName.split("\\.").length; i++) {
+                    packageRoot = packageRoot.getParentFile();
+                }
+                // 每一代 ReloadingClassLoader 只能从一个根目录中读取 .class 文件
+                if (classesDirectory != null && !classesDirectory.equals(packageRoot)) {
+                    log.warn("hot reload only watches {}, package {} is skipped", classesDirectory, packageName);
+                    continue;
+                }
+                classesDirectory = packageRoot;
+                packageDirectoryList.add(packageDirectory);
+            }
+            if (classesDirectory == null) {
+                return null;
+            }
+            HotReloader hotReloader = new HotReloader(beanContainer, packageDirectoryList, classesDirectory, classLoader);
+            hotReloader.watchThread.start();
+            log.info("hot reload enabled, watching {}", packageDirectoryList);
+            return hotReloader;
+        } catch (IOException | URISyntaxException e) {
+            log.error("start hot reload error:", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 添加热加载完成后需要通知的监听者
+     *
+     * @param listener 监听者（参数为刚刚发布的下一代容器）
+     */
+    public void addReloadListener(Consumer<BeanContainer> listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * 获取当前这一代 Bean 容器
+     *
+     * @return Bean 容器
+     */
+    public BeanContainer getBeanContainer() {
+        return beanContainer;
+    }
+
+    /**
+     * 停止监听
+     */
+    public void stop() {
+        running = false;
+        if (configurationBinder != null) {
+            configurationBinder.close();
+        }
+        watchThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("close watch service error: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Set<String> changedClassNames = new HashSet<>();
+            Set<String> deletedClassNames = new HashSet<>();
+            try {
+                // 阻塞等待第一个文件变化事件，然后把一段时间内连续发生的事件合并成一次热加载
+                WatchKey watchKey = watchService.take();
+                while (watchKey != null) {
+                    collectEvents(watchKey, changedClassNames, deletedClassNames);
+                    watchKey = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            try {
+                reload(changedClassNames, deletedClassNames);
+            } catch (Exception | LinkageError e) {
+                log.error("hot reload failed, please restart the application:", e);
+            }
+        }
+    }
+
+    private void collectEvents(WatchKey watchKey, Set<String> changedClassNames, Set<String> deletedClassNames) {
+        Path directory = watchKeyMap.get(watchKey);
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // 新建了文件夹（即新增了子包）时，需要开始监听该文件夹，并把其中已经存在的 .class 文件都当做发生了变化的文件
+                registerDirectory(path);
+                try (Stream<Path> pathStream = Files.walk(path)) {
+                    pathStream.filter(this::isClassFile).forEach(classFile -> changedClassNames.add(toClassName(classFile)));
+                } catch (IOException e) {
+                    log.warn("list new directory {} error: {}", path, e.getMessage());
+                }
+            } else if (isClassFile(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    deletedClassNames.add(toClassName(path));
+                } else {
+                    changedClassNames.add(toClassName(path));
+                }
+            }
+        }
+        if (!watchKey.reset()) {
+            watchKeyMap.remove(watchKey);
+        }
+    }
+
+    /**
+     * 热加载发生了变化的类
+     *
+     * @param changedClassNames 新增或修改了的类的全类名
+     * @param deletedClassNames 删除了的类的全类名
+     */
+    synchronized void reload(Set<String> changedClassNames, Set<String> deletedClassNames) throws ClassNotFoundException {
+        // 1. 找出需要重新加载的类（同时把同一个类的内部类也加进来，因为它们必须由同一个类加载器定义）
+        //（这里只修改一个副本，热加载成功之后才替换 reloadClassNames，这样失败之后下一次热加载仍然从上一代的状态开始）
+        Set<String> nextReloadClassNames = new HashSet<>(reloadClassNames);
+        boolean modified = nextReloadClassNames.removeAll(deletedClassNames);
+        for (String className : withNestedClassNames(changedClassNames)) {
+            if (deletedClassNames.contains(className)) {
+                continue;
+            }
+            Class<?> currentClass = findParentClass(className);
+            if (currentClass != null && (currentClass.isInterface() || ClassMetadata.of(currentClass).isAnnotationPresent(Aspect.class))) {
+                log.warn("{} is an interface, annotation or aspect and cannot be hot reloaded, please restart", className);
+                continue;
+            }
+            nextReloadClassNames.add(className);
+            modified = true;
+        }
+        if (!modified && deletedClassNames.isEmpty()) {
+            return;
+        }
+
+        // 2. 使用新的类加载器重新加载这些类
+        BeanContainer current = beanContainer;
+        ReloadingClassLoader classLoader = new ReloadingClassLoader(classesDirectory, new HashSet<>(nextReloadClassNames), parentClassLoader);
+        Set<Class<?>> reloadedClassSet = new HashSet<>();
+        for (String className : nextReloadClassNames) {
+            reloadedClassSet.add(Class.forName(className, false, classLoader));
+        }
+
+        // 3. 找出上一代容器中哪些 Bean 需要在下一代容器中重新创建，哪些 Bean 可以直接复用
+        Set<String> replacedClassNames = new HashSet<>(nextReloadClassNames);
+        replacedClassNames.addAll(deletedClassNames);
+        Set<Class<?>> replacedClassSet = new HashSet<>();
+        for (Class<?> beanClass : current.getClasses()) {
+            if (replacedClassNames.contains(beanClass.getName())) {
+                replacedClassSet.add(beanClass);
+            }
+        }
+        Set<Class<?>> rebuildClassSet = findRebuildClasses(current, replacedClassSet, reloadedClassSet);
+        Set<Class<?>> retainedClassSet = new HashSet<>(current.getClasses());
+        retainedClassSet.removeAll(replacedClassSet);
+        retainedClassSet.removeAll(rebuildClassSet);
+        Set<Class<?>> newClassSet = new HashSet<>(rebuildClassSet);
+        for (Class<?> reloadedClass : reloadedClassSet) {
+            if (!Modifier.isAbstract(reloadedClass.getModifiers())) {
+                newClassSet.add(reloadedClass);
+            }
+        }
+
+        // 4. 在下一代容器中创建这些 Bean 的实例（与启动时一样会处理条件注解，@Lazy 以及 @Scope）
+        //    然后只对这些新实例进行织入，配置属性绑定，依赖注入和初始化，最后冻结下一代容器
+        //（这一步完全不会修改上一代容器，某一步失败时直接丢弃下一代容器即可）
+        //（切入点表达式解析器是通过上下文类加载器解析类型的，因此这里要把上下文类加载器临时换成新的类加载器）
+        BeanContainer next;
+        ConfigurationBinder nextConfigurationBinder;
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        try {
+            next = current.createNextGeneration(retainedClassSet, newClassSet);
+            Set<Class<?>> nextClassSet = new HashSet<>(next.getClasses());
+            nextClassSet.removeAll(retainedClassSet);
+            new AspectWeaver(next).doAop(nextClassSet);
+            nextConfigurationBinder = new ConfigurationBinder(next, Environment.getInstance());
+            try {
+                nextConfigurationBinder.doBind(nextClassSet);
+                new DependencyInjector(next).doIoc(nextClassSet);
+                next.initializeBeans(nextClassSet);
+            } catch (RuntimeException | LinkageError e) {
+                nextConfigurationBinder.close();
+                throw e;
+            }
+            next.freeze();
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+
+        // 5. 通过一次 volatile 写发布下一代容器，然后通知监听者（如 ControllerRequestProcessor 根据下一代容器整体替换它的映射表）
+        beanContainer = next;
+        if (configurationBinder != null) {
+            configurationBinder.close();
+        }
+        configurationBinder = nextConfigurationBinder;
+        reloadClassNames.clear();
+        reloadClassNames.addAll(nextReloadClassNames);
+        generation++;
+        for (Consumer<BeanContainer> listener : reloadListeners) {
+            listener.accept(next);
+        }
+
+        // 6. 等待上一代容器上正在处理中的请求都处理完毕（此时已经不会再有新的请求登记到上一代容器上了）
+        //    然后调用被替换掉的旧实例（包括依赖了它们而被重新创建的实例）的销毁方法
+        awaitRequests(current);
+        Set<Class<?>> destroyClassSet = new HashSet<>(replacedClassSet);
+        destroyClassSet.addAll(rebuildClassSet);
+        current.destroyBeans(destroyClassSet, DESTROY_TIMEOUT_MILLIS);
+        log.info("hot reload generation {}: {} classes reloaded, {} beans rebuilt, {} beans retained",
+                generation, nextReloadClassNames.size(), next.getClasses().size() - retainedClassSet.size(), retainedClassSet.size());
+    }
+
+    /**
+     * 等待上一代容器上正在处理中的请求都处理完毕（超时或者被中断时只打印警告日志，然后直接销毁被替换掉的旧实例）
+     */
+    private void awaitRequests(BeanContainer current) {
+        try {
+            if (!current.awaitRequests(DRAIN_TIMEOUT_MILLIS)) {
+                log.warn("requests on the previous generation are still in flight after {}ms, destroying replaced beans anyway", DRAIN_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("interrupted while waiting for requests on the previous generation, destroying replaced beans now");
+        }
+    }
+
+    /**
+     * 找出上一代容器中没有被重新加载，但是也需要在下一代容器中重新创建的那些类
+     * 即
+     * 1. 延迟加载的 Bean 以及非单例的 Bean（它们的定义是绑定在上一代容器上的）
+     * 2. 成员变量（加了 @Autowired 注解的）可以注入被替换掉的类，或者需要重新创建的类的实例的那些类（直到没有新的类被找出来为止）
+     */
+    private Set<Class<?>> findRebuildClasses(BeanContainer current, Set<Class<?>> replacedClassSet, Set<Class<?>> reloadedClassSet) {
+        Set<Class<?>> rebuildClassSet = new HashSet<>();
+        Set<Class<?>> changedClassSet = new HashSet<>(replacedClassSet);
+        changedClassSet.addAll(reloadedClassSet);
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (Class<?> beanClass : current.getClasses()) {
+                if (replacedClassSet.contains(beanClass) || rebuildClassSet.contains(beanClass)) {
+                    continue;
+                }
+                if (current.isLazy(beanClass) || current.isScoped(beanClass) || dependsOn(beanClass, changedClassSet)) {
+                    rebuildClassSet.add(beanClass);
+                    changedClassSet.add(beanClass);
+                    found = true;
+                }
+            }
+        }
+        return rebuildClassSet;
+    }
+
+    private boolean dependsOn(Class<?> beanClass, Set<Class<?>> changedClassSet) {
+        for (Field field : ClassMetadata.of(beanClass).getAnnotatedFields(Autowired.class)) {
+            for (Class<?> changedClass : changedClassSet) {
+                if (field.getType().isAssignableFrom(changedClass) || field.getType().getName().equals(changedClass.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把这些类所在文件夹中，它们的内部类（即 类名$xxx.class）也加进来
+     */
+    private Set<String> withNestedClassNames(Set<String> classNames) {
+        Set<String> classNameSet = new HashSet<>(classNames);
+        for (String className : classNames) {
+            String outerClassName = className.contains("$") ? className.substring(0, className.indexOf('$')) : className;
+            File outerClassFile = new File(classesDirectory, outerClassName.replace(".", File.separator) + CLASS_FILE_SUFFIX);
+            File[] nestedClassFiles = outerClassFile.getParentFile().listFiles(
+                    file -> file.getName().startsWith(outerClassFile.getName().replace(CLASS_FILE_SUFFIX, "$")));
+            if (outerClassFile.isFile()) {
+                classNameSet.add(outerClassName);
+            }
+            if (nestedClassFiles != null) {
+                for (File nestedClassFile : nestedClassFiles) {
+                    classNameSet.add(toClassName(nestedClassFile.toPath()));
+                }
+            }
+        }
+        return classNameSet;
+    }
+
+    private Class<?> findParentClass(String className) {
+        try {
+            return Class.forName(className, false, parentClassLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private void registerDirectory(Path directory) {
+        try (Stream<Path> pathStream = Files.walk(directory)) {
+            pathStream.filter(Files::isDirectory).forEach(path -> {
+                try {
+                    watchKeyMap.put(path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), path);
+                } catch (IOException e) {
+                    log.warn("watch directory {} error: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.error("register directory error:", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean isClassFile(Path path) {
+        return path.getFileName().toString().endsWith(CLASS_FILE_SUFFIX);
+    }
+
+    private String toClassName(Path classFile) {
+        String relativePath = classesDirectory.toPath().relativize(classFile).toString();
+        return relativePath.substring(0, relativePath.length() - CLASS_FILE_SUFFIX.length()).replace(File.separator, ".");
+    }
+}
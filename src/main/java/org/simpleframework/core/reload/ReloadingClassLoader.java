@@ -0,0 +1,62 @@
+package org.simpleframework.core.reload;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+
+/**
+ * 该类就是热加载时使用的类加载器
+ * 即
+ * 对于指定的那些类（即发生了变化的类），该类加载器会直接从 .class 文件所在的文件夹中读取最新的字节并定义它们（即子优先）
+ * 而其他的类则仍然交给父类加载器（即 Web 应用的类加载器）加载
+ * 这样
+ * 重新加载出来的类仍然可以赋值给父类加载器中的接口或父类（如 Service 接口），也就可以被注入到没有发生变化的 Bean 中
+ *
+ * 注意
+ * 同一个类加载器只能定义同一个类一次，因此每次热加载都需要创建一个新的类加载器
+ */
+public class ReloadingClassLoader extends ClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
+    // .class 文件的根目录（如 WEB-INF/classes）
+    private final File classesDirectory;
+    // 需要由该类加载器重新定义的类的全类名
+    private final Set<String> reloadClassNames;
+
+    public ReloadingClassLoader(File classesDirectory, Set<String> reloadClassNames, ClassLoader parent) {
+        super(parent);
+        this.classesDirectory = classesDirectory;
+        this.reloadClassNames = reloadClassNames;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!reloadClassNames.contains(name)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                clazz = findClass(name);
+            }
+            if (resolve) {
+                resolveClass(clazz);
+            }
+            return clazz;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        File classFile = new File(classesDirectory, name.replace(".", File.separator) + ".class");
+        try {
+            byte[] classBytes = Files.readAllBytes(classFile.toPath());
+            return defineClass(name, classBytes, 0, classBytes.length);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+}
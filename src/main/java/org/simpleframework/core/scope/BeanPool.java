@@ -0,0 +1,84 @@
+package org.simpleframework.core.scope;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * 该类就是池化 Bean 所使用的对象池
+ * 即
+ * 按照 CPU 核数把对象池拆分成多个有界的空闲列表，每个线程优先从它自己所对应的空闲列表中获取和归还实例
+ * 这样
+ * 高并发下各个线程基本不会竞争同一个空闲列表，同时对象池所占用的内存也是有上限的（空闲列表满了之后归还的实例会被直接丢弃）
+ */
+@Slf4j
+public class BeanPool {
+    // 每个 CPU 核所对应的有界空闲列表
+    private final ArrayBlockingQueue<Object>[] freeLists;
+    // 空闲列表中没有实例时，用于创建新实例
+    private final Supplier<Object> factory;
+
+    public BeanPool(int capacityPerCore, Supplier<Object> factory) {
+        int stripeCount = Runtime.getRuntime().availableProcessors();
+        // 无法直接创建泛型数组，只能创建通配符类型的数组之后再强制转换
+        @SuppressWarnings("unchecked")
+        ArrayBlockingQueue<Object>[] freeLists = (ArrayBlockingQueue<Object>[]) new ArrayBlockingQueue<?>[stripeCount];
+        this.freeLists = freeLists;
+        for (int i = 0; i < stripeCount; i++) {
+            freeLists[i] = new ArrayBlockingQueue<>(Math.max(1, capacityPerCore));
+        }
+        this.factory = factory;
+    }
+
+    /**
+     * 从对象池中获取一个实例（先从当前线程所对应的空闲列表中获取，没有的话再从其他空闲列表中获取，都没有时才创建新的实例）
+     *
+     * @return 实例
+     */
+    public Object acquire() {
+        int stripe = stripe();
+        for (int i = 0; i < freeLists.length; i++) {
+            Object instance = freeLists[(stripe + i) % freeLists.length].poll();
+            if (instance != null) {
+                return instance;
+            }
+        }
+        return factory.get();
+    }
+
+    /**
+     * 把实例归还到当前线程所对应的空闲列表中（归还之前会先调用它的 reset() 方法）
+     *
+     * @param instance 实例
+     */
+    public void release(Object instance) {
+        if (instance instanceof Resettable) {
+            try {
+                ((Resettable) instance).reset();
+            } catch (RuntimeException e) {
+                // 重置失败的实例不能再被复用，直接丢弃即可
+                log.warn("discard pooled instance of {} because reset failed: {}", instance.getClass().getName(), e.getMessage());
+                return;
+            }
+        }
+        freeLists[stripe()].offer(instance);
+    }
+
+    /**
+     * 获取对象池中所有空闲的实例的数量
+     *
+     * @return 数量
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (ArrayBlockingQueue<Object> freeList : freeLists) {
+            count += freeList.size();
+        }
+        return count;
+    }
+
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % freeLists.length);
+    }
+}
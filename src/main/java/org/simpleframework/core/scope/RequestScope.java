@@ -0,0 +1,95 @@
+package org.simpleframework.core.scope;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 该类就是请求作用域
+ * 即
+ * RequestProcessorChain 开始处理一个请求时调用 begin() 方法，为当前线程绑定一个新的请求作用域
+ * 然后
+ * 在该请求中获取到的 REQUEST 作用域的 Bean 实例都会保存在这个请求作用域中（同一个请求中获取到的总是同一个实例）
+ * 最后
+ * 请求处理结束时调用 end() 方法，依次执行注册到该请求作用域中的回调（如把池化的实例放回对象池）
+ */
+@Slf4j
+public class RequestScope {
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    // Key 为 Bean 类（或者 PROTOTYPE 作用域代理类对象所对应的标识），Value 为该请求中它所对应的实例
+    private final Map<Object, Object> instanceMap = new HashMap<>();
+    // 请求结束时需要执行的回调
+    private final List<Runnable> completionCallbacks = new ArrayList<>();
+
+    private RequestScope() {
+    }
+
+    /**
+     * 为当前线程开启一个新的请求作用域（如果当前线程上还残留着上一个请求的作用域，就先结束它）
+     */
+    public static void begin() {
+        if (CURRENT.get() != null) {
+            log.warn("previous request scope was not ended, ending it now");
+            end();
+        }
+        CURRENT.set(new RequestScope());
+    }
+
+    /**
+     * 结束当前线程的请求作用域
+     */
+    public static void end() {
+        RequestScope requestScope = CURRENT.get();
+        if (requestScope == null) {
+            return;
+        }
+        CURRENT.remove();
+        for (Runnable callback : requestScope.completionCallbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.error("request scope completion callback error:", e);
+            }
+        }
+    }
+
+    /**
+     * 获取当前线程的请求作用域
+     *
+     * @return 请求作用域，当前线程不在处理请求时返回 null
+     */
+    public static RequestScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 获取该请求中 Key 所对应的实例，没有的话就创建一个
+     *
+     * @param key     Bean 类（或者 PROTOTYPE 作用域代理类对象所对应的标识）
+     * @param factory 用于创建实例
+     * @return 实例
+     */
+    public Object get(Object key, Supplier<Object> factory) {
+        // 这里不使用 computeIfAbsent() 方法，因为创建实例的过程中可能又会获取该请求中其他 Bean 类所对应的实例
+        Object instance = instanceMap.get(key);
+        if (instance == null) {
+            instance = factory.get();
+            instanceMap.put(key, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * 注册一个请求结束时需要执行的回调
+     *
+     * @param callback 回调
+     */
+    public void onCompletion(Runnable callback) {
+        completionCallbacks.add(callback);
+    }
+}
@@ -0,0 +1,13 @@
+package org.simpleframework.core.scope;
+
+/**
+ * 该接口就是池化 Bean 的重置钩子
+ * 即
+ * 池化的 Bean 实例在被放回对象池之前会调用它的 reset() 方法，以便清除上一次使用时留下的状态
+ */
+public interface Resettable {
+    /**
+     * 清除该实例上一次使用时留下的状态
+     */
+    void reset();
+}
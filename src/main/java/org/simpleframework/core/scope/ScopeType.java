@@ -0,0 +1,15 @@
+package org.simpleframework.core.scope;
+
+/**
+ * 该枚举类定义了 Bean 的作用域
+ */
+public enum ScopeType {
+    // 单例（即整个 IOC 容器中只有一个实例）
+    SINGLETON,
+    // 原型（即每次获取都创建一个新的实例）
+    PROTOTYPE,
+    // 请求（即每个 HTTP 请求一个实例，请求结束时实例随之销毁或者放回对象池）
+    REQUEST,
+    // 线程（即每个线程一个实例）
+    THREAD
+}
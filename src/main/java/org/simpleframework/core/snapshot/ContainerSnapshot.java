@@ -0,0 +1,220 @@
+package org.simpleframework.core.snapshot;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.util.ClassUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 该类就是容器快照
+ * 即
+ * 在 loadBeans()，doAop()，doIoc() 执行完之后，把最终的装配结果（即 有哪些 Bean，每个 @Autowired 成员变量最终注入的是哪个类的实例，
+ * 哪些 Bean 需要被哪些切面代理，以及路由表）保存下来
+ * 这样
+ * 下次启动时就可以直接按照快照中的结果实例化并装配 Bean，而不需要再扫描 classpath，再通过 getClassesBySuper() 查找实现类，再对切入点表达式进行初筛了
+ *
+ * 注意
+ * 快照中保存了生成它时该包下所有 .class 文件的指纹（见 ClassUtil 中的 fingerprintPackage() 方法）
+ * 只要有任何一个 .class 文件发生了变化（新增，删除或修改），快照就会自动失效
+ */
+@Slf4j
+@Getter
+@NoArgsConstructor
+public class ContainerSnapshot {
+    // 是否启用容器快照（默认启用）
+    public static final String SNAPSHOT_ENABLED_PROPERTY = "simpleframework.snapshot";
+    // 快照文件的文件名
+    public static final String SNAPSHOT_FILE_NAME = "container-snapshot.json";
+    // 快照文件的格式版本，快照格式发生变化时需要修改该值，以便旧格式的快照自动失效
+    private static final int FORMAT_VERSION = 1;
+
+    private int formatVersion;
+    // 生成快照时的扫描范围（即扫描的包名以及 include/exclude 规则）
+    private String packageName;
+    // 生成快照时该包下所有 .class 文件的指纹
+    private String fingerprint;
+    // 所有 Bean 类的全类名
+    private List<String> beanClassNames;
+    // 所有 @Autowired 成员变量最终注入的实例所对应的类
+    private List<Wiring> wirings;
+    // 需要被代理的 Bean 类的全类名，以及代理它的切面类的全类名
+    private Map<String, List<String>> proxies;
+    // 路由表
+    private List<Route> routes;
+
+    /**
+     * 根据装配结果创建一个容器快照
+     *
+     * @param packageName 扫描范围（即扫描的包名以及 include/exclude 规则）
+     * @param fingerprint 扫描前该包下所有 .class 文件的指纹
+     * @param beanClasses 所有 Bean 类
+     * @param wirings     所有 @Autowired 成员变量的装配结果
+     * @param proxies     需要被代理的 Bean 类，以及代理它的切面类
+     * @param routes      路由表
+     * @return 容器快照
+     */
+    public static ContainerSnapshot capture(String packageName, String fingerprint, Collection<Class<?>> beanClasses,
+                                            List<Wiring> wirings, Map<Class<?>, List<Class<?>>> proxies, List<Route> routes) {
+        ContainerSnapshot snapshot = new ContainerSnapshot();
+        snapshot.formatVersion = FORMAT_VERSION;
+        snapshot.packageName = packageName;
+        snapshot.fingerprint = fingerprint;
+        snapshot.beanClassNames = new ArrayList<>();
+        for (Class<?> beanClass : beanClasses) {
+            snapshot.beanClassNames.add(beanClass.getName());
+        }
+        snapshot.wirings = new ArrayList<>(wirings);
+        snapshot.proxies = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, List<Class<?>>> entry : proxies.entrySet()) {
+            List<String> aspectClassNames = new ArrayList<>();
+            for (Class<?> aspectClass : entry.getValue()) {
+                aspectClassNames.add(aspectClass.getName());
+            }
+            snapshot.proxies.put(entry.getKey().getName(), aspectClassNames);
+        }
+        snapshot.routes = new ArrayList<>(routes);
+        return snapshot;
+    }
+
+    /**
+     * 读取工作目录下的容器快照
+     *
+     * @param workDirectory 工作目录
+     * @param packageName   扫描范围（即扫描的包名以及 include/exclude 规则）
+     * @param fingerprint   该包下所有 .class 文件当前的指纹
+     * @return 容器快照，如果快照不存在，或者快照已经失效（即指纹不一致）就返回 null
+     */
+    public static ContainerSnapshot load(File workDirectory, String packageName, String fingerprint) {
+        if (!isEnabled(workDirectory) || fingerprint == null) {
+            return null;
+        }
+        File snapshotFile = new File(workDirectory, SNAPSHOT_FILE_NAME);
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        ContainerSnapshot snapshot;
+        try (Reader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            snapshot = new Gson().fromJson(reader, ContainerSnapshot.class);
+        } catch (IOException | JsonParseException e) {
+            log.warn("discard unreadable container snapshot {}: {}", snapshotFile, e.getMessage());
+            return null;
+        }
+        if (snapshot == null || snapshot.formatVersion != FORMAT_VERSION
+                || !packageName.equals(snapshot.packageName) || !fingerprint.equals(snapshot.fingerprint)) {
+            log.info("container snapshot {} is stale, rebuilding the container", snapshotFile);
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * 把容器快照保存到工作目录下
+     *
+     * @param workDirectory 工作目录
+     */
+    public void save(File workDirectory) {
+        if (!isEnabled(workDirectory) || fingerprint == null) {
+            return;
+        }
+        File snapshotFile = new File(workDirectory, SNAPSHOT_FILE_NAME);
+        try {
+            Files.createDirectories(workDirectory.toPath());
+            // 先写入临时文件，再把临时文件重命名为快照文件，这样即使写入过程中进程退出了，也不会留下一个不完整的快照文件
+            File tempFile = new File(workDirectory, SNAPSHOT_FILE_NAME + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
+            }
+            Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 快照写入失败并不影响本次启动，因此这里只打印警告日志
+            log.warn("unable to save container snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private static boolean isEnabled(File workDirectory) {
+        return workDirectory != null && Boolean.parseBoolean(System.getProperty(SNAPSHOT_ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * 获取快照中所有 Bean 类的 Class 类对象
+     *
+     * @return Class 集合
+     */
+    public Set<Class<?>> getBeanClasses() {
+        Set<Class<?>> classSet = new HashSet<>();
+        for (String className : beanClassNames) {
+            classSet.add(ClassUtil.loadClass(className));
+        }
+        return classSet;
+    }
+
+    /**
+     * 获取快照中需要被代理的 Bean 类，以及代理它的切面类
+     *
+     * @return Key 为需要被代理的 Bean 类，Value 为代理它的切面类
+     */
+    public Map<Class<?>, List<Class<?>>> getProxyClasses() {
+        Map<Class<?>, List<Class<?>>> proxyMap = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : proxies.entrySet()) {
+            List<Class<?>> aspectClassList = new ArrayList<>();
+            for (String aspectClassName : entry.getValue()) {
+                aspectClassList.add(ClassUtil.loadClass(aspectClassName));
+            }
+            proxyMap.put(ClassUtil.loadClass(entry.getKey()), aspectClassList);
+        }
+        return proxyMap;
+    }
+
+    /**
+     * 该类是对一个 @Autowired 成员变量的装配结果的封装
+     */
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Wiring {
+        // 成员变量所在类的全类名
+        private String beanClassName;
+        // 成员变量名
+        private String fieldName;
+        // 最终注入的实例所对应的类的全类名
+        private String targetClassName;
+    }
+
+    /**
+     * 该类是对路由表中一条路由的封装
+     */
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Route {
+        // 请求方法
+        private String httpMethod;
+        // 请求路径
+        private String httpPath;
+        // Controller 类的全类名
+        private String controllerClassName;
+        // 处理该请求的方法的方法名
+        private String methodName;
+        // 处理该请求的方法的形参的数据类型的全类名（用于区分重载的方法）
+        private List<String> parameterTypeNames;
+    }
+}
@@ -0,0 +1,164 @@
+package org.simpleframework.inject;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.cglib.proxy.Dispatcher;
+import net.sf.cglib.proxy.Enhancer;
+import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.ClassMetadata;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.inject.annotation.ConfigurationProperties;
+import org.simpleframework.util.ClassUtil;
+import org.simpleframework.util.ValidationUtil;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 该类用于实现配置属性绑定
+ * 即
+ * 把配置属性（见 Environment）绑定到加了 @Value 注解的成员变量，以及加了 @ConfigurationProperties 注解的类的所有成员变量上
+ * 配置属性发生变化时（见 Environment 的 reload() 方法）会自动重新绑定
+ *
+ * 注意
+ * 加了 @ConfigurationProperties 注解的类在 IOC 容器中存放的是一个代理类对象，它的每次方法调用都会转发给当前的实例（即一个 volatile 的快照）
+ * 重新绑定时会创建并绑定一个全新的实例，然后整体替换掉旧的实例
+ * 这样
+ * 读取配置属性时既不需要加锁，也不需要任何反射，并且同一个实例中的所有配置属性总是一致的（即不会读到一半旧一半新的配置）
+ * 而其他 Bean 中加了 @Value 注解的成员变量只能在原来的实例上重新赋值，因此只有 volatile 的成员变量才会被重新绑定
+ */
+@Slf4j
+public class ConfigurationBinder {
+    private final BeanContainer beanContainer;
+    private final Environment environment;
+    // Key 为加了 @ConfigurationProperties 注解的类，Value 为持有它当前实例的 Holder
+    private final Map<Class<?>, PropertiesHolder> holderMap = new ConcurrentHashMap<>();
+    // 是否已经向 IOC 容器注册了后置处理器，以及向配置属性源注册了监听者
+    private boolean listenersRegistered;
+    // 向配置属性源注册的监听者（保存下来以便 close() 时移除）
+    private final Runnable reloadListener = this::rebind;
+
+    public ConfigurationBinder() {
+        this(BeanContainer.getInstance(), Environment.getInstance());
+    }
+
+    /**
+     * 对指定的 Bean 容器进行配置属性绑定
+     *
+     * @param beanContainer Bean 容器
+     * @param environment   配置属性源
+     */
+    public ConfigurationBinder(BeanContainer beanContainer, Environment environment) {
+        this.beanContainer = beanContainer;
+        this.environment = environment;
+    }
+
+    /**
+     * 对 Bean 容器中的所有 Bean 进行配置属性绑定
+     * 注意
+     * 该方法需要在依赖注入（即 DependencyInjector 的 doIoc() 方法）之前调用，以便注入到其他 Bean 中的是 @ConfigurationProperties 类的代理类对象
+     */
+    public void doBind() {
+        if (ValidationUtil.isEmpty(beanContainer.getClasses())) {
+            log.warn("empty classset in BeanContainer");
+            return;
+        }
+        doBind(beanContainer.getClasses());
+    }
+
+    /**
+     * 只对指定的类进行配置属性绑定
+     *
+     * @param classSet 需要进行配置属性绑定的类
+     */
+    public void doBind(Set<Class<?>> classSet) {
+        registerListeners();
+        for (Class<?> clazz : classSet) {
+            // 延迟加载的 Bean 以及非单例的 Bean 此时还没有实例化，它们会在实例化之后再由下面注册的后置处理器进行绑定
+            if (beanContainer.isLazy(clazz) || beanContainer.isScoped(clazz) || holderMap.containsKey(clazz)) {
+                continue;
+            }
+            PropertyBindings bindings = PropertyBindings.of(clazz);
+            if (bindings.isEmpty()) {
+                continue;
+            }
+            Object bean = beanContainer.getBean(clazz);
+            bindings.bind(bean, environment);
+            // AOP 代理类对象无法被替换，因此它们只会在原来的实例上重新绑定（与 @Value 一样，只有 volatile 的成员变量会被重新绑定）
+            if (ClassMetadata.of(clazz).isAnnotationPresent(ConfigurationProperties.class) && !Enhancer.isEnhanced(bean.getClass())) {
+                PropertiesHolder holder = new PropertiesHolder(bean);
+                holderMap.put(clazz, holder);
+                beanContainer.addBean(clazz, Enhancer.create(clazz, (Dispatcher) holder::get));
+            }
+        }
+    }
+
+    /**
+     * 配置属性发生变化后重新绑定
+     * 即
+     * @ConfigurationProperties 类会创建并绑定一个新的实例，然后整体替换掉旧的实例
+     * 其他 Bean 则直接在原来的实例上重新给加了 @Value 注解的 volatile 成员变量赋值（非 volatile 的成员变量保持启动时绑定的值）
+     */
+    public void rebind() {
+        for (Class<?> clazz : beanContainer.getClasses()) {
+            if (beanContainer.isLazy(clazz) || beanContainer.isScoped(clazz)) {
+                continue;
+            }
+            PropertyBindings bindings = PropertyBindings.of(clazz);
+            if (bindings.isEmpty()) {
+                continue;
+            }
+            PropertiesHolder holder = holderMap.get(clazz);
+            if (holder == null) {
+                bindings.rebind(beanContainer.getBean(clazz), environment);
+            } else {
+                Object bean = ClassUtil.newInstance(clazz, true);
+                bindings.bind(bean, environment);
+                holder.current = bean;
+            }
+        }
+        log.info("configuration properties rebound");
+    }
+
+    /**
+     * 向 IOC 容器注册一个后置处理器，用于对延迟加载的 Bean 以及非单例的 Bean 进行配置属性绑定
+     * 然后
+     * 向配置属性源注册一个监听者，以便配置属性发生变化后重新绑定
+     */
+    private synchronized void registerListeners() {
+        if (listenersRegistered) {
+            return;
+        }
+        beanContainer.addBeanPostProcessor((beanClass, bean) -> {
+            PropertyBindings bindings = PropertyBindings.of(beanClass);
+            if (!bindings.isEmpty()) {
+                bindings.bind(bean, environment);
+            }
+            return bean;
+        });
+        environment.addReloadListener(reloadListener);
+        listenersRegistered = true;
+    }
+
+    /**
+     * 不再监听配置属性的变化（如 热加载时该 Bean 容器已经被下一代容器替换掉了）
+     */
+    public void close() {
+        environment.removeReloadListener(reloadListener);
+    }
+
+    /**
+     * 该类用于持有一个 @ConfigurationProperties 类的当前实例
+     */
+    private static class PropertiesHolder {
+        private volatile Object current;
+
+        PropertiesHolder(Object current) {
+            this.current = current;
+        }
+
+        Object get() {
+            return current;
+        }
+    }
+}
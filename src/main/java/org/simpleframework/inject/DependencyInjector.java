@@ -2,11 +2,15 @@ package org.simpleframework.inject;
 
 import lombok.extern.slf4j.Slf4j;
 import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.ClassMetadata;
+import org.simpleframework.core.snapshot.ContainerSnapshot;
 import org.simpleframework.inject.annotation.Autowired;
 import org.simpleframework.util.ClassUtil;
 import org.simpleframework.util.ValidationUtil;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -19,10 +23,29 @@ public class DependencyInjector {
      */
     private BeanContainer beanContainer;
 
+    /**
+     * 该集合中存放的是依赖注入过程中每个成员变量最终注入的实例所对应的类（以便生成容器快照时记录下来）
+     */
+    private final List<ContainerSnapshot.Wiring> wiringList = new ArrayList<>();
+
+    /**
+     * 是否已经向 IOC 容器注册了用于对延迟加载的 Bean 进行依赖注入的后置处理器
+     */
+    private boolean lazyBeanPostProcessorRegistered;
+
     // 构造方法
     public DependencyInjector(){
         // 获取 BeanContainer 类实例
-        beanContainer = BeanContainer.getInstance();
+        this(BeanContainer.getInstance());
+    }
+
+    /**
+     * 对指定的 Bean 容器进行依赖注入（如 通过 createChild() 方法创建的子容器，子容器中找不到的依赖会到父容器中查找）
+     *
+     * @param beanContainer Bean 容器
+     */
+    public DependencyInjector(BeanContainer beanContainer){
+        this.beanContainer = beanContainer;
     }
     /**
      * 该方式就是用于实现依赖注入功能的
@@ -44,76 +67,144 @@ public class DependencyInjector {
             return;
         }
 
-        // 1.获取 Bean 容器中的所有的 Key（即那些 Class 类对象），并遍历
-        for(Class<?> clazz : beanContainer.getClasses()){
-
-            // 2.获取当前遍历到的 Class 类对象所对应的类中的所有成员变量
-            Field[] fields = clazz.getDeclaredFields();
+        // 1.获取 Bean 容器中的所有的 Key（即那些 Class 类对象），然后对它们进行依赖注入
+        doIoc(beanContainer.getClasses());
+    }
 
-            if (ValidationUtil.isEmpty(fields)){
+    /**
+     * 该方法用于只对指定的类进行依赖注入（如 热加载时只需要对重新加载的类，以及依赖了这些类的类进行依赖注入）
+     * 依赖注入的步骤与上面的 doIoc() 方法相同
+     *
+     * @param classSet 需要进行依赖注入的类
+     */
+    public void doIoc(Set<Class<?>> classSet) {
+        registerLazyBeanPostProcessor();
+        for(Class<?> clazz : classSet){
+            // 延迟加载的 Bean 以及非单例的 Bean 此时还没有实例化，它们会在实例化之后再由下面注册的后置处理器进行依赖注入
+            if(beanContainer.isLazy(clazz) || beanContainer.isScoped(clazz)){
                 continue;
             }
+            injectFields(clazz, beanContainer.getBean(clazz), wiringList);
+        }
+    }
 
-            // 遍历上面获取到的所有成员变量
-            for(Field field : fields){
+    /**
+     * 该方法用于对一个 Bean 实例中所有加了 @Autowired 注解的成员变量进行依赖注入
+     *
+     * @param clazz      Bean 实例所对应的类
+     * @param targetBean Bean 实例
+     * @param wirings    用于记录装配结果的集合，为 null 时不记录
+     */
+    private void injectFields(Class<?> clazz, Object targetBean, List<ContainerSnapshot.Wiring> wirings) {
+        // 2.获取当前遍历到的 Class 类对象所对应的类中的所有成员变量
+        // 3.找出被 Autowired 注解标记的成员变量（从 ClassMetadata 缓存中获取，同一个类只会通过反射读取一次）
+        List<Field> fields = ClassMetadata.of(clazz).getAnnotatedFields(Autowired.class);
+
+        if (ValidationUtil.isEmpty(fields)){
+            return;
+        }
 
-                // 3.找出被 Autowired 注解标记的成员变量
-                if(field.isAnnotationPresent(Autowired.class)){
+        // 遍历上面获取到的所有成员变量
+        for(Field field : fields){
 
-                    Autowired autowired = field.getAnnotation(Autowired.class);
+            Autowired autowired = field.getAnnotation(Autowired.class);
 
-                    // 获取 Autowired 注解的属性值
-                    String autowiredValue = autowired.value();
+            // 获取 Autowired 注解的属性值
+            String autowiredValue = autowired.value();
 
-                    // 4.获取该成员变量的数据类型
-                    Class<?> fieldClass = field.getType();
+            // 4.获取该成员变量的数据类型
+            Class<?> fieldClass = field.getType();
 
-                    //5.获取这些成员变量的数据类型在 Bean 容器里对应的实例（这里调用的是我们下面定义的 getFieldInstance() 方法）
-                    Object fieldValue = getFieldInstance(fieldClass, autowiredValue);
+            //5.获取这些成员变量的数据类型在 Bean 容器里对应的实例所对应的类（这里调用的是我们下面定义的 getFieldInstanceClass() 方法）
+            //  然后获取该类在 Bean 容器中对应的实例（如果是还没有实例化的延迟加载的 Bean，获取到的是它的延迟加载代理类对象）
+            Class<?> fieldInstanceClass = getFieldInstanceClass(fieldClass, autowiredValue);
+            Object fieldValue = fieldInstanceClass == null ? null : beanContainer.getBeanReference(fieldInstanceClass, fieldClass);
 
-                    if(fieldValue == null){
-                        throw new RuntimeException("unable to inject relevant type，target fieldClass is:" + fieldClass.getName() + " autowiredValue is : " + autowiredValue);
-                    }
-                    else {
-                        // 6.通过反射将该实例注入到成员变量所在类的实例里（即把该实例赋值给对应类对象中的对应的成员变量）
-                        Object targetBean =  beanContainer.getBean(clazz);
+            if(fieldValue == null){
+                throw new RuntimeException("unable to inject relevant type，target fieldClass is:" + fieldClass.getName() + " autowiredValue is : " + autowiredValue);
+            }
+            else {
+                // 6.通过反射将该实例注入到成员变量所在类的实例里（即把该实例赋值给对应类对象中的对应的成员变量）
+                // 调用我们定义的 setField() 方法进行注入操作
+                ClassUtil.setField(field, targetBean, fieldValue, true);
 
-                        // 调用我们定义的 setField() 方法进行注入操作
-                        ClassUtil.setField(field, targetBean, fieldValue, true);
-                    }
+                // 记录下该成员变量最终注入的实例所对应的类
+                if (wirings != null) {
+                    wirings.add(new ContainerSnapshot.Wiring(clazz.getName(), field.getName(), fieldInstanceClass.getName()));
                 }
             }
         }
+    }
 
+    /**
+     * 该方法用于向 IOC 容器注册一个后置处理器，用于对延迟加载的 Bean 进行依赖注入
+     * 即
+     * 延迟加载的 Bean 在第一次被获取时才会实例化，此时再对它的成员变量进行依赖注入（该装配结果不会被记录到容器快照中）
+     */
+    private synchronized void registerLazyBeanPostProcessor() {
+        if (lazyBeanPostProcessorRegistered) {
+            return;
+        }
+        beanContainer.addBeanPostProcessor((beanClass, bean) -> {
+            injectFields(beanClass, bean, null);
+            return bean;
+        });
+        lazyBeanPostProcessorRegistered = true;
+    }
 
+    /**
+     * 该方法用于根据容器快照中记录的装配结果进行依赖注入
+     * 即
+     * 直接把快照中记录的类在 Bean 容器中对应的实例注入到对应的成员变量中
+     * 而不需要再通过 getClassesBySuper() 方法查找接口或父类的实现子类
+     *
+     * @param wirings 每个成员变量的装配结果
+     */
+    public void doIoc(List<ContainerSnapshot.Wiring> wirings) {
+        registerLazyBeanPostProcessor();
+        for (ContainerSnapshot.Wiring wiring : wirings) {
+            Class<?> beanClass = ClassUtil.loadClass(wiring.getBeanClassName());
+            Object targetBean = beanContainer.getBean(beanClass);
+            Field field = ClassMetadata.of(beanClass).getField(wiring.getFieldName());
+            if (field == null) {
+                log.error("restore injection error, no field {} in {}", wiring.getFieldName(), wiring.getBeanClassName());
+                throw new RuntimeException("no field " + wiring.getFieldName() + " in " + wiring.getBeanClassName());
+            }
+            Object fieldValue = beanContainer.getBeanReference(ClassUtil.loadClass(wiring.getTargetClassName()), field.getType());
+            if (targetBean == null || fieldValue == null) {
+                throw new RuntimeException("unable to restore injection of " + wiring.getBeanClassName() + "." + wiring.getFieldName());
+            }
+            ClassUtil.setField(field, targetBean, fieldValue, true);
+            wiringList.add(wiring);
+        }
     }
 
     /**
-     * 根据 Class 类对象从 Bean 容器里获取其对应的实例或实现类（即如果该 Class 类对象对应的是一个接口，就获取它的实现类）
+     * 获取依赖注入过程中每个成员变量的装配结果
+     *
+     * @return 装配结果集合
+     */
+    public List<ContainerSnapshot.Wiring> getWiringList() {
+        return wiringList;
+    }
+
+    /**
+     * 根据 Class 类对象从 Bean 容器里获取其对应的实例所对应的类或实现类（即如果该 Class 类对象对应的是一个接口，就获取它的实现类）
      * @param fieldClass 该形参用于接收类中对应成员变量的 Class 类对象
      * @param autowiredValue 该形参用于接收加载该成员变量上的 Autowired 注解的属性值
      */
-    private Object getFieldInstance(Class<?> fieldClass, String autowiredValue) {
+    private Class<?> getFieldInstanceClass(Class<?> fieldClass, String autowiredValue) {
 
-        // 获取该 Class 类对象在 Bean 容器中对应的实例
-        Object fieldValue = beanContainer.getBean(fieldClass);
-        if (fieldValue != null){
-            return fieldValue;
+        // 判断该 Class 类对象在 Bean 容器中是否有对应的实例
+        if (beanContainer.containsBean(fieldClass)){
+            return fieldClass;
         }
         // 如果 Bean 容器中没有对应的实例，那么有可能用户就是利用了多态，使用了该成员变量对应数据类型的父类或者接口作为数据类型
         // 此时
-        // 就需要获取该父类或者接口的实现子类在 Bean 容器中的实例
+        // 就需要获取该父类或者接口的实现子类
         else {
             // 调用下面定义的 getImplementedClass() 方法，根据 Autowired 注解的属性值，获取该 Class 类对象对应接口的实现类
-            Class<?> implementedClass = getImplementedClass(fieldClass, autowiredValue);
-
-            // 如果获取到了该接口或者父类的实现子类，就从 Bean 容器中获取对应的实例
-            if(implementedClass != null){
-
-                return beanContainer.getBean(implementedClass);
-            } else {
-                return null;
-            }
+            return getImplementedClass(fieldClass, autowiredValue);
         }
     }
     /**
@@ -139,16 +230,13 @@ public class DependencyInjector {
                     throw new RuntimeException("multiple implemented classes for " + fieldClass.getName() + " please set @Autowired's value to pick one");
                 }
             }
-            // 如果 Autowired 注解的属性值不为空（此时该属性值因为该接口的实现子类的类名）
+            // 如果 Autowired 注解的属性值不为空（此时该属性值为 Bean 的名称，即 @Service 等注解的值，没有指定时为类的简单类名）
+            // 那么
+            // 直接从 Bean 容器的名称索引中找到该名称所对应的类，然后判断它是否是该接口的实现子类或者该父类的子类
             else {
-                // 遍历该 Set 集合，判断 Autowired 注解的属性值是否就是该 Class 类对象对应类的类名，是就返回该 Class 类对象
-                for(Class<?> clazz : classSet){
-                    // 因为我们为 Autowired 注解设置属性值的时候，设置的仅仅是类的简单类名（如 @Autowired("Person")）
-                    // 因此
-                    // 这里比较的时候也是通过调用 Class 类的 getSimpleName() 方法获取该 Class 类对象对应的类的简单类名
-                    if(autowiredValue.equals(clazz.getSimpleName())){
-                        return clazz;
-                    }
+                Class<?> namedClass = beanContainer.getBeanClass(autowiredValue);
+                if (namedClass != null && classSet.contains(namedClass)) {
+                    return namedClass;
                 }
             }
         }
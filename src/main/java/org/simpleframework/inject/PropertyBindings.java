@@ -0,0 +1,162 @@
+package org.simpleframework.inject;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.cglib.proxy.Enhancer;
+import org.simpleframework.core.ClassMetadata;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.inject.annotation.ConfigurationProperties;
+import org.simpleframework.inject.annotation.Value;
+import org.simpleframework.util.ConverterUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 该类用于存放一个 Bean 类的所有配置属性绑定（即加了 @Value 注解的成员变量，或者加了 @ConfigurationProperties 注解的类的所有成员变量）
+ * 即
+ * 每个类只会在第一次使用时解析一次这些成员变量所对应的配置属性名，默认值以及类型转换器，之后都直接从 ClassValue 中获取
+ * 这样
+ * 重新绑定时只需要读取配置属性，调用类型转换器，然后给成员变量赋值即可
+ *
+ * 注意
+ * 在原来的实例上重新绑定时（见 rebind() 方法）只会给 volatile 的成员变量重新赋值
+ * 因为对非 volatile 的成员变量赋值时，其他线程不一定能看到新的值，而且 long，double 类型的成员变量还可能被读到一半旧一半新的值
+ */
+@Slf4j
+class PropertyBindings {
+    private static final ClassValue<PropertyBindings> CACHE = new ClassValue<PropertyBindings>() {
+        @Override
+        protected PropertyBindings computeValue(Class<?> type) {
+            return new PropertyBindings(type);
+        }
+    };
+
+    private final List<FieldBinding> fieldBindings;
+    // 可以在原来的实例上重新绑定的成员变量（即 volatile 的成员变量）
+    private final List<FieldBinding> reloadableBindings;
+
+    private PropertyBindings(Class<?> beanClass) {
+        List<FieldBinding> bindingList = new ArrayList<>();
+        // 代理类（如 AOP 生成的 CGLib 代理类）中的成员变量都是从被代理的类中继承来的，因此这里从被代理的类中查找
+        Class<?> type = Enhancer.isEnhanced(beanClass) ? beanClass.getSuperclass() : beanClass;
+        ClassMetadata metadata = ClassMetadata.of(type);
+        ConfigurationProperties configurationProperties = metadata.getAnnotation(ConfigurationProperties.class);
+        for (Field field : metadata.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                continue;
+            }
+            Value value = field.getAnnotation(Value.class);
+            if (value != null) {
+                bindingList.add(parsePlaceholder(field, value.value()));
+                if (!Modifier.isVolatile(field.getModifiers())) {
+                    log.warn("@Value field {}.{} is not volatile, it keeps its startup value when configuration reloads",
+                            type.getName(), field.getName());
+                }
+            } else if (configurationProperties != null) {
+                bindingList.add(new FieldBinding(field, configurationProperties.prefix() + "." + field.getName(), null));
+            }
+        }
+        this.fieldBindings = bindingList.isEmpty() ? Collections.emptyList() : bindingList;
+        List<FieldBinding> reloadableList = new ArrayList<>();
+        for (FieldBinding fieldBinding : bindingList) {
+            if (Modifier.isVolatile(fieldBinding.field.getModifiers())) {
+                reloadableList.add(fieldBinding);
+            }
+        }
+        this.reloadableBindings = reloadableList.isEmpty() ? Collections.emptyList() : reloadableList;
+    }
+
+    /**
+     * 获取 Bean 类的配置属性绑定
+     *
+     * @param beanClass Bean 类
+     * @return 配置属性绑定
+     */
+    static PropertyBindings of(Class<?> beanClass) {
+        return CACHE.get(beanClass);
+    }
+
+    boolean isEmpty() {
+        return fieldBindings.isEmpty();
+    }
+
+    /**
+     * 把配置属性的值绑定到 Bean 实例的成员变量上（没有该配置属性，也没有默认值时保持成员变量原来的值）
+     *
+     * @param bean        Bean 实例
+     * @param environment 配置属性源
+     */
+    void bind(Object bean, Environment environment) {
+        for (FieldBinding fieldBinding : fieldBindings) {
+            fieldBinding.bind(bean, environment);
+        }
+    }
+
+    /**
+     * 配置属性发生变化后，在原来的实例上重新绑定配置属性（只会给 volatile 的成员变量重新赋值，其他成员变量保持启动时绑定的值）
+     *
+     * @param bean        Bean 实例
+     * @param environment 配置属性源
+     */
+    void rebind(Object bean, Environment environment) {
+        for (FieldBinding fieldBinding : reloadableBindings) {
+            fieldBinding.bind(bean, environment);
+        }
+    }
+
+    /**
+     * 解析 @Value 注解的值（即 ${name:defaultValue}，或者直接就是配置属性名）
+     */
+    private static FieldBinding parsePlaceholder(Field field, String placeholder) {
+        String expression = placeholder.trim();
+        if (expression.startsWith("${") && expression.endsWith("}")) {
+            expression = expression.substring(2, expression.length() - 1);
+        }
+        int separatorIndex = expression.indexOf(':');
+        if (separatorIndex < 0) {
+            return new FieldBinding(field, expression.trim(), null);
+        }
+        return new FieldBinding(field, expression.substring(0, separatorIndex).trim(), expression.substring(separatorIndex + 1));
+    }
+
+    /**
+     * 该类是对一个成员变量的配置属性绑定的封装
+     */
+    private static class FieldBinding {
+        private final Field field;
+        // 配置属性名
+        private final String name;
+        // 默认值（没有默认值时为 null）
+        private final String defaultValue;
+        // 类型转换器（在解析时就已经根据成员变量的数据类型确定了）
+        private final Function<String, ?> converter;
+
+        FieldBinding(Field field, String name, String defaultValue) {
+            this.field = field;
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.converter = ConverterUtil.getConverter(field.getType());
+            field.setAccessible(true);
+        }
+
+        void bind(Object bean, Environment environment) {
+            String value = environment.getProperty(name, defaultValue);
+            if (value == null) {
+                return;
+            }
+            try {
+                field.set(bean, converter.apply(value.trim()));
+            } catch (IllegalAccessException e) {
+                log.error("bind configuration property error:", e);
+                throw new RuntimeException(e);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("unable to bind configuration property " + name + "=" + value
+                        + " to " + field.getDeclaringClass().getName() + "." + field.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.simpleframework.inject.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ConfigurationProperties 用于把以 prefix 开头的配置属性批量绑定到一个 Bean 类的所有成员变量上
+ * 如
+ * prefix 为 headline.query 时，成员变量 pageSize 会绑定配置属性 headline.query.pageSize 的值（没有该配置属性时保持成员变量的初始值）
+ *
+ * 注意
+ * 注入到其他 Bean 中的是一个代理类对象，配置属性发生变化时会创建并绑定一个新的实例，然后整体替换掉代理类对象所指向的旧实例
+ * 因此
+ * 该类应该只包含配置属性（以及它们的 getter 方法），不要在其中使用 @Autowired 注解
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConfigurationProperties {
+    String prefix();
+}
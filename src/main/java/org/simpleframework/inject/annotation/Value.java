@@ -0,0 +1,18 @@
+package org.simpleframework.inject.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Value 用于把配置属性注入到成员变量中，目前仅支持成员变量注入
+ * 如
+ * @Value("${headline.page.size:100}") 表示注入配置属性 headline.page.size 的值，没有该配置属性时注入 100
+ *（配置属性发生变化时只会重新注入 volatile 的成员变量，非 volatile 的成员变量保持启动时注入的值，并在启动时打印警告日志）
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Value {
+    String value();
+}
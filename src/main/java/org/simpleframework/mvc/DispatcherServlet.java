@@ -4,15 +4,31 @@ import com.imooc.controller.frontend.MainPageController;
 import com.imooc.controller.superadmin.HeadLineOperationController;
 import org.simpleframework.aop.AspectWeaver;
 import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.core.env.PropertiesWatcher;
+import org.simpleframework.core.profile.MemoryFootprintAnalyzer;
+import org.simpleframework.core.profile.MemoryFootprintReport;
+import org.simpleframework.core.profile.StartupProfiler;
+import org.simpleframework.core.reload.HotReloader;
+import org.simpleframework.core.snapshot.ContainerSnapshot;
+import org.simpleframework.inject.ConfigurationBinder;
 import org.simpleframework.inject.DependencyInjector;
 import org.simpleframework.mvc.processor.RequestProcessor;
 import org.simpleframework.mvc.processor.impl.ControllerRequestProcessor;
 import org.simpleframework.mvc.processor.impl.JspRequestProcessor;
 import org.simpleframework.mvc.processor.impl.PreRequestProcessor;
+import org.simpleframework.mvc.processor.impl.ReadinessRequestProcessor;
 import org.simpleframework.mvc.processor.impl.StaticResourceRequestProcessor;
+import org.simpleframework.mvc.warmup.RequestRecorder;
+import org.simpleframework.mvc.warmup.WarmupRequest;
+import org.simpleframework.mvc.warmup.WarmupRunner;
+import org.simpleframework.util.ClassUtil;
+import org.simpleframework.util.ScanCache;
+import org.simpleframework.util.ValidationUtil;
 
 import javax.servlet.GenericServlet;
 import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.annotation.WebServlet;
@@ -20,6 +36,7 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,33 +51,235 @@ public class DispatcherServlet extends HttpServlet {
     // 该成员变量就是一个存放 RequestProcessor 接口实现子类的容器（我们就可以把它看做是一个 RequestProcessor 矩阵）
     List<RequestProcessor> PROCESSOR = new ArrayList<>();
 
+    // 需要扫描的包（多个包之间用 , 分隔，默认为 com.imooc）
+    private static final String SCAN_PACKAGES_PARAM = "scanPackages";
+    // 只扫描这些包下的子包（如 com.imooc.controller,com.imooc.service）
+    private static final String INCLUDE_PACKAGES_PARAM = "includePackages";
+    // 不扫描这些包下的子包（如 com.imooc.entity,*.demo,com.imooc.*.fixture）
+    private static final String EXCLUDE_PACKAGES_PARAM = "excludePackages";
+    private static final String DEFAULT_SCAN_PACKAGE = "com.imooc";
+    // 关闭时每个 Bean 的销毁方法（即加了 @PreDestroy 注解的方法）的超时时间（单位为毫秒）
+    private static final String DESTROY_TIMEOUT_PARAM = "destroyTimeoutMillis";
+    private static final long DEFAULT_DESTROY_TIMEOUT_MILLIS = 5000;
+    // 预热时每个请求样例重放的次数（为 0 时不预热）
+    private static final String WARMUP_ITERATIONS_PARAM = "warmupIterations";
+    private static final int DEFAULT_WARMUP_ITERATIONS = 10;
+    // 就绪检查的请求路径
+    private static final String READINESS_PATH_PARAM = "readinessPath";
+    private static final String DEFAULT_READINESS_PATH = "/ready";
+
+    // 该 Servlet 所使用的 IOC 容器（默认为全局容器，子类可以重写 createBeanContainer() 方法为每个 Servlet 创建相互隔离的容器）
+    // 注意
+    // 开启热加载时，每次热加载都会把它替换成下一代容器
+    private volatile BeanContainer beanContainer;
+    // 热加载器（没有开启热加载时为 null）
+    private HotReloader hotReloader;
+    // 配置文件监听器（没有开启监听时为 null）
+    private PropertiesWatcher propertiesWatcher;
+    // 请求样例记录器
+    private RequestRecorder requestRecorder;
+    // 预热器（预热完成之前就绪检查会返回 503）
+    private volatile WarmupRunner warmupRunner;
+
     /**
      * 实现 Servlet 接口中的 init() 方法，该方法的主要功能有 2 个（已在下面的代码注释中用序号标出）
      *
      */
     @Override
     public void init(){
-        // 1. 初始化容器
-        //    即
-        //    这一步的功能就是通过调用我们自己实现的 BeanContainer 类中的 loadBeans() 方法来加载 com.imooc 包下的所有类
-        //   （即 这一步相当于实现了 Spring IOC 的功能（即创建所有 Bean 实例（仅仅是实例化，还没有初始化）））
-        BeanContainer beanContainer = BeanContainer.getInstance();
-        beanContainer.loadBeans("com.imooc");
-
-        // 调用 AspectWeaver 类中的 doAop() 方法，对上一步实例化好的 Bean 进行 AOP 操作
-        new AspectWeaver().doAop();
-
-        // 调用 DependencyInjector 类中的 doIoc() 方法，对实例化好的 Bean 进行 IOC 操作（即 依赖注入）
-        new DependencyInjector().doIoc();
-
-        // 2. 初始化请求处理器责任链
-        //    即
-        //    把 RequestProcessor 实现类对象存放到容器中
-        //   （注意，这里存放这些对象的顺序就是按照笔记中 “自研 MVC 的架构” 中的图中的 RequestProcessor 矩阵中各实现类的箭头顺序存放的）
+        // 把 Servlet 容器为当前 Web 应用分配的临时目录作为扫描缓存的保存目录，以便重启时复用上一次的扫描结果
+        File workDirectory = (File) getServletContext().getAttribute(ServletContext.TEMPDIR);
+        ScanCache.setWorkDirectory(workDirectory);
+        beanContainer = createBeanContainer();
+
+        // 读取需要扫描的包，以及包的 include/exclude 规则（多个值之间用 , 分隔）
+        List<String> packageNames = getInitParameterList(SCAN_PACKAGES_PARAM, DEFAULT_SCAN_PACKAGE);
+        List<String> includes = getInitParameterList(INCLUDE_PACKAGES_PARAM, null);
+        List<String> excludes = getInitParameterList(EXCLUDE_PACKAGES_PARAM, null);
+        // 扫描范围（即 包 + include/exclude 规则，以及决定条件注解是否满足的配置属性），扫描范围变化时容器快照也要失效
+        String scanScope = packageNames + "+" + includes + "-" + excludes + "@" + Environment.getInstance().fingerprint();
+
+        // 计算这些包下所有 .class 文件的指纹，如果上一次启动时保存的容器快照仍然有效（即这些 .class 文件都没有发生变化）
+        // 就直接按照快照恢复容器，跳过扫描，实现类查找以及切入点初筛
+        StartupProfiler profiler = StartupProfiler.getInstance();
+        String fingerprint = fingerprintPackages(packageNames);
+        ContainerSnapshot snapshot = ContainerSnapshot.load(workDirectory, scanScope, fingerprint);
+        ControllerRequestProcessor controllerRequestProcessor;
+        if (snapshot != null) {
+            profiler.time("phase", "restoreSnapshot", () -> {
+                beanContainer.loadBeans(snapshot.getBeanClasses());
+                new AspectWeaver(beanContainer).doAop(snapshot.getProxyClasses());
+                new ConfigurationBinder(beanContainer, Environment.getInstance()).doBind();
+                new DependencyInjector(beanContainer).doIoc(snapshot.getWirings());
+            });
+            controllerRequestProcessor = profiler.time("phase", "requestProcessors", () -> {
+                ControllerRequestProcessor processor = new ControllerRequestProcessor(beanContainer, snapshot.getRoutes());
+                initRequestProcessors(processor);
+                return processor;
+            });
+        } else {
+            // 1. 初始化容器
+            //    即
+            //    这一步的功能就是通过调用我们自己实现的 BeanContainer 类中的 loadBeans() 方法来加载这些包（默认为 com.imooc 包）下的所有类
+            //   （即 这一步相当于实现了 Spring IOC 的功能（即创建所有 Bean 实例（仅仅是实例化，还没有初始化）））
+            //（这里会通过 StartupProfiler 记录下每个启动阶段所花费的时间，以便分析启动过程中的性能瓶颈）
+            profiler.time("phase", "loadBeans", () -> beanContainer.loadBeans(packageNames, includes, excludes));
+
+            // 调用 AspectWeaver 类中的 doAop() 方法，对上一步实例化好的 Bean 进行 AOP 操作
+            AspectWeaver aspectWeaver = new AspectWeaver(beanContainer);
+            profiler.time("phase", "doAop", () -> aspectWeaver.doAop());
+
+            // 把配置属性绑定到加了 @Value 注解的成员变量以及 @ConfigurationProperties 类上（需要在依赖注入之前，以便注入的是可以热替换的代理类对象）
+            profiler.time("phase", "doBind", () -> new ConfigurationBinder(beanContainer, Environment.getInstance()).doBind());
+
+            // 调用 DependencyInjector 类中的 doIoc() 方法，对实例化好的 Bean 进行 IOC 操作（即 依赖注入）
+            DependencyInjector dependencyInjector = new DependencyInjector(beanContainer);
+            profiler.time("phase", "doIoc", () -> dependencyInjector.doIoc());
+
+            // 2. 初始化请求处理器责任链
+            controllerRequestProcessor = profiler.time("phase", "requestProcessors", () -> {
+                ControllerRequestProcessor processor = new ControllerRequestProcessor(beanContainer);
+                initRequestProcessors(processor);
+                return processor;
+            });
+
+            // 把本次的装配结果保存为容器快照，以便下次启动时直接恢复
+            ContainerSnapshot.capture(scanScope, fingerprint, beanContainer.getClasses(),
+                    dependencyInjector.getWiringList(), aspectWeaver.getWovenAspectMap(),
+                    controllerRequestProcessor.getRoutes()).save(workDirectory);
+        }
+
+        // 此时所有的 Bean 都已经装配完成了，先并行地调用它们的初始化方法（即加了 @PostConstruct 注解的方法）
+        // 然后冻结 Bean 容器，之后的 getBean() 都不再需要访问 ConcurrentHashMap
+        profiler.time("phase", "initializeBeans", () -> beanContainer.initializeBeans());
+        beanContainer.freeze();
+
+        // 开发环境下开启热加载（默认关闭），.class 文件发生变化时会发布下一代 IOC 容器，然后根据它整体替换路由表
+        hotReloader = HotReloader.start(packageNames, beanContainer);
+        if (hotReloader != null) {
+            // 注意，要先替换路由表，再替换 beanContainer（这样登记到下一代容器上的请求使用的一定是下一代容器的路由表）
+            hotReloader.addReloadListener(next -> {
+                controllerRequestProcessor.refresh(next);
+                beanContainer = next;
+            });
+        }
+
+        // 监听配置文件，配置文件发生变化时重新加载配置属性，并重新绑定到 Bean 上
+        propertiesWatcher = PropertiesWatcher.start(Environment.getInstance());
+
+        // 记录线上真实的请求样例，然后在后台线程中通过真实的请求处理器链重放请求样例进行预热，预热完成之后实例才会就绪
+        requestRecorder = new RequestRecorder(workDirectory);
+        controllerRequestProcessor.setRequestRecorder(requestRecorder);
+        // 只有加了 @Warmup 注解的路由才会自动预热，以免预热时调用有副作用的方法（如 GET /headline/remove）
+        List<WarmupRequest> warmupRequests = WarmupRunner.collectRequests(controllerRequestProcessor.getRoutes(),
+                controllerRequestProcessor.getWarmupRouteKeys(),
+                WarmupRunner.loadDeclaredRequests(Thread.currentThread().getContextClassLoader()),
+                requestRecorder.load(controllerRequestProcessor.getRecordableRouteKeys()));
+        String iterations = getInitParameter(WARMUP_ITERATIONS_PARAM);
+        warmupRunner = new WarmupRunner(PROCESSOR, warmupRequests, ValidationUtil.isEmpty(iterations)
+                ? DEFAULT_WARMUP_ITERATIONS : Integer.parseInt(iterations.trim()));
+        warmupRunner.start();
+
+        // 开启了内存占用分析时（默认关闭），估算每个 Bean，代理，容器本身以及路由表所占用的内存，并把报告写入到临时目录中
+        if (MemoryFootprintAnalyzer.isReportEnabled()) {
+            MemoryFootprintReport footprintReport = new MemoryFootprintAnalyzer(beanContainer)
+                    .addSubsystem("routes", controllerRequestProcessor.getRouteTable())
+                    .analyze();
+            footprintReport.logSummary();
+            if (workDirectory != null) {
+                footprintReport.writeTo(new File(workDirectory, MemoryFootprintAnalyzer.REPORT_FILE_NAME));
+            }
+        }
+
+        // 3. 把启动分析报告写入到 Servlet 容器为当前 Web 应用分配的临时目录中，并在日志中打印摘要
+        profiler.finish(workDirectory == null ? null : new File(workDirectory, StartupProfiler.REPORT_FILE_NAME));
+    }
+
+    /**
+     * 创建该 Servlet 所使用的 IOC 容器（默认返回全局容器，在同一个 JVM 中嵌入多个应用时可以重写该方法返回一个新的容器）
+     *
+     * @return IOC 容器
+     */
+    protected BeanContainer createBeanContainer() {
+        return BeanContainer.getInstance();
+    }
+
+    /**
+     * 读取用 , 分隔的 Servlet 初始化参数
+     *
+     * @param name         参数名
+     * @param defaultValue 没有设置该参数时的默认值
+     * @return 参数值集合
+     */
+    private List<String> getInitParameterList(String name, String defaultValue) {
+        String value = getInitParameter(name);
+        if (ValidationUtil.isEmpty(value)) {
+            value = defaultValue;
+        }
+        List<String> valueList = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(",")) {
+                if (!item.trim().isEmpty()) {
+                    valueList.add(item.trim());
+                }
+            }
+        }
+        return valueList;
+    }
+
+    /**
+     * 计算这些包下所有 .class 文件的指纹
+     *
+     * @param packageNames 包名
+     * @return 指纹，其中任意一个包获取不到时返回 null
+     */
+    private String fingerprintPackages(List<String> packageNames) {
+        List<String> fingerprintList = new ArrayList<>();
+        for (String packageName : packageNames) {
+            String fingerprint = ClassUtil.fingerprintPackage(packageName);
+            if (fingerprint == null) {
+                return null;
+            }
+            fingerprintList.add(fingerprint);
+        }
+        return String.join(",", fingerprintList);
+    }
+
+    /**
+     * Servlet 销毁时停止热加载以及配置文件监听，保存记录下来的请求样例，然后按照与依赖关系相反的顺序销毁所有的 Bean（以便释放连接池，缓冲区等资源）
+     */
+    @Override
+    public void destroy() {
+        if (hotReloader != null) {
+            hotReloader.stop();
+        }
+        if (propertiesWatcher != null) {
+            propertiesWatcher.stop();
+        }
+        if (requestRecorder != null) {
+            requestRecorder.save();
+        }
+        String timeout = getInitParameter(DESTROY_TIMEOUT_PARAM);
+        beanContainer.destroyBeans(ValidationUtil.isEmpty(timeout)
+                ? DEFAULT_DESTROY_TIMEOUT_MILLIS : Long.parseLong(timeout.trim()));
+    }
+
+    /**
+     * 初始化请求处理器责任链
+     * 即
+     * 把 RequestProcessor 实现类对象存放到容器中
+     *（注意，这里存放这些对象的顺序就是按照笔记中 “自研 MVC 的架构” 中的图中的 RequestProcessor 矩阵中各实现类的箭头顺序存放的）
+     *
+     * @param controllerRequestProcessor 已经构建好映射表的 ControllerRequestProcessor 类对象
+     */
+    private void initRequestProcessors(ControllerRequestProcessor controllerRequestProcessor) {
         PROCESSOR.add(new PreRequestProcessor());
+        String readinessPath = getInitParameter(READINESS_PATH_PARAM);
+        PROCESSOR.add(new ReadinessRequestProcessor(ValidationUtil.isEmpty(readinessPath) ? DEFAULT_READINESS_PATH : readinessPath.trim(),
+                () -> warmupRunner != null && warmupRunner.isReady()));
         PROCESSOR.add(new StaticResourceRequestProcessor(getServletContext()));
         PROCESSOR.add(new JspRequestProcessor(getServletContext()));
-        PROCESSOR.add(new ControllerRequestProcessor());
+        PROCESSOR.add(controllerRequestProcessor);
     }
 
     /**
@@ -70,15 +289,41 @@ public class DispatcherServlet extends HttpServlet {
      */
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) {
-        // 1. 创建责任链 RequestProcessorChain 类对象实例
-        //    构造方法中传入集合 PROCESSOR 的迭代器（以便于对集合进行遍历），HttpServletRequest 类对象 和 HttpServletResponse 类对象
-        RequestProcessorChain requestProcessorChain = new RequestProcessorChain(PROCESSOR.iterator(), req, resp);
+        // 0. 把该请求登记到当前这一代 IOC 容器上（热加载时，上一代容器要等到登记在它上面的请求都处理完毕之后才会销毁被替换掉的实例）
+        BeanContainer requestContainer = beginRequest();
+        try {
+            // 1. 创建责任链 RequestProcessorChain 类对象实例
+            //    构造方法中传入集合 PROCESSOR 的迭代器（以便于对集合进行遍历），HttpServletRequest 类对象 和 HttpServletResponse 类对象
+            RequestProcessorChain requestProcessorChain = new RequestProcessorChain(PROCESSOR.iterator(), req, resp);
 
-        // 2. 调用 RequestProcessorChain 类中的 doRequestProcessorChain() 方法来依次调用 RequestProcessor 实现类对请求进行处理
-        //    该方法内部会遍历集合 PROCESSOR，分别调用该集合中的 RequestProcessor 类对象
-        requestProcessorChain.doRequestProcessorChain();
+            // 2. 调用 RequestProcessorChain 类中的 doRequestProcessorChain() 方法来依次调用 RequestProcessor 实现类对请求进行处理
+            //    该方法内部会遍历集合 PROCESSOR，分别调用该集合中的 RequestProcessor 类对象
+            requestProcessorChain.doRequestProcessorChain();
 
-        // 3. 对处理结果进行渲染
-        requestProcessorChain.doRender();
+            // 3. 对处理结果进行渲染
+            requestProcessorChain.doRender();
+        } finally {
+            requestContainer.endRequest();
+        }
+    }
+
+    /**
+     * 把请求登记到当前这一代 IOC 容器上
+     * 注意
+     * 登记之后如果发现已经发布了下一代容器，就改为登记到下一代容器上
+     * 这样
+     * 热加载器在发布下一代容器之后等待上一代容器时，就不会漏掉刚好在这个时候登记到上一代容器上的请求
+     *
+     * @return 该请求所登记的 IOC 容器
+     */
+    private BeanContainer beginRequest() {
+        while (true) {
+            BeanContainer requestContainer = beanContainer;
+            requestContainer.beginRequest();
+            if (requestContainer == beanContainer) {
+                return requestContainer;
+            }
+            requestContainer.endRequest();
+        }
     }
 }
@@ -2,6 +2,7 @@ package org.simpleframework.mvc;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.core.scope.RequestScope;
 import org.simpleframework.mvc.processor.RequestProcessor;
 import org.simpleframework.mvc.render.DefaultResultRender;
 import org.simpleframework.mvc.render.InternalErrorResultRender;
@@ -57,6 +58,8 @@ public class RequestProcessorChain {
      *（实现的步骤见下面代码注释中的序号）
      */
     public void doRequestProcessorChain() {
+        // 为当前请求开启请求作用域（REQUEST 作用域的 Bean 在该请求中获取到的总是同一个实例），它会在 doRender() 方法执行完之后结束
+        RequestScope.begin();
         try{
             // 1. 通过一个 RequestProcessor 集合的迭代器来遍历该 RequestProcessor 集合
             //   （该集合就是 DispatcherServlet 类中的成员变量 PROCESSOR）
@@ -96,6 +99,9 @@ public class RequestProcessorChain {
         } catch (Exception e) {
             log.error("doRender error: ", e);
             throw new RuntimeException(e);
+        } finally {
+            // 3. 结束当前请求的请求作用域（池化的实例会在这里被放回对象池）
+            RequestScope.end();
         }
     }
 }
@@ -0,0 +1,23 @@
+package org.simpleframework.mvc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 该注解用于标识 Controller 类中可以在启动预热时被重放的方法（即没有副作用的方法）
+ * 即
+ * 只有加了该注解的路由才会在预热时自动生成不带请求参数的样例，以及重放上一次运行时记录下来的样例
+ * 没有加该注解的路由只能通过 classpath 下的 warmup-requests.json 文件手动声明样例
+ *
+ * 注意
+ * 请求方法是 GET 并不代表该方法没有副作用（如 GET /headline/remove），因此框架不会根据请求方法自动预热任何路由
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Warmup {
+    // 是否把线上真实请求的请求参数记录下来（会以明文保存到工作目录中），以便下次启动时用真实的请求参数预热
+    // 默认不记录，以免把令牌或者个人信息等请求参数写入到磁盘中
+    boolean recordParameters() default false;
+}
@@ -2,10 +2,14 @@ package org.simpleframework.mvc.processor.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.ClassMetadata;
+import org.simpleframework.core.snapshot.ContainerSnapshot;
+import org.simpleframework.core.profile.StartupProfiler;
 import org.simpleframework.mvc.RequestProcessorChain;
 import org.simpleframework.mvc.annotation.RequestMapping;
 import org.simpleframework.mvc.annotation.RequestParam;
 import org.simpleframework.mvc.annotation.ResponseBody;
+import org.simpleframework.mvc.annotation.Warmup;
 import org.simpleframework.mvc.processor.RequestProcessor;
 import org.simpleframework.mvc.render.JsonResultRender;
 import org.simpleframework.mvc.render.ResourceNotFoundResultRender;
@@ -13,6 +17,8 @@ import org.simpleframework.mvc.render.ResultRender;
 import org.simpleframework.mvc.render.ViewResultRender;
 import org.simpleframework.mvc.type.ControllerMethod;
 import org.simpleframework.mvc.type.RequestPathInfo;
+import org.simpleframework.mvc.warmup.RequestRecorder;
+import org.simpleframework.util.ClassUtil;
 import org.simpleframework.util.ConverterUtil;
 import org.simpleframework.util.ValidationUtil;
 
@@ -41,12 +47,19 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 public class ControllerRequestProcessor implements RequestProcessor {
-    // IOC 容器
-    private BeanContainer beanContainer;
+    // IOC 容器（热加载时会被替换成下一代容器）
+    private volatile BeanContainer beanContainer;
 
     // 该集合中 Key 为 @RequestMapping 注解所设置的 URI 所对应的 RequestPathInfo 类对象
     // Value 为该 @RequestMapping 注解所在方法所对应的 ControllerMethod 类对象
-    private Map<RequestPathInfo, ControllerMethod> pathControllerMethodMap = new ConcurrentHashMap<>();
+    // 注意
+    // 热加载时会构建一个全新的映射表，然后整体替换掉该成员变量（因此这里要使用 volatile 修饰）
+    // 这样
+    // 处理请求时不需要加任何锁，正在处理中的请求仍然会使用旧的映射表处理完毕
+    private volatile Map<RequestPathInfo, ControllerMethod> pathControllerMethodMap = new ConcurrentHashMap<>();
+
+    // 请求样例记录器（用于记录每条路由的真实请求样例，以便下次启动时预热，为 null 时不记录）
+    private RequestRecorder requestRecorder;
 
     /**
      * 构造方法
@@ -56,6 +69,16 @@ public class ControllerRequestProcessor implements RequestProcessor {
      * 加了 @RequestMapping 注解的方法所对应的 ControllerMethod 类对象存放到集合 pathControllerMethodMap 中
      */
     public ControllerRequestProcessor() {
+        this(BeanContainer.getInstance());
+    }
+
+    /**
+     * 构造方法
+     * 根据指定的 Bean 容器（如 通过构造方法创建的相互隔离的容器）中的 Controller 类构建映射表
+     *
+     * @param beanContainer Bean 容器
+     */
+    public ControllerRequestProcessor(BeanContainer beanContainer) {
         // 获取 IOC 容器实例
         // 注意
         // 这里只需要获取 IOC 容器实例即可，因为当 DispatcherServlet 类在初始化的时候（即 Tomcat 在调用该类的 init() 方法的时候）
@@ -64,7 +87,7 @@ public class ControllerRequestProcessor implements RequestProcessor {
         // 而该 ControllerRequestProcessor 类的实例化是在 init() 方法的步骤 2 中进行的
         // 因此
         // 我们在该构造方法中获取的 IOC 容器实例就是已经初始化好的 IOC 容器实例
-        this.beanContainer = BeanContainer.getInstance();
+        this.beanContainer = beanContainer;
 
         // 获取 IOC 容器中，所有加了 @RequestMapping 注解的类（即 Controller 类）所对应的 Class 类对象
         Set<Class<?>> requestMappingSet = beanContainer.getClassesByAnnotation(RequestMapping.class);
@@ -74,7 +97,61 @@ public class ControllerRequestProcessor implements RequestProcessor {
         // 并把 @RequestMapping 注解的值对应的 RequestPathInfo 类对象
         // 和
         // 加了 @RequestMapping 注解的方法所对应的 ControllerMethod 类对象存放到集合 pathControllerMethodMap 中
-        initPathControllerMethodMap(requestMappingSet);
+        //（同时记录下构建路由表所花费的时间）
+        StartupProfiler.getInstance().time("route", "routeTable",
+                () -> initPathControllerMethodMap(beanContainer, pathControllerMethodMap, requestMappingSet));
+    }
+
+    /**
+     * 构造方法
+     * 该构造方法直接根据容器快照中记录的路由构建映射表（即集合 pathControllerMethodMap）
+     * 而不需要再遍历所有 Controller 类中的方法并解析它们的 @RequestMapping 注解
+     *
+     * @param routes 容器快照中记录的路由
+     */
+    public ControllerRequestProcessor(List<ContainerSnapshot.Route> routes) {
+        this(BeanContainer.getInstance(), routes);
+    }
+
+    /**
+     * 构造方法
+     * 根据容器快照中记录的路由，以及指定的 Bean 容器中的 Controller 实例构建映射表
+     *
+     * @param beanContainer Bean 容器
+     * @param routes        容器快照中记录的路由
+     */
+    public ControllerRequestProcessor(BeanContainer beanContainer, List<ContainerSnapshot.Route> routes) {
+        this.beanContainer = beanContainer;
+
+        StartupProfiler.getInstance().time("route", "routeTable", () -> {
+            for (ContainerSnapshot.Route route : routes) {
+                Class<?> controllerClass = ClassUtil.loadClass(route.getControllerClassName());
+                Method method = findRouteMethod(controllerClass, route);
+                registerControllerMethod(beanContainer, pathControllerMethodMap, new RequestPathInfo(route.getHttpMethod(), route.getHttpPath()), controllerClass, method);
+            }
+        });
+    }
+
+    /**
+     * 根据路由中记录的方法名以及形参的数据类型，找到 Controller 类中对应的方法
+     *（这里直接比较形参数据类型的名字，这样形参为基本数据类型时也不需要再加载对应的类）
+     */
+    private Method findRouteMethod(Class<?> controllerClass, ContainerSnapshot.Route route) {
+        for (Method method : ClassMetadata.of(controllerClass).getMethods()) {
+            if (!method.getName().equals(route.getMethodName())
+                    || method.getParameterCount() != route.getParameterTypeNames().size()) {
+                continue;
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            boolean matched = true;
+            for (int i = 0; i < parameterTypes.length && matched; i++) {
+                matched = parameterTypes[i].getName().equals(route.getParameterTypeNames().get(i));
+            }
+            if (matched) {
+                return method;
+            }
+        }
+        throw new RuntimeException("method " + route.getMethodName() + " recorded in snapshot is not found in " + controllerClass.getName());
     }
 
     /**
@@ -85,16 +162,20 @@ public class ControllerRequestProcessor implements RequestProcessor {
      * 加了 @RequestMapping 注解的方法所对应的 ControllerMethod 类对象存放到集合 pathControllerMethodMap 中
      *（主要实现步骤见下面代码注释中的序号）
      *
+     * @param beanContainer       Controller 实例所在的 Bean 容器
+     * @param controllerMethodMap 映射表
      * @param requestMappingSet
      */
-    private void initPathControllerMethodMap(Set<Class<?>> requestMappingSet) {
+    private void initPathControllerMethodMap(BeanContainer beanContainer, Map<RequestPathInfo, ControllerMethod> controllerMethodMap,
+                                             Set<Class<?>> requestMappingSet) {
         if (ValidationUtil.isEmpty(requestMappingSet)) {
             return;
         }
         // 1. 遍历所有被 @RequestMapping 注解标记的类（即 Controller 类）（即遍历形参 requestMappingSet 接收的容器）
         //    获取这些类上面加的该 @RequestMapping 注解的属性值作为一级路径
         for (Class<?> requestMappingClass : requestMappingSet) {
-            RequestMapping requestMapping = requestMappingClass.getAnnotation(RequestMapping.class);
+            ClassMetadata metadata = ClassMetadata.of(requestMappingClass);
+            RequestMapping requestMapping = metadata.getAnnotation(RequestMapping.class);
             String basePath = requestMapping.value();
             // 如果 @RequestMapping 注解中的值不是以 / 开头，就在开头加上 /
             if (!basePath.startsWith("/")) {
@@ -102,7 +183,8 @@ public class ControllerRequestProcessor implements RequestProcessor {
             }
 
             // 2. 遍历当前类里所有被 @RequestMapping 注解标记的方法，获取方法上面该注解的属性值，作为二级路径
-            Method[] methods = requestMappingClass.getDeclaredMethods(); // 通过反射获取该类中的所有方法对应的 Method 类对象
+            //   （从 ClassMetadata 缓存中获取，同一个类只会通过反射读取一次）
+            List<Method> methods = metadata.getAnnotatedMethods(RequestMapping.class);
 
             if (ValidationUtil.isEmpty(methods)) {
                 continue;
@@ -110,74 +192,169 @@ public class ControllerRequestProcessor implements RequestProcessor {
 
             // 遍历上面获取到的所有 Method 类对象
             for (Method method : methods) {
-                // 判断该方法是否加了 @RequestMapping 注解
-                if (method.isAnnotationPresent(RequestMapping.class)) {
-                    // 获取该方法上的 @RequestingMapping 注解
-                    RequestMapping methodRequest = method.getAnnotation(RequestMapping.class);
-
-                    String methodPath = methodRequest.value();
-                    if (!methodPath.startsWith("/")) {
-                        methodPath = "/" + methodPath;
-                    }
-
-                    // 把加在 Controller 类上的 @RequestMapping 注解中的路径和加在该方法上的 @RequestMapping 注解中的路径拼接起来
-                    String url = basePath + methodPath;
-
-                    // 3. 解析该方法里被 @RequestParam 注解标记的形参
-                    //    然后
-                    //    把该注解的属性值作为 Key，把该形参的数据类型对应的 Class 类对象作为 Value，存放到集合中
-                    Map<String, Class<?>> methodParams = new HashMap<>();
-
-                    // 通过反射获取该方法中所有的形参
-                    Parameter[] parameters = method.getParameters();
-
-                    if (!ValidationUtil.isEmpty(parameters)) {
-
-                        // 遍历上面获取的所有形参
-                        for (Parameter parameter : parameters) {
-                            // 获取该形参上的 @RequestParam 注解
-                            RequestParam param = parameter.getAnnotation(RequestParam.class);
-
-                            // 判断变量 param 是否为空（即判断该形参是否加了 @RequestParam 注解）
-                            if (param == null) {
-                                // 由于
-                                // 目前暂定为 Controller 类中的方法里面所有的参数都需要 @RequestParam 注解
-                                // 所以
-                                // 一旦有形参没加该注解，就抛出异常
-                                throw new RuntimeException("The parameter must have @RequestParam");
-                            }
-
-                            // 把 @RequestParam 注解的属性值作为 Key，把该形参的数据类型对应的 Class 类对象作为 Value，存放到集合中
-                            methodParams.put(param.value(), parameter.getType());
-                        }
-                    }
-
-                    // 4. 将上面几步获取到的信息封装成 RequestPathInfo 类实例和 ControllerMethod 类实例
-                    //    然后放置到映射表（即集合 pathControllerMethodMap）里
-                    String httpMethod = String.valueOf(methodRequest.method());
-
-                    // 创建 RequestPathInfo 类对象
-                    RequestPathInfo requestPathInfo = new RequestPathInfo(httpMethod, url);
-
-                    // 判断当前集合 pathControllerMethodMap 中是否有以该 RequestPathInfo 类对象为 Key 的键值对
-                    // 有就打印一个警告日志
-                    // 这样可以让用户知道，此时下面调用 put() 方法是对该集合中原先的值进行覆盖操作
-                    if (this.pathControllerMethodMap.containsKey(requestPathInfo)) {
-                        log.warn("duplicate url:{} registration，current class {} method{} will override the former one",
-                                requestPathInfo.getHttpPath(), requestMappingClass.getName(), method.getName());
-                    }
-
-                    // 创建 ControllerMethod 类实例
-                    ControllerMethod controllerMethod = new ControllerMethod(requestMappingClass, method, methodParams);
-
-                    // 把 RequestPathInfo 类实例和 ControllerMethod 类实例放置到映射表（即集合 pathControllerMethodMap）里
-                    this.pathControllerMethodMap.put(requestPathInfo, controllerMethod);
+                // 获取该方法上的 @RequestingMapping 注解
+                RequestMapping methodRequest = method.getAnnotation(RequestMapping.class);
+
+                String methodPath = methodRequest.value();
+                if (!methodPath.startsWith("/")) {
+                    methodPath = "/" + methodPath;
                 }
+
+                // 把加在 Controller 类上的 @RequestMapping 注解中的路径和加在该方法上的 @RequestMapping 注解中的路径拼接起来
+                String url = basePath + methodPath;
+
+                // 调用下面定义的 registerControllerMethod() 方法，把该方法注册到映射表（即集合 pathControllerMethodMap）里
+                registerControllerMethod(beanContainer, controllerMethodMap, new RequestPathInfo(String.valueOf(methodRequest.method()), url), requestMappingClass, method);
             }
         }
 
     }
 
+    /**
+     * 该方法用于把 Controller 类中的一个方法注册到映射表（即集合 pathControllerMethodMap）里
+     *
+     * @param beanContainer       Controller 实例所在的 Bean 容器
+     * @param controllerMethodMap 映射表
+     * @param requestPathInfo     该方法所对应的请求方法和请求路径
+     * @param requestMappingClass 该方法所在的 Controller 类
+     * @param method              该方法所对应的 Method 类对象
+     */
+    private void registerControllerMethod(BeanContainer beanContainer, Map<RequestPathInfo, ControllerMethod> controllerMethodMap,
+                                          RequestPathInfo requestPathInfo, Class<?> requestMappingClass, Method method) {
+        // 3. 解析该方法里被 @RequestParam 注解标记的形参
+        //    然后
+        //    把该注解的属性值作为 Key，把该形参的数据类型对应的 Class 类对象作为 Value，存放到集合中
+        Map<String, Class<?>> methodParams = new HashMap<>();
+
+        // 获取该方法中所有的形参（从 ClassMetadata 缓存中获取）
+        List<Parameter> parameters = ClassMetadata.of(requestMappingClass).getParameters(method);
+
+        if (!ValidationUtil.isEmpty(parameters)) {
+
+            // 遍历上面获取的所有形参
+            for (Parameter parameter : parameters) {
+                // 获取该形参上的 @RequestParam 注解
+                RequestParam param = parameter.getAnnotation(RequestParam.class);
+
+                // 判断变量 param 是否为空（即判断该形参是否加了 @RequestParam 注解）
+                if (param == null) {
+                    // 由于
+                    // 目前暂定为 Controller 类中的方法里面所有的参数都需要 @RequestParam 注解
+                    // 所以
+                    // 一旦有形参没加该注解，就抛出异常
+                    throw new RuntimeException("The parameter must have @RequestParam");
+                }
+
+                // 把 @RequestParam 注解的属性值作为 Key，把该形参的数据类型对应的 Class 类对象作为 Value，存放到集合中
+                methodParams.put(param.value(), parameter.getType());
+            }
+        }
+
+        // 4. 将上面几步获取到的信息封装成 ControllerMethod 类实例
+        //    然后和 RequestPathInfo 类实例一起放置到映射表（即集合 pathControllerMethodMap）里
+
+        // 判断当前集合 pathControllerMethodMap 中是否有以该 RequestPathInfo 类对象为 Key 的键值对
+        // 有就打印一个警告日志
+        // 这样可以让用户知道，此时下面调用 put() 方法是对该集合中原先的值进行覆盖操作
+        if (controllerMethodMap.containsKey(requestPathInfo)) {
+            log.warn("duplicate url:{} registration，current class {} method{} will override the former one",
+                    requestPathInfo.getHttpPath(), requestMappingClass.getName(), method.getName());
+        }
+
+        // 创建 ControllerMethod 类实例（同时保存该 Controller 类在 IOC 容器中对应的实例）
+        // 这里为了防止该方法是私有的，要设置一下该方法的访问权限（只需要在构建映射表时设置一次即可）
+        method.setAccessible(true);
+        ControllerMethod controllerMethod = new ControllerMethod(requestMappingClass, method, methodParams,
+                beanContainer.getBeanReference(requestMappingClass, requestMappingClass));
+
+        // 把 RequestPathInfo 类实例和 ControllerMethod 类实例放置到映射表（即集合 pathControllerMethodMap）里
+        controllerMethodMap.put(requestPathInfo, controllerMethod);
+    }
+
+    /**
+     * 根据新的 IOC 容器重新构建映射表（即集合 pathControllerMethodMap）
+     * 即
+     * 热加载发布了下一代 IOC 容器之后，根据新容器中所有的 Controller 类构建一个全新的映射表，然后整体替换掉旧的映射表
+     * 这样
+     * 新的请求会使用新的映射表，而正在处理中的请求仍然会使用旧的映射表（以及旧的 Controller 实例）处理完毕
+     *
+     * @param beanContainer 新的 IOC 容器
+     */
+    public void refresh(BeanContainer beanContainer) {
+        Map<RequestPathInfo, ControllerMethod> controllerMethodMap = new ConcurrentHashMap<>();
+        initPathControllerMethodMap(beanContainer, controllerMethodMap, beanContainer.getClassesByAnnotation(RequestMapping.class));
+        this.beanContainer = beanContainer;
+        this.pathControllerMethodMap = controllerMethodMap;
+
+        log.info("route table refreshed, {} routes", controllerMethodMap.size());
+    }
+
+    /**
+     * 设置请求样例记录器
+     *
+     * @param requestRecorder 请求样例记录器
+     */
+    public void setRequestRecorder(RequestRecorder requestRecorder) {
+        this.requestRecorder = requestRecorder;
+    }
+
+    /**
+     * 获取当前的映射表（即集合 pathControllerMethodMap）的只读视图（以便分析路由表所占用的内存）
+     *
+     * @return 映射表
+     */
+    public Map<RequestPathInfo, ControllerMethod> getRouteTable() {
+        return Collections.unmodifiableMap(pathControllerMethodMap);
+    }
+
+    /**
+     * 获取映射表（即集合 pathControllerMethodMap）中的所有路由（以便生成容器快照时记录下来）
+     *
+     * @return 路由集合
+     */
+    public List<ContainerSnapshot.Route> getRoutes() {
+        List<ContainerSnapshot.Route> routeList = new ArrayList<>();
+        for (Map.Entry<RequestPathInfo, ControllerMethod> entry : pathControllerMethodMap.entrySet()) {
+            Method method = entry.getValue().getInvokeMethod();
+            List<String> parameterTypeNames = new ArrayList<>();
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                parameterTypeNames.add(parameterType.getName());
+            }
+            routeList.add(new ContainerSnapshot.Route(entry.getKey().getHttpMethod(), entry.getKey().getHttpPath(),
+                    entry.getValue().getControllerClass().getName(), method.getName(), parameterTypeNames));
+        }
+        return routeList;
+    }
+
+    /**
+     * 获取映射表中所有加了 @Warmup 注解的路由（即可以在预热时重放的路由）
+     *
+     * @return 路由（即 请求方法 + 请求路径）集合
+     */
+    public Set<String> getWarmupRouteKeys() {
+        return collectWarmupRouteKeys(false);
+    }
+
+    /**
+     * 获取映射表中所有开启了请求参数记录的路由（即 @Warmup(recordParameters = true) 的路由）
+     *
+     * @return 路由（即 请求方法 + 请求路径）集合
+     */
+    public Set<String> getRecordableRouteKeys() {
+        return collectWarmupRouteKeys(true);
+    }
+
+    private Set<String> collectWarmupRouteKeys(boolean recordParametersOnly) {
+        Set<String> routeKeySet = new HashSet<>();
+        for (Map.Entry<RequestPathInfo, ControllerMethod> entry : pathControllerMethodMap.entrySet()) {
+            Warmup warmup = entry.getValue().getInvokeMethod().getAnnotation(Warmup.class);
+            if (warmup != null && (!recordParametersOnly || warmup.recordParameters())) {
+                routeKeySet.add(entry.getKey().getHttpMethod() + " " + entry.getKey().getHttpPath());
+            }
+        }
+        return routeKeySet;
+    }
+
     /**
      * 实现 RequestProcessor 接口中的 process() 方法，该方法的功能如下
      *
@@ -216,6 +393,14 @@ public class ControllerRequestProcessor implements RequestProcessor {
             return false;
         }
 
+        // 记录该路由的请求样例（以便下次启动时预热），只有显式开启了记录的路由才会把请求参数记录下来
+        if (requestRecorder != null) {
+            Warmup warmup = controllerMethod.getInvokeMethod().getAnnotation(Warmup.class);
+            if (warmup != null && warmup.recordParameters()) {
+                requestRecorder.record(method, path, requestProcessorChain.getRequest());
+            }
+        }
+
         // 3. 解析请求参数（该请求参数可以是 GET 请求参数和 POST 请求中，键值对形式的请求参数）
         //    并通过调用封装在该 ControllerMethod 类对象中的方法（即与该请求相匹配的 Controller 类中的方法）来处理该请求
         Object result = invokeControllerMethod(controllerMethod, requestProcessorChain.getRequest());
@@ -327,15 +512,12 @@ public class ControllerRequestProcessor implements RequestProcessor {
 
         // 3. 通过反射执行该 Controller 类中的方法并获取返回结果
 
-        // 通过封装在 ControllerMethod 类中的该方法所在 Controller 类的 Class 类对象，或者该类在 IOC 容器中对应的实例
-        Object controller = beanContainer.getBean(controllerMethod.getControllerClass());
+        // 获取封装在 ControllerMethod 类中的该方法所在 Controller 类在 IOC 容器中对应的实例
+        Object controller = controllerMethod.getController();
 
-        // 获取封装在 ControllerMethod 类中的该方法所对应的 Method 类对象
+        // 获取封装在 ControllerMethod 类中的该方法所对应的 Method 类对象（构建映射表时已经设置过访问权限了）
         Method invokeMethod = controllerMethod.getInvokeMethod();
 
-        // 这里为了防止该方法是私有的，这里要设置以下该方法的访问权限
-        invokeMethod.setAccessible(true);
-
         Object result;
 
         try {
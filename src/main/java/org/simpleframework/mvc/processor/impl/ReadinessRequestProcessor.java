@@ -0,0 +1,43 @@
+package org.simpleframework.mvc.processor.impl;
+
+import org.simpleframework.mvc.RequestProcessorChain;
+import org.simpleframework.mvc.processor.RequestProcessor;
+import org.simpleframework.mvc.render.DefaultResultRender;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 该 RequestProcessor 接口实现类用于处理就绪检查请求（如 负载均衡器或者 Kubernetes 的 readinessProbe 发送的请求）
+ * 即
+ * 实例已经就绪（即 预热完成）时返回 200，否则返回 503
+ */
+public class ReadinessRequestProcessor implements RequestProcessor {
+    // 就绪检查的请求路径
+    private final String readinessPath;
+    // 判断实例是否已经就绪
+    private final BooleanSupplier readiness;
+
+    public ReadinessRequestProcessor(String readinessPath, BooleanSupplier readiness) {
+        this.readinessPath = readinessPath;
+        this.readiness = readiness;
+    }
+
+    /**
+     * 实现 process() 方法，请求路径与就绪检查的请求路径相同时直接设置响应状态码，并不再交给后面的请求处理器处理
+     *
+     * @param requestProcessorChain
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public boolean process(RequestProcessorChain requestProcessorChain) throws Exception {
+        if (!readinessPath.equals(requestProcessorChain.getRequestPath())) {
+            return true;
+        }
+        requestProcessorChain.setResponseCode(readiness.getAsBoolean()
+                ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        requestProcessorChain.setResultRender(new DefaultResultRender());
+        return false;
+    }
+}
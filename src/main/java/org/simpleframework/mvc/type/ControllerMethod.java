@@ -29,4 +29,8 @@ public class ControllerMethod {
     // 我们这里规定方法的形参只能是 String 以及基础类型 char,int,short,byte,double,long,float,boolean,及它们的包装类型
     //（这样我们之后对客户端传来的 String 类型的请求参数进行转化时就会方便不少）
     private Map<String, Class<?>> methodParameters;
+    // 该方法所在的 Controller 类在 IOC 容器中对应的实例（构建映射表时就确定下来，这样处理请求时就不需要再从 IOC 容器中获取了）
+    // 注意
+    // 热加载替换了该 Controller 类之后，正在处理中的请求仍然会使用这里保存的旧实例处理完毕
+    private Object controller;
 }
@@ -0,0 +1,127 @@
+package org.simpleframework.mvc.warmup;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * 该类用于创建预热时使用的 HttpServletRequest 和 HttpServletResponse 类对象
+ * 即
+ * 通过 JDK 动态代理实现这两个接口，只实现请求处理器链以及渲染器会用到的那些方法，其他方法都返回默认值
+ * 注意
+ * 响应的内容会被直接丢弃，转发（如 转发到 JSP）也不会真正执行
+ */
+class MockServletObjects {
+    private MockServletObjects() {
+    }
+
+    /**
+     * 根据预热请求创建 HttpServletRequest 类对象
+     *
+     * @param warmupRequest 预热请求
+     * @return HttpServletRequest 类对象
+     */
+    static HttpServletRequest createRequest(WarmupRequest warmupRequest) {
+        Map<String, String[]> parameterMap = new HashMap<>();
+        if (warmupRequest.getParameters() != null) {
+            warmupRequest.getParameters().forEach((key, value) -> parameterMap.put(key, new String[]{value}));
+        }
+        Map<String, Object> attributeMap = new HashMap<>();
+        attributeMap.put(WarmupRunner.WARMUP_ATTRIBUTE, Boolean.TRUE);
+        return (HttpServletRequest) Proxy.newProxyInstance(MockServletObjects.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMethod":
+                            return warmupRequest.getHttpMethod();
+                        case "getPathInfo":
+                        case "getRequestURI":
+                            return warmupRequest.getPath();
+                        case "getServletPath":
+                        case "getContextPath":
+                            return "";
+                        case "getParameterMap":
+                            return Collections.unmodifiableMap(parameterMap);
+                        case "getParameter":
+                            String[] values = parameterMap.get(args[0]);
+                            return values == null ? null : values[0];
+                        case "getParameterNames":
+                            return Collections.enumeration(parameterMap.keySet());
+                        case "getAttribute":
+                            return attributeMap.get(args[0]);
+                        case "setAttribute":
+                            attributeMap.put((String) args[0], args[1]);
+                            return null;
+                        case "removeAttribute":
+                            attributeMap.remove(args[0]);
+                            return null;
+                        case "getRequestDispatcher":
+                            return createRequestDispatcher();
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * 创建一个会丢弃所有响应内容的 HttpServletResponse 类对象
+     *
+     * @return HttpServletResponse 类对象
+     */
+    static HttpServletResponse createResponse() {
+        PrintWriter writer = new PrintWriter(Writer.nullWriter());
+        ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+        };
+        return (HttpServletResponse) Proxy.newProxyInstance(MockServletObjects.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWriter":
+                            return writer;
+                        case "getOutputStream":
+                            return outputStream;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static RequestDispatcher createRequestDispatcher() {
+        return (RequestDispatcher) Proxy.newProxyInstance(MockServletObjects.class.getClassLoader(),
+                new Class<?>[]{RequestDispatcher.class}, (proxy, method, args) -> null);
+    }
+
+    /**
+     * 获取没有实现的方法的默认返回值（返回值为基本数据类型时不能返回 null，否则代理类会抛出 NullPointerException）
+     */
+    private static Object defaultValue(Class<?> returnType) {
+        if (returnType == boolean.class) {
+            return false;
+        } else if (returnType == int.class) {
+            return 0;
+        } else if (returnType == long.class) {
+            return 0L;
+        } else if (returnType == Enumeration.class) {
+            return Collections.emptyEnumeration();
+        } else if (returnType == Collection.class) {
+            return Collections.emptyList();
+        }
+        return null;
+    }
+}
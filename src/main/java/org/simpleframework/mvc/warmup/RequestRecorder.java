@@ -0,0 +1,136 @@
+package org.simpleframework.mvc.warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 该类用于记录线上真实的请求样例，以便下次启动时作为预热请求重放
+ * 即
+ * 每条路由（即 请求方法 + 请求路径）只记录它第一次被请求时的请求参数，Servlet 销毁时把记录下来的样例保存到工作目录下
+ * 这样
+ * 下次启动时，那些需要请求参数的路由也能用真实的请求参数进行预热
+ *
+ * 注意
+ * 1. 为了避免记录过多的样例，最多只会记录 MAX_RECORDS 条路由的样例
+ * 2. 请求参数会以明文保存，因此只会记录显式开启了记录的路由（即 @Warmup(recordParameters = true) 的方法，见 ControllerRequestProcessor）
+ */
+@Slf4j
+public class RequestRecorder {
+    // 样例文件的文件名（classpath 下的同名文件中的样例为手动声明的样例）
+    public static final String REQUESTS_FILE_NAME = "warmup-requests.json";
+    // 最多记录的路由数量
+    private static final int MAX_RECORDS = 256;
+
+    // Key 为路由（即 请求方法 + 请求路径），Value 为该路由的请求样例
+    private final Map<String, WarmupRequest> recordMap = new ConcurrentHashMap<>();
+    // 工作目录（为 null 时不会保存样例）
+    private final File workDirectory;
+
+    public RequestRecorder(File workDirectory) {
+        this.workDirectory = workDirectory;
+    }
+
+    /**
+     * 记录一个请求（该路由已经有样例，或者该请求本身就是预热请求时什么都不做）
+     *
+     * @param httpMethod 请求方法
+     * @param path       请求路径
+     * @param request    HttpServletRequest 类对象
+     */
+    public void record(String httpMethod, String path, HttpServletRequest request) {
+        String routeKey = httpMethod + " " + path;
+        if (recordMap.size() >= MAX_RECORDS || recordMap.containsKey(routeKey)
+                || request.getAttribute(WarmupRunner.WARMUP_ATTRIBUTE) != null) {
+            return;
+        }
+        Map<String, String> parameters = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+            if (entry.getValue() != null && entry.getValue().length > 0) {
+                parameters.put(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+        recordMap.putIfAbsent(routeKey, new WarmupRequest(httpMethod, path, parameters));
+    }
+
+    /**
+     * 获取记录下来的所有请求样例
+     *
+     * @return 请求样例
+     */
+    public List<WarmupRequest> getRecords() {
+        return new ArrayList<>(recordMap.values());
+    }
+
+    /**
+     * 读取上一次保存在工作目录下的请求样例
+     *
+     * @param recordableRouteKeys 当前开启了记录的路由（其他路由的样例会被丢弃，也不会再被保存）
+     * @return 请求样例，没有保存过或者读取失败时返回空集合
+     */
+    public List<WarmupRequest> load(Set<String> recordableRouteKeys) {
+        if (workDirectory == null) {
+            return Collections.emptyList();
+        }
+        File requestsFile = new File(workDirectory, REQUESTS_FILE_NAME);
+        if (!requestsFile.isFile()) {
+            return Collections.emptyList();
+        }
+        try (Reader reader = Files.newBufferedReader(requestsFile.toPath(), StandardCharsets.UTF_8)) {
+            List<WarmupRequest> requestList = parse(reader);
+            // 上一次运行之后关闭了记录的路由（或者旧版本记录下来的路由）的样例直接丢弃
+            requestList.removeIf(request -> !recordableRouteKeys.contains(request.routeKey()));
+            requestList.forEach(request -> recordMap.putIfAbsent(request.routeKey(), request));
+            return requestList;
+        } catch (IOException | JsonParseException e) {
+            log.warn("discard unreadable warmup requests {}: {}", requestsFile, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 把记录下来的请求样例保存到工作目录下
+     */
+    public void save() {
+        if (workDirectory == null || recordMap.isEmpty()) {
+            return;
+        }
+        File requestsFile = new File(workDirectory, REQUESTS_FILE_NAME);
+        try {
+            Files.createDirectories(workDirectory.toPath());
+            // 先写入临时文件，再重命名，以免留下一个不完整的样例文件
+            File tempFile = new File(workDirectory, REQUESTS_FILE_NAME + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(getRecords(), writer);
+            }
+            Files.move(tempFile.toPath(), requestsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("unable to save warmup requests {}: {}", requestsFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析 JSON 格式的请求样例（即 WarmupRequest 数组）
+     *
+     * @param reader 输入流
+     * @return 请求样例
+     */
+    static List<WarmupRequest> parse(Reader reader) {
+        List<WarmupRequest> requestList = new Gson().fromJson(reader, new TypeToken<List<WarmupRequest>>() {
+        }.getType());
+        return requestList == null ? new ArrayList<>() : requestList;
+    }
+}
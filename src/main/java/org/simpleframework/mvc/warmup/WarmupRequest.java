@@ -0,0 +1,31 @@
+package org.simpleframework.mvc.warmup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 该类是对一个预热请求（即启动之后，对外提供服务之前重放的样例请求）的封装
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarmupRequest {
+    // 请求方法（如 GET，POST）
+    private String httpMethod;
+    // 请求路径（即 URI）
+    private String path;
+    // 请求参数
+    private Map<String, String> parameters;
+
+    /**
+     * 获取该请求所对应的路由的 Key（即 请求方法 + 请求路径）
+     *
+     * @return 路由的 Key
+     */
+    String routeKey() {
+        return httpMethod + " " + path;
+    }
+}
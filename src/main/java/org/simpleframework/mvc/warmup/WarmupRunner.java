@@ -0,0 +1,162 @@
+package org.simpleframework.mvc.warmup;
+
+import com.google.gson.JsonParseException;
+import lombok.extern.slf4j.Slf4j;
+import org.simpleframework.core.snapshot.ContainerSnapshot;
+import org.simpleframework.mvc.RequestProcessorChain;
+import org.simpleframework.mvc.processor.RequestProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 该类用于在对外提供服务之前对所有路由进行预热
+ * 即
+ * 启动完成之后，在一个后台线程中把请求样例通过真实的请求处理器链（即 RequestProcessorChain）重放若干次
+ * 这样
+ * 反射调用，JSON 序列化，以及 JIT 编译等第一次请求时才会发生的开销都会在预热阶段完成
+ * 预热完成之前，就绪检查（见 ReadinessRequestProcessor）会返回 503，以便负载均衡器不会把流量转发到该实例上
+ *
+ * 请求样例的来源依次为
+ * 1. classpath 下 warmup-requests.json 文件中手动声明的样例
+ * 2. 上一次运行时记录下来的线上真实请求的样例（见 RequestRecorder，只有加了 @Warmup 注解的路由的样例才会被重放）
+ * 3. 对于加了 @Warmup 注解但还没有样例的路由，自动生成一个不带请求参数的样例
+ *（注意，不会根据请求方法自动预热其他路由，因为 GET 请求也可能有副作用，如 GET /headline/remove）
+ */
+@Slf4j
+public class WarmupRunner {
+    // 预热请求的 HttpServletRequest 中会带上该属性，以便 RequestRecorder 不会把预热请求也记录下来
+    public static final String WARMUP_ATTRIBUTE = "simpleframework.warmup";
+
+    // 请求处理器
+    private final List<RequestProcessor> processorList;
+    // 请求样例
+    private final List<WarmupRequest> requestList;
+    // 每个请求样例重放的次数
+    private final int iterations;
+    // 是否已经预热完成
+    private volatile boolean ready;
+
+    public WarmupRunner(List<RequestProcessor> processorList, List<WarmupRequest> requestList, int iterations) {
+        this.processorList = processorList;
+        this.requestList = requestList;
+        this.iterations = iterations;
+        this.ready = iterations <= 0 || requestList.isEmpty();
+    }
+
+    /**
+     * 根据路由表以及各来源的请求样例，确定最终需要重放的请求样例（每条路由只保留一个样例）
+     * 注意
+     * 手动声明的样例总是会被重放，而记录下来的样例以及自动生成的样例只会用于加了 @Warmup 注解的路由
+     *
+     * @param routes          路由表
+     * @param warmupRouteKeys 加了 @Warmup 注解的路由（即 请求方法 + 请求路径）
+     * @param declared        手动声明的样例
+     * @param recorded        记录下来的样例
+     * @return 请求样例
+     */
+    public static List<WarmupRequest> collectRequests(List<ContainerSnapshot.Route> routes, Set<String> warmupRouteKeys,
+                                                      List<WarmupRequest> declared, List<WarmupRequest> recorded) {
+        Set<String> routeKeySet = new HashSet<>();
+        for (ContainerSnapshot.Route route : routes) {
+            routeKeySet.add(route.getHttpMethod() + " " + route.getHttpPath());
+        }
+        Map<String, WarmupRequest> requestMap = new LinkedHashMap<>();
+        for (List<WarmupRequest> source : Arrays.asList(declared, recorded)) {
+            for (WarmupRequest request : source) {
+                // 没有加 @Warmup 注解的路由重放时可能会产生副作用，它们记录下来的样例直接忽略
+                if (source == recorded && !warmupRouteKeys.contains(request.routeKey())) {
+                    continue;
+                }
+                // 路由已经不存在了（如 Controller 类中的方法被删除了）的样例直接忽略
+                if (routeKeySet.contains(request.routeKey())) {
+                    requestMap.putIfAbsent(request.routeKey(), request);
+                }
+            }
+        }
+        for (ContainerSnapshot.Route route : routes) {
+            if (warmupRouteKeys.contains(route.getHttpMethod() + " " + route.getHttpPath())) {
+                requestMap.putIfAbsent(route.getHttpMethod() + " " + route.getHttpPath(),
+                        new WarmupRequest(route.getHttpMethod(), route.getHttpPath(), Collections.emptyMap()));
+            }
+        }
+        return new ArrayList<>(requestMap.values());
+    }
+
+    /**
+     * 读取 classpath 下手动声明的请求样例
+     *
+     * @param classLoader 类加载器
+     * @return 请求样例，没有声明时返回空集合
+     */
+    public static List<WarmupRequest> loadDeclaredRequests(ClassLoader classLoader) {
+        InputStream inputStream = classLoader.getResourceAsStream(RequestRecorder.REQUESTS_FILE_NAME);
+        if (inputStream == null) {
+            return Collections.emptyList();
+        }
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            return RequestRecorder.parse(reader);
+        } catch (IOException | JsonParseException e) {
+            log.warn("discard unreadable declared warmup requests: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 在一个后台线程中开始预热（没有需要重放的请求时直接视为已经预热完成）
+     */
+    public void start() {
+        if (ready) {
+            log.info("warmup skipped, instance is ready");
+            return;
+        }
+        Thread thread = new Thread(this::run, "warmup");
+        thread.setDaemon(true);
+        // 后台线程的上下文类加载器要与当前 Web 应用的类加载器一致
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.start();
+    }
+
+    /**
+     * 把所有请求样例依次重放 iterations 次，然后标记为预热完成
+     *（单个请求处理失败只会打印日志，不会中断预热）
+     */
+    void run() {
+        long start = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < iterations; i++) {
+                for (WarmupRequest warmupRequest : requestList) {
+                    replay(warmupRequest);
+                }
+            }
+        } finally {
+            ready = true;
+            log.info("warmup finished, {} requests x {} iterations in {}ms, instance is ready",
+                    requestList.size(), iterations, System.currentTimeMillis() - start);
+        }
+    }
+
+    private void replay(WarmupRequest warmupRequest) {
+        try {
+            RequestProcessorChain requestProcessorChain = new RequestProcessorChain(processorList.iterator(),
+                    MockServletObjects.createRequest(warmupRequest), MockServletObjects.createResponse());
+            requestProcessorChain.doRequestProcessorChain();
+            requestProcessorChain.doRender();
+        } catch (Exception e) {
+            log.warn("warmup request {} failed: {}", warmupRequest.routeKey(), e.toString());
+        }
+    }
+
+    /**
+     * 判断是否已经预热完成
+     *
+     * @return 是否已经预热完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+}
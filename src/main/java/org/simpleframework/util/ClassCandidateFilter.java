@@ -0,0 +1,153 @@
+package org.simpleframework.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 该类用于在扫描过程中判断哪些类需要被加载
+ * 即
+ * 直接读取 .class 文件的字节，判断该类上是否加了指定的注解
+ * 同时
+ * 如果启用了扫描缓存，那么对于指纹没有变化的文件，就直接使用上一次的判断结果，而不需要再去读取它的字节
+ * 另外
+ * 如果设置了包的 include/exclude 规则，那么被排除的包所对应的文件夹就不会再被遍历了
+ */
+@Slf4j
+class ClassCandidateFilter {
+    private static final String CANDIDATE = "1";
+    private static final String NOT_CANDIDATE = "0";
+
+    // 注解的类型描述符集合（为 null 时表示不进行筛选，即所有类都需要被加载）
+    private final Set<String> annotationDescriptors;
+    // 扫描缓存（为 null 时表示不使用缓存）
+    private final ScanCache scanCache;
+    // 由包的 include/exclude 规则编译而成的前缀树（为 null 时表示不按包进行过滤）
+    private final PackageTrie packageTrie;
+
+    ClassCandidateFilter(String packageName, Set<String> annotationDescriptors, PackageTrie packageTrie) {
+        this.annotationDescriptors = annotationDescriptors;
+        this.packageTrie = packageTrie;
+        // 只有需要读取字节进行筛选时，缓存才有意义
+        //（jar 包是按包过滤之后再整体缓存的，因此不同的过滤规则要使用不同的缓存）
+        this.scanCache = annotationDescriptors == null ? null
+                : ScanCache.open(packageTrie == null ? packageName : packageName + packageTrie, annotationDescriptors);
+    }
+
+    /**
+     * 判断是否需要遍历指定包所对应的文件夹
+     *
+     * @param packageName 包名
+     * @return 是否需要遍历
+     */
+    boolean acceptDirectory(String packageName) {
+        return packageTrie == null || packageTrie.shouldDescend(packageName);
+    }
+
+    /**
+     * 判断指定包下的类是否需要被扫描
+     *
+     * @param packageName 包名
+     * @return 是否需要被扫描
+     */
+    boolean acceptPackage(String packageName) {
+        return packageTrie == null || packageTrie.accept(packageName);
+    }
+
+    /**
+     * 判断 .class 文件所对应的类是否需要被加载
+     *
+     * @param classFile .class 文件
+     * @return 是否需要被加载
+     */
+    boolean accept(File classFile) {
+        if (annotationDescriptors == null) {
+            return true;
+        }
+        if (scanCache != null) {
+            String cached = scanCache.lookup(classFile);
+            if (cached != null) {
+                return CANDIDATE.equals(cached);
+            }
+        }
+        boolean candidate;
+        try {
+            candidate = ClassFileAnnotationReader.hasAnyAnnotation(Files.readAllBytes(classFile.toPath()), annotationDescriptors);
+        } catch (IOException e) {
+            log.error("read class file error:", e);
+            throw new RuntimeException(e);
+        }
+        if (scanCache != null) {
+            scanCache.record(classFile, candidate ? CANDIDATE : NOT_CANDIDATE);
+        }
+        return candidate;
+    }
+
+    /**
+     * 获取 jar 包中需要被加载的类的全类名
+     * 由于 jar 包是作为一个整体被替换的，因此这里以整个 jar 包为单位进行缓存
+     *
+     * @param jarFile  jar 包
+     * @param scanner  该 jar 包的扫描器
+     * @param entries  该 jar 包中按包名前缀筛选出的候选条目
+     * @param parallel 是否并行解压并判断
+     * @return 全类名集合
+     */
+    List<String> accept(File jarFile, JarClassScanner scanner, List<JarClassScanner.JarClassEntry> entries, boolean parallel) {
+        // 先按包过滤掉被排除的条目，这样这些条目就不需要被解压了
+        if (packageTrie != null) {
+            entries = entries.stream().filter(entry -> packageTrie.acceptClass(entry.getClassName())).collect(Collectors.toList());
+        }
+        if (annotationDescriptors == null) {
+            return entries.stream().map(JarClassScanner.JarClassEntry::getClassName).collect(Collectors.toList());
+        }
+        if (scanCache != null) {
+            String cached = scanCache.lookup(jarFile);
+            if (cached != null) {
+                return cached.isEmpty() ? new ArrayList<>() : Arrays.asList(cached.split(","));
+            }
+        }
+        // 只解压这些候选的 .class 文件，判断它们是否加了指定的注解
+        List<String> classNameList = (parallel ? entries.parallelStream() : entries.stream())
+                .filter(entry -> isAnnotatedEntry(scanner, entry))
+                .map(JarClassScanner.JarClassEntry::getClassName)
+                .collect(Collectors.toList());
+        if (scanCache != null) {
+            scanCache.record(jarFile, String.join(",", classNameList));
+        }
+        return classNameList;
+    }
+
+    /**
+     * 判断 jar 包中的条目是否加了指定的注解
+     * 注意
+     * 条目不完整（如 jar 包被截断）时无法根据字节进行判断，这时就把它当作候选类，交给类加载器去加载（加载失败时会报告真正的错误）
+     * 而不是根据残缺的字节把它筛选掉
+     */
+    private boolean isAnnotatedEntry(JarClassScanner scanner, JarClassScanner.JarClassEntry entry) {
+        byte[] classBytes;
+        try {
+            classBytes = scanner.readEntryBytes(entry);
+        } catch (RuntimeException e) {
+            log.warn("unable to read {} from jar, loading it without pre-filtering: {}", entry.getClassName(), e.getMessage());
+            return true;
+        }
+        return ClassFileAnnotationReader.hasAnyAnnotation(classBytes, annotationDescriptors);
+    }
+
+    /**
+     * 扫描结束后把本次的扫描结果保存到缓存中
+     */
+    void finish() {
+        if (scanCache != null) {
+            scanCache.save();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.simpleframework.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 该类用于直接从 .class 文件的字节中读取类上面的注解
+ * 即
+ * 解析 class 文件的常量池以及类级别的 RuntimeVisibleAnnotations 属性，获取类上所有运行时可见注解的类型描述符
+ * 这样
+ * 不需要通过 Class.forName() 加载该类（也就不会执行它的静态初始化代码），就能判断该类是否加了某个注解
+ */
+@Slf4j
+public class ClassFileAnnotationReader {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    /**
+     * 把注解的 Class 类对象转换成 class 文件中使用的类型描述符（如 Lorg/simpleframework/core/annotation/Component;）
+     *
+     * @param annotations 注解集合
+     * @return 类型描述符集合
+     */
+    public static Set<String> toDescriptors(Collection<Class<? extends Annotation>> annotations) {
+        Set<String> descriptorSet = new HashSet<>();
+        for (Class<? extends Annotation> annotation : annotations) {
+            descriptorSet.add("L" + annotation.getName().replace(".", "/") + ";");
+        }
+        return descriptorSet;
+    }
+
+    /**
+     * 判断 class 文件所对应的类上是否加了指定注解中的任意一个
+     *
+     * @param classBytes  class 文件的字节
+     * @param descriptors 注解的类型描述符集合
+     * @return 是否加了其中任意一个注解
+     */
+    public static boolean hasAnyAnnotation(byte[] classBytes, Set<String> descriptors) {
+        for (String descriptor : readClassAnnotations(classBytes)) {
+            if (descriptors.contains(descriptor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取 class 文件所对应的类上所有运行时可见注解的类型描述符
+     *
+     * @param classBytes class 文件的字节
+     * @return 类型描述符集合
+     */
+    public static Set<String> readClassAnnotations(byte[] classBytes) {
+        Set<String> descriptorSet = new HashSet<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(classBytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new RuntimeException("not a valid class file");
+            }
+            // 跳过 minor_version 和 major_version
+            in.skipBytes(4);
+
+            // 1. 读取常量池，这里只保存 CONSTANT_Utf8 类型的常量（属性名和注解的类型描述符都是 CONSTANT_Utf8 类型的常量）
+            String[] utf8Pool = readConstantPool(in);
+
+            // 2. 跳过 access_flags，this_class，super_class 以及 interfaces
+            in.skipBytes(6);
+            in.skipBytes(in.readUnsignedShort() * 2);
+
+            // 3. 跳过所有的字段和方法（它们的结构是相同的）
+            skipMembers(in);
+            skipMembers(in);
+
+            // 4. 遍历类级别的属性，找到 RuntimeVisibleAnnotations 属性，并读取其中每个注解的类型描述符
+            int attributeCount = in.readUnsignedShort();
+            for (int i = 0; i < attributeCount; i++) {
+                String attributeName = utf8Pool[in.readUnsignedShort()];
+                int attributeLength = in.readInt();
+                if (!RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                    in.skipBytes(attributeLength);
+                    continue;
+                }
+                int annotationCount = in.readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    descriptorSet.add(utf8Pool[in.readUnsignedShort()]);
+                    skipElementValuePairs(in);
+                }
+            }
+        } catch (IOException e) {
+            log.error("read class file error:", e);
+            throw new RuntimeException(e);
+        }
+        return descriptorSet;
+    }
+
+    private static String[] readConstantPool(DataInputStream in) throws IOException {
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8Pool = new String[constantPoolCount];
+        // 常量池的下标是从 1 开始的
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // CONSTANT_Utf8
+                    utf8Pool[i] = in.readUTF();
+                    break;
+                case 3: // CONSTANT_Integer
+                case 4: // CONSTANT_Float
+                case 9: // CONSTANT_Fieldref
+                case 10: // CONSTANT_Methodref
+                case 11: // CONSTANT_InterfaceMethodref
+                case 12: // CONSTANT_NameAndType
+                case 17: // CONSTANT_Dynamic
+                case 18: // CONSTANT_InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // CONSTANT_Long
+                case 6: // CONSTANT_Double
+                    // long 和 double 类型的常量会占用常量池中的两个位置
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                case 7: // CONSTANT_Class
+                case 8: // CONSTANT_String
+                case 16: // CONSTANT_MethodType
+                case 19: // CONSTANT_Module
+                case 20: // CONSTANT_Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // CONSTANT_MethodHandle
+                    in.skipBytes(3);
+                    break;
+                default:
+                    throw new RuntimeException("unknown constant pool tag: " + tag);
+            }
+        }
+        return utf8Pool;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int memberCount = in.readUnsignedShort();
+        for (int i = 0; i < memberCount; i++) {
+            // 跳过 access_flags，name_index，descriptor_index
+            in.skipBytes(6);
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                in.skipBytes(2);
+                in.skipBytes(in.readInt());
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            // 跳过 element_name_index
+            in.skipBytes(2);
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e': // 枚举常量
+                in.skipBytes(4);
+                break;
+            case '@': // 嵌套的注解
+                in.skipBytes(2);
+                skipElementValuePairs(in);
+                break;
+            case '[': // 数组
+                int valueCount = in.readUnsignedShort();
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue(in);
+                }
+                break;
+            default: // 基本类型，String 以及 Class
+                in.skipBytes(2);
+        }
+    }
+}
@@ -4,17 +4,41 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.JarURLConnection;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
 
 @Slf4j
 public class ClassUtil {
 
     public static final String FILE_PROTOCOL = "file";
+    public static final String JAR_PROTOCOL = "jar";
+
+    /**
+     * sun.misc.Unsafe 的 shouldBeInitialized() 方法（用于判断一个类是否还没有被初始化，当前 JVM 不支持时为 null）
+     *（这里通过反射获取，以免编译时依赖 JDK 的内部 API）
+     */
+    private static final MethodHandle SHOULD_BE_INITIALIZED = findShouldBeInitialized();
 
     /**
      * 获取指定包下的所有类
@@ -23,6 +47,62 @@ public class ClassUtil {
      * @return 该包下所有类的集合
      */
     public static Set<Class<?>> extractPackageClass(String packageName){
+        return extractPackageClass(packageName, false);
+    }
+
+    /**
+     * 获取指定包下的所有类
+     * 当 parallel 为 true 时，会把各个子文件夹拆分成 ForkJoin 任务，交给 ForkJoinPool 并行地遍历并加载其中的类
+     *（返回的结果与串行扫描时完全相同，只是此时的集合是线程安全的并发集合）
+     *
+     * @param packageName 包名
+     * @param parallel    是否并行扫描
+     * @return 该包下所有类的集合
+     */
+    public static Set<Class<?>> extractPackageClass(String packageName, boolean parallel){
+        return extractPackageClass(packageName, parallel, null);
+    }
+
+    /**
+     * 获取指定包下所有加了指定注解中任意一个的类
+     * 即
+     * 在加载类之前，先直接读取 .class 文件的字节，判断该类上是否加了这些注解，只有加了的类才会被加载
+     *（这样那些没加注解的类（如实体类，工具类）就不会被加载，它们的静态初始化代码也不会被执行）
+     *
+     * @param packageName 包名
+     * @param parallel    是否并行扫描
+     * @param annotations 注解集合（为 null 时表示不进行筛选，即加载该包下所有的类）
+     * @return 该包下所有符合条件的类的集合
+     */
+    public static Set<Class<?>> extractPackageClass(String packageName, boolean parallel,
+                                                    Collection<Class<? extends Annotation>> annotations){
+        return extractPackageClass(packageName, parallel, annotations, null);
+    }
+
+    /**
+     * 获取指定包下所有加了指定注解中任意一个，并且没有被包的 include/exclude 规则排除的类
+     * 即
+     * 被排除的包所对应的文件夹根本不会被遍历（jar 包中被排除的条目也不会被解压）
+     *
+     * @param packageName 包名
+     * @param parallel    是否并行扫描
+     * @param annotations 注解集合（为 null 时表示不进行筛选，即加载该包下所有的类）
+     * @param packageTrie 由包的 include/exclude 规则编译而成的前缀树（为 null 时表示不按包进行过滤）
+     * @return 该包下所有符合条件的类的集合
+     */
+    public static Set<Class<?>> extractPackageClass(String packageName, boolean parallel,
+                                                    Collection<Class<? extends Annotation>> annotations,
+                                                    PackageTrie packageTrie){
+        // 把注解转换成 class 文件中使用的类型描述符，以便之后与 .class 文件中读取到的注解进行比较
+        // 然后
+        // 创建 ClassCandidateFilter 类对象，在扫描时通过它来判断哪些类需要被加载（它会复用上一次启动时保存下来的扫描结果）
+        Set<String> annotationDescriptors = annotations == null ? null : ClassFileAnnotationReader.toDescriptors(annotations);
+        ClassCandidateFilter candidateFilter = new ClassCandidateFilter(packageName, annotationDescriptors, packageTrie);
+        if (!candidateFilter.acceptDirectory(packageName)) {
+            log.info("package {} is excluded from scanning", packageName);
+            return new HashSet<>();
+        }
+
         // 1.调用下面定义的 getClassLoader() 方法，获取到类的加载器（即 ClassLoader 类对象），以便获取该包的真实的绝对路径
         ClassLoader classLoader = getClassLoader();
 
@@ -44,28 +124,88 @@ public class ClassUtil {
 
         // 调用 URL 类中的 getProtocol() 方法，判断当前 URL 的协议是否是 file（即过滤出文件类型的资源）
         if (url.getProtocol().equalsIgnoreCase(FILE_PROTOCOL)){
-            classSet = new HashSet<Class<?>>();
-
             // 获取该 URL 所对应的 File 类对象，构造方法中传入通过调用 URL 类中的 getPath() 方法获取的该 URL 中所包含的对应文件的绝对路径
             File packageDirectory = new File(url.getPath());
 
-            // 调用下面定义的 extractClassFile() 方法，获取该包下的所有类
-            extractClassFile(classSet, packageDirectory, packageName);
+            if (parallel) {
+                // 并行扫描时，多个线程会同时往集合中添加元素，所以这里要使用线程安全的 Set 集合
+                classSet = ConcurrentHashMap.newKeySet();
+
+                // 从包所在的文件夹开始，把整个目录树交给 ForkJoinPool 进行并行扫描（invoke() 方法会等待所有子任务完成后才返回）
+                // 注意
+                // ForkJoinPool 中的线程的上下文类加载器不一定是当前 Web 应用的类加载器，因此这里要把当前线程的类加载器传给任务
+                ForkJoinPool.commonPool().invoke(new ClassFileScanTask(classSet, packageDirectory, packageName, candidateFilter, classLoader));
+            } else {
+                classSet = new HashSet<Class<?>>();
+
+                // 调用下面定义的 extractClassFile() 方法，获取该包下的所有类
+                extractClassFile(classSet, packageDirectory, packageName, candidateFilter);
+            }
+        }
+        // 如果是 jar 协议（即这些类被打包在 jar 包中，如 WEB-INF/lib 下的 jar 包），就通过读取 jar 包的中央目录来获取该包下的所有类
+        else if (url.getProtocol().equalsIgnoreCase(JAR_PROTOCOL)) {
+            classSet = parallel ? ConcurrentHashMap.newKeySet() : new HashSet<Class<?>>();
+
+            extractJarClass(classSet, url, packageName, parallel, candidateFilter, classLoader);
         }
-        //TODO 此处可以加入针对其他类型资源的处理
+
+        // 把本次的扫描结果保存到扫描缓存中，以便下次启动时复用
+        candidateFilter.finish();
 
         return classSet;
     }
 
+    /**
+     * 获取 jar 包中指定包下的所有类
+     *
+     * @param emptyClassSet 装载目标类的集合
+     * @param url           包所对应的 jar 协议的 URL（如 jar:file:/xxx/WEB-INF/lib/app.jar!/com/imooc）
+     * @param packageName   包名
+     * @param parallel      是否并行加载
+     * @param candidateFilter 用于判断哪些类需要被加载
+     * @param classLoader   用于加载这些类的类加载器
+     */
+    private static void extractJarClass(Set<Class<?>> emptyClassSet, URL url, String packageName, boolean parallel,
+                                        ClassCandidateFilter candidateFilter, ClassLoader classLoader) {
+        File jarFile;
+        try {
+            // 通过 JarURLConnection 获取 jar 包本身所对应的 URL（即去掉 !/ 及其后面的部分）
+            jarFile = new File(((JarURLConnection) url.openConnection()).getJarFileURL().toURI());
+        } catch (IOException | URISyntaxException e) {
+            log.error("resolve jar file error:", e);
+            throw new RuntimeException(e);
+        }
+
+        try (JarClassScanner scanner = new JarClassScanner(jarFile)) {
+            // 按包名前缀筛选出候选的 .class 文件（这一步只读取中央目录中的条目名，不需要解压任何条目）
+            // 然后
+            // 只解压这些候选的 .class 文件，判断它们是否加了指定的注解（jar 包没有变化时会直接复用上一次的判断结果）
+            List<JarClassScanner.JarClassEntry> entryList = scanner.getClassEntries(packageName);
+            List<String> classNameList = candidateFilter.accept(jarFile, scanner, entryList, parallel);
+            if (parallel) {
+                classNameList.parallelStream().forEach(className -> emptyClassSet.add(loadClass(className, classLoader)));
+            } else {
+                for (String className : classNameList) {
+                    emptyClassSet.add(loadClass(className));
+                }
+            }
+        } catch (IOException e) {
+            log.error("scan jar file error:", e);
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * 递归获取目标包里面的所有 .class 文件(包括子包里的 .class 文件)
      *
      * @param emptyClassSet 装载目标类的集合
      * @param fileSource    文件或者目录
      * @param packageName   包名
+     * @param candidateFilter 用于判断哪些类需要被加载
      * @return 类集合
      */
-    private static void extractClassFile(Set<Class<?>> emptyClassSet, File fileSource, String packageName) {
+    private static void extractClassFile(Set<Class<?>> emptyClassSet, File fileSource, String packageName,
+                                         ClassCandidateFilter candidateFilter) {
         // 调用 File 类中的 isDirectory() 方法，判断该 File 类对象是否是一个文件夹
         if(!fileSource.isDirectory()){
             return;
@@ -90,8 +230,9 @@ public class ClassUtil {
             @Override
             public boolean accept(File file) {
 
+                // 如果是文件夹，只有该文件夹所对应的包没有被排除时才需要继续遍历它
                 if(file.isDirectory()) {
-                    return true;
+                    return candidateFilter.acceptDirectory(toPackageName(file.getAbsolutePath()));
                 }
                 // 如果此时 listFiles 遍历到的 File 类对象不是文件就先判断该文件是否是 .class 文件，并处理 .class 文件
                 else {
@@ -99,7 +240,10 @@ public class ClassUtil {
                     String absoluteFilePath = file.getAbsolutePath();
 
                     // 判断该绝对路径指向的文件是否是 class 文件
-                    if(absoluteFilePath.endsWith(".class")) {
+                    // 并且该类上加了指定的注解（这里是直接读取 .class 文件的字节进行判断的，不会加载该类）
+                    if(absoluteFilePath.endsWith(".class")
+                            && candidateFilter.acceptPackage(toPackageName(file.getParent()))
+                            && candidateFilter.accept(file)) {
                         // 若是 class 文件，则调用下面定义的 addToClassSet() 方法获取 Class 类对象，并存放如 Set 集合中
                         addToClassSet(absoluteFilePath);
                     }
@@ -108,6 +252,15 @@ public class ClassUtil {
                 return false;
             }
 
+            /**
+             * 根据文件夹的绝对路径，获取它所对应的包名
+             * @param absoluteDirectoryPath
+             */
+            private String toPackageName(String absoluteDirectoryPath) {
+                absoluteDirectoryPath = absoluteDirectoryPath.replace(File.separator, ".");
+                return absoluteDirectoryPath.substring(absoluteDirectoryPath.indexOf(packageName));
+            }
+
             /**
              * 根据 Class 文件的绝对路径，获取并生成 Class 对象，并放入 Set 集合中
              * @param absoluteFilePath
@@ -139,24 +292,184 @@ public class ClassUtil {
         if(files != null) {
             for(File f : files) {
                 //递归调用
-                extractClassFile(emptyClassSet, f, packageName);
+                extractClassFile(emptyClassSet, f, packageName, candidateFilter);
+            }
+        }
+    }
+    /**
+     * 该类用于并行扫描一个文件夹下的 .class 文件
+     * 每个任务只负责加载当前文件夹中的 .class 文件，而当前文件夹下的每一个子文件夹都会被拆分成一个新的任务并行执行
+     */
+    private static class ClassFileScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // 装载目标类的集合（所有任务共享，必须是线程安全的集合）
+        private final Set<Class<?>> classSet;
+        // 当前任务负责扫描的文件夹
+        private final File directory;
+        // 该文件夹所对应的包名
+        private final String packageName;
+        // 用于判断哪些类需要被加载
+        private final ClassCandidateFilter candidateFilter;
+        // 用于加载这些类的类加载器
+        private final ClassLoader classLoader;
+
+        ClassFileScanTask(Set<Class<?>> classSet, File directory, String packageName,
+                          ClassCandidateFilter candidateFilter, ClassLoader classLoader) {
+            this.classSet = classSet;
+            this.directory = directory;
+            this.packageName = packageName;
+            this.candidateFilter = candidateFilter;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected void compute() {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
             }
+
+            List<ClassFileScanTask> subTasks = new ArrayList<>();
+            // 当前文件夹所对应的包被 include/exclude 规则过滤掉时，就只需要继续遍历它的子文件夹
+            boolean packageAccepted = candidateFilter.acceptPackage(packageName);
+            for (File file : files) {
+                String fileName = file.getName();
+                if (file.isDirectory()) {
+                    // 子文件夹就是子包，因此子包名为 当前包名 + . + 文件夹名（被排除的子包就不再创建任务了）
+                    String subPackageName = packageName + "." + fileName;
+                    if (candidateFilter.acceptDirectory(subPackageName)) {
+                        subTasks.add(new ClassFileScanTask(classSet, file, subPackageName, candidateFilter, classLoader));
+                    }
+                } else if (packageAccepted && fileName.endsWith(".class") && candidateFilter.accept(file)) {
+                    // 直接由 包名 + 文件名（去掉 .class 后缀）拼出全类名
+                    String className = packageName + "." + fileName.substring(0, fileName.length() - ".class".length());
+                    classSet.add(loadClass(className, classLoader));
+                }
+            }
+
+            // 并行执行所有子文件夹的扫描任务，并等待它们全部完成
+            invokeAll(subTasks);
         }
     }
+
     /**
      * 获取Class对象
+     *（该方法只会加载该类，而不会初始化该类（即不会执行它的静态初始化代码），该类会在 newInstance() 方法创建它的实例时才被初始化）
      *
      * @param className class全名=package + 类名
      * @return Class
      */
     public static Class<?> loadClass(String className){
+        return loadClass(className, getClassLoader());
+    }
+
+    /**
+     * 使用指定的类加载器获取Class对象（同样只加载，不初始化）
+     *
+     * @param className   class全名=package + 类名
+     * @param classLoader 类加载器
+     * @return Class
+     */
+    public static Class<?> loadClass(String className, ClassLoader classLoader){
         try {
-            return Class.forName(className);
+            // Class.forName() 方法的第二个参数为 false 时，就只会加载该类而不会初始化该类
+            return Class.forName(className, false, classLoader);
         } catch (ClassNotFoundException e) {
             log.error("load class error:", e);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * 判断一个类是否已经被初始化了（即是否已经执行过它的静态初始化代码）
+     * 注意
+     * 该方法本身不会触发类的初始化
+     *
+     * @param clazz Class对象
+     * @return 是否已经被初始化了，当前 JVM 不支持该判断时返回 null
+     */
+    public static Boolean isInitialized(Class<?> clazz){
+        if (SHOULD_BE_INITIALIZED == null) {
+            return null;
+        }
+        try {
+            return !(boolean) SHOULD_BE_INITIALIZED.invoke(clazz);
+        } catch (Throwable e) {
+            log.debug("unable to check initialization of {}: {}", clazz.getName(), e.toString());
+            return null;
+        }
+    }
+
+    private static MethodHandle findShouldBeInitialized(){
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafeClass, "shouldBeInitialized",
+                    MethodType.methodType(boolean.class, Class.class)).bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("class initialization state is not available: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 计算指定包下所有 .class 文件的指纹
+     * 即
+     * 只读取每个 .class 文件的 相对路径 + 文件大小 + 最后修改时间（如果这些类被打包在 jar 包中，就只读取 jar 包本身的这些信息），
+     * 按路径排序后计算它们的 CRC32 值（这一步不需要读取任何文件的内容，也不会加载任何类）
+     * 这样
+     * 只要该包下有任何一个 .class 文件发生了变化（新增，删除或修改），指纹就会发生变化
+     *
+     * @param packageName 包名
+     * @return 指纹，获取不到该包时返回 null
+     */
+    public static String fingerprintPackage(String packageName){
+        URL url = getClassLoader().getResource(packageName.replace(".", "/"));
+        if (url == null){
+            log.warn("unable to retrieve anything from package: " + packageName);
+            return null;
+        }
+
+        // 使用 TreeMap 按路径排序，保证每次计算出的指纹与文件的遍历顺序无关
+        Map<String, String> stampMap = new TreeMap<>();
+        try {
+            if (url.getProtocol().equalsIgnoreCase(FILE_PROTOCOL)){
+                File packageDirectory = new File(url.toURI());
+                collectClassFileStamps(stampMap, packageDirectory, "");
+            } else if (url.getProtocol().equalsIgnoreCase(JAR_PROTOCOL)) {
+                File jarFile = new File(((JarURLConnection) url.openConnection()).getJarFileURL().toURI());
+                stampMap.put(jarFile.getAbsolutePath(), jarFile.length() + ":" + jarFile.lastModified());
+            } else {
+                return null;
+            }
+        } catch (IOException | URISyntaxException e) {
+            log.error("fingerprint package error:", e);
+            throw new RuntimeException(e);
+        }
+
+        CRC32 crc32 = new CRC32();
+        for (Map.Entry<String, String> entry : stampMap.entrySet()) {
+            crc32.update((entry.getKey() + "=" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return stampMap.size() + "-" + Long.toHexString(crc32.getValue());
+    }
+
+    private static void collectClassFileStamps(Map<String, String> stampMap, File directory, String relativePath) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String path = relativePath + "/" + file.getName();
+            if (file.isDirectory()) {
+                collectClassFileStamps(stampMap, file, path);
+            } else if (file.getName().endsWith(".class")) {
+                stampMap.put(path, file.length() + ":" + file.lastModified());
+            }
+        }
+    }
     /**
      * 创建类实例
      *
@@ -1,6 +1,67 @@
 package org.simpleframework.util;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
 public class ConverterUtil {
+    /**
+     * 类型转换器注册表
+     * 即
+     * Key 为目标数据类型，Value 为把 String 转换成该数据类型的转换器
+     * 这样
+     * 调用方（如 配置属性绑定）只需要在启动时为每个目标数据类型查找一次转换器，之后每次转换都直接调用该转换器，不需要再逐个比较数据类型
+     */
+    private static final Map<Class<?>, Function<String, ?>> CONVERTERS = new ConcurrentHashMap<>();
+
+    static {
+        registerConverter(String.class, value -> value);
+        registerConverter(int.class, Integer::parseInt);
+        registerConverter(Integer.class, Integer::valueOf);
+        registerConverter(long.class, Long::parseLong);
+        registerConverter(Long.class, Long::valueOf);
+        registerConverter(double.class, Double::parseDouble);
+        registerConverter(Double.class, Double::valueOf);
+        registerConverter(float.class, Float::parseFloat);
+        registerConverter(Float.class, Float::valueOf);
+        registerConverter(boolean.class, Boolean::parseBoolean);
+        registerConverter(Boolean.class, Boolean::valueOf);
+        registerConverter(short.class, Short::parseShort);
+        registerConverter(Short.class, Short::valueOf);
+        registerConverter(byte.class, Byte::parseByte);
+        registerConverter(Byte.class, Byte::valueOf);
+        registerConverter(char.class, value -> value.charAt(0));
+        registerConverter(Character.class, value -> value.charAt(0));
+    }
+
+    /**
+     * 注册一个类型转换器（同一数据类型已经有转换器时会覆盖原来的转换器）
+     *
+     * @param type      目标数据类型
+     * @param converter 转换器
+     */
+    public static <T> void registerConverter(Class<T> type, Function<String, ? extends T> converter) {
+        CONVERTERS.put(type, converter);
+    }
+
+    /**
+     * 获取把 String 转换成指定数据类型的转换器（枚举类型的转换器会在第一次获取时自动创建并注册）
+     *
+     * @param type 目标数据类型
+     * @return 转换器
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Function<String, ?> getConverter(Class<?> type) {
+        Function<String, ?> converter = CONVERTERS.get(type);
+        if (converter == null && type.isEnum()) {
+            converter = CONVERTERS.computeIfAbsent(type, key -> value -> Enum.valueOf((Class<? extends Enum>) key, value));
+        }
+        if (converter == null) {
+            throw new RuntimeException("no converter registered for type " + type.getName());
+        }
+        return converter;
+    }
+
     /**
      * 返回基本数据类型的空值
      *需要特殊处理的基本类型即int\double\short\long\byte\float\boolean
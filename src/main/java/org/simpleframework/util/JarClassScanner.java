@@ -0,0 +1,369 @@
+package org.simpleframework.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 该类用于扫描 jar 包中指定包下的 .class 文件
+ * 即
+ * 通过 FileChannel 把 jar 包映射到内存中，然后直接读取 zip 文件末尾的中央目录（central directory）
+ * 这样
+ * 只需要读取中央目录里每个条目的文件名就能按包名前缀筛选出候选的 .class 文件，而不需要解压任何一个条目
+ *
+ * 注意
+ * 1. close() 时会立即释放映射（而不是等到 GC 回收 MappedByteBuffer），这样 jar 包不会一直被锁定，也不会一直占用地址空间
+ *    因此
+ *    close() 之后不能再读取任何条目
+ * 2. 大于 2 GB 或者使用了 ZIP64 格式的 jar 包无法通过上面的方式读取，这时会退回到使用 JarFile 读取
+ */
+@Slf4j
+public class JarClassScanner implements Closeable {
+    // 中央目录结束记录（End Of Central Directory）的签名以及它的最小长度
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_MIN_LENGTH = 22;
+    // 中央目录结束记录后面可以跟一段注释，注释的最大长度为 65535
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    // 中央目录中每个条目的签名以及条目头部的固定长度
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int CEN_HEADER_LENGTH = 46;
+    // 本地文件头（local file header）的签名以及它的固定长度
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int LOC_HEADER_LENGTH = 30;
+    // 压缩方式：未压缩 以及 deflate 压缩
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    // ZIP64 中央目录结束记录定位符（ZIP64 End Of Central Directory Locator）的签名以及它的长度
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    // 数值字段为该值时表示真正的值存放在 ZIP64 扩展字段中
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+
+    // 用于立即释放映射的 Unsafe.invokeCleaner() 方法（获取不到时只能等待 GC 回收）
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("unable to unmap mapped buffers explicitly: {}", e.getMessage());
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final File file;
+    private FileChannel channel;
+    // jar 包映射到内存后的缓冲区（zip 格式中的数值都是小端序的），退回到 JarFile 时为 null
+    private MappedByteBuffer buffer;
+    // 中央目录结束记录的位置
+    private int eocdPosition = -1;
+    // 退回到 JarFile 读取时使用的 JarFile
+    private JarFile jarFile;
+    private volatile boolean closed;
+
+    public JarClassScanner(File jarFile) throws IOException {
+        this.file = jarFile;
+        this.channel = FileChannel.open(jarFile.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                fallBackToJarFile();
+                return;
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+            this.eocdPosition = findEndOfCentralDirectory();
+            if (eocdPosition >= 0 && isZip64(eocdPosition)) {
+                fallBackToJarFile();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取 jar 包中指定包（包括子包）下的所有 .class 文件所对应的条目
+     *
+     * @param packageName 包名
+     * @return 条目集合
+     */
+    public List<JarClassEntry> getClassEntries(String packageName) throws IOException {
+        ensureOpen();
+        if (jarFile != null) {
+            return getJarFileClassEntries(packageName);
+        }
+        List<JarClassEntry> entryList = new ArrayList<>();
+        if (eocdPosition < 0) {
+            log.warn("unable to locate the central directory of the jar file");
+            return entryList;
+        }
+
+        // 从中央目录结束记录中读取条目总数，以及中央目录的起始位置
+        int totalEntries = Short.toUnsignedInt(buffer.getShort(eocdPosition + 10));
+        int position = (int) Integer.toUnsignedLong(buffer.getInt(eocdPosition + 16));
+
+        // jar 包中的条目名是用 / 分隔的
+        String prefix = packageName.replace(".", "/") + "/";
+        for (int i = 0; i < totalEntries; i++) {
+            if (buffer.getInt(position) != CEN_SIGNATURE) {
+                log.warn("corrupted central directory entry at position {}", position);
+                break;
+            }
+            int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+
+            String entryName = readName(position + CEN_HEADER_LENGTH, nameLength);
+            // 只保留包名前缀相符的 .class 文件（module-info 等特殊的 class 文件除外）
+            if (entryName.startsWith(prefix) && entryName.endsWith(".class") && !entryName.endsWith("-info.class")) {
+                String className = entryName.substring(0, entryName.length() - ".class".length()).replace("/", ".");
+                long compressedSize = Integer.toUnsignedLong(buffer.getInt(position + 20));
+                long size = Integer.toUnsignedLong(buffer.getInt(position + 24));
+                long localHeaderOffset = Integer.toUnsignedLong(buffer.getInt(position + 42));
+                // 真正的值存放在 ZIP64 扩展字段中的条目，也退回到 JarFile 读取
+                if (compressedSize == ZIP64_MAGIC_VALUE || size == ZIP64_MAGIC_VALUE || localHeaderOffset == ZIP64_MAGIC_VALUE) {
+                    fallBackToJarFile();
+                    return getJarFileClassEntries(packageName);
+                }
+                entryList.add(new JarClassEntry(className, entryName, Short.toUnsignedInt(buffer.getShort(position + 10)),
+                        compressedSize, size, localHeaderOffset));
+            }
+            position += CEN_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return entryList;
+    }
+
+    /**
+     * 读取（必要时解压）指定条目所对应的 .class 文件的字节
+     *
+     * @param entry 条目
+     * @return .class 文件的字节
+     */
+    public byte[] readEntryBytes(JarClassEntry entry) {
+        ensureOpen();
+        if (jarFile != null) {
+            return readJarFileEntryBytes(entry);
+        }
+        int position = (int) entry.getLocalHeaderOffset();
+        if (buffer.getInt(position) != LOC_SIGNATURE) {
+            throw new RuntimeException("corrupted local file header for " + entry.getClassName());
+        }
+        // 本地文件头中的文件名和扩展字段的长度可能与中央目录中的不同，因此这里要以本地文件头中的为准
+        int nameLength = Short.toUnsignedInt(buffer.getShort(position + 26));
+        int extraLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+        int dataPosition = position + LOC_HEADER_LENGTH + nameLength + extraLength;
+
+        if ((long) dataPosition + entry.getCompressedSize() > buffer.limit()) {
+            throw new RuntimeException("incomplete jar entry " + entry.getClassName() + ": data exceeds the end of the jar file");
+        }
+        byte[] compressedBytes = new byte[(int) entry.getCompressedSize()];
+        for (int i = 0; i < compressedBytes.length; i++) {
+            compressedBytes[i] = buffer.get(dataPosition + i);
+        }
+        if (entry.getCompressionMethod() == METHOD_STORED) {
+            if (compressedBytes.length != entry.getSize()) {
+                throw new RuntimeException("incomplete jar entry " + entry.getClassName() + ": stored size does not match");
+            }
+            return compressedBytes;
+        }
+        if (entry.getCompressionMethod() != METHOD_DEFLATED) {
+            throw new RuntimeException("unsupported compression method " + entry.getCompressionMethod() + " for " + entry.getClassName());
+        }
+
+        // zip 中的 deflate 数据是不带 zlib 头的，因此这里要使用 nowrap 模式的 Inflater
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressedBytes);
+            byte[] classBytes = new byte[(int) entry.getSize()];
+            int offset = 0;
+            while (offset < classBytes.length && !inflater.finished()) {
+                int count = inflater.inflate(classBytes, offset, classBytes.length - offset);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += count;
+            }
+            // 解压出的字节数与中央目录中记录的不一致时说明条目不完整（如 jar 包被截断），不能返回残缺的字节
+            if (offset != classBytes.length) {
+                throw new RuntimeException("incomplete jar entry " + entry.getClassName() + ": inflated "
+                        + offset + " of " + classBytes.length + " bytes");
+            }
+            return classBytes;
+        } catch (DataFormatException e) {
+            log.error("inflate jar entry error:", e);
+            throw new RuntimeException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 退回到 JarFile 读取时，获取指定包下的所有 .class 文件所对应的条目
+     */
+    private List<JarClassEntry> getJarFileClassEntries(String packageName) {
+        List<JarClassEntry> entryList = new ArrayList<>();
+        String prefix = packageName.replace(".", "/") + "/";
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry jarEntry = entries.nextElement();
+            String entryName = jarEntry.getName();
+            if (entryName.startsWith(prefix) && entryName.endsWith(".class") && !entryName.endsWith("-info.class")) {
+                String className = entryName.substring(0, entryName.length() - ".class".length()).replace("/", ".");
+                entryList.add(new JarClassEntry(className, entryName, jarEntry.getMethod(),
+                        jarEntry.getCompressedSize(), jarEntry.getSize(), -1));
+            }
+        }
+        return entryList;
+    }
+
+    /**
+     * 退回到 JarFile 读取时，读取指定条目所对应的 .class 文件的字节
+     */
+    private byte[] readJarFileEntryBytes(JarClassEntry entry) {
+        JarEntry jarEntry = jarFile.getJarEntry(entry.getEntryName());
+        if (jarEntry == null) {
+            throw new RuntimeException("jar entry " + entry.getEntryName() + " is not found");
+        }
+        try (InputStream in = jarFile.getInputStream(jarEntry)) {
+            byte[] classBytes = in.readAllBytes();
+            if (jarEntry.getSize() >= 0 && classBytes.length != jarEntry.getSize()) {
+                throw new RuntimeException("incomplete jar entry " + entry.getClassName() + ": read "
+                        + classBytes.length + " of " + jarEntry.getSize() + " bytes");
+            }
+            return classBytes;
+        } catch (IOException e) {
+            log.error("read jar entry error:", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 判断 jar 包是否使用了 ZIP64 格式（即存在 ZIP64 中央目录结束记录定位符，或者中央目录结束记录中的数值字段被标记为存放在 ZIP64 记录中）
+     */
+    private boolean isZip64(int eocdPosition) {
+        if (eocdPosition >= ZIP64_LOCATOR_LENGTH && buffer.getInt(eocdPosition - ZIP64_LOCATOR_LENGTH) == ZIP64_LOCATOR_SIGNATURE) {
+            return true;
+        }
+        return Short.toUnsignedInt(buffer.getShort(eocdPosition + 10)) == ZIP64_MAGIC_COUNT
+                || Integer.toUnsignedLong(buffer.getInt(eocdPosition + 12)) == ZIP64_MAGIC_VALUE
+                || Integer.toUnsignedLong(buffer.getInt(eocdPosition + 16)) == ZIP64_MAGIC_VALUE;
+    }
+
+    /**
+     * 释放映射，关闭 FileChannel，然后改为使用 JarFile 读取
+     */
+    private void fallBackToJarFile() throws IOException {
+        log.debug("{} is a zip64 archive or larger than 2 GB, falling back to JarFile", file);
+        releaseMapping();
+        jarFile = new JarFile(file);
+    }
+
+    private void releaseMapping() throws IOException {
+        MappedByteBuffer mappedBuffer = buffer;
+        buffer = null;
+        if (mappedBuffer != null && INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, mappedBuffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.debug("unable to unmap {}: {}", file, e.getMessage());
+            }
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("jar scanner for " + file + " is already closed");
+        }
+    }
+
+    /**
+     * 从文件末尾往前查找中央目录结束记录的位置
+     *
+     * @return 中央目录结束记录的位置，找不到就返回 -1
+     */
+    private int findEndOfCentralDirectory() {
+        int limit = Math.max(0, buffer.limit() - EOCD_MIN_LENGTH - MAX_COMMENT_LENGTH);
+        for (int position = buffer.limit() - EOCD_MIN_LENGTH; position >= limit; position--) {
+            if (buffer.getInt(position) == EOCD_SIGNATURE) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private String readName(int position, int length) {
+        byte[] nameBytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            nameBytes[i] = buffer.get(position + i);
+        }
+        return new String(nameBytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            releaseMapping();
+        } finally {
+            if (jarFile != null) {
+                jarFile.close();
+            }
+        }
+    }
+
+    /**
+     * 该类是对中央目录中一个 .class 文件条目的相关信息的封装
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class JarClassEntry {
+        // 该 .class 文件所对应的全类名
+        private String className;
+        // 该条目在 jar 包中的名称（即 用 / 分隔的路径）
+        private String entryName;
+        // 压缩方式（0 表示未压缩，8 表示 deflate 压缩）
+        private int compressionMethod;
+        // 压缩后的大小
+        private long compressedSize;
+        // 压缩前的大小
+        private long size;
+        // 该条目的本地文件头（local file header）在 jar 包中的位置（退回到 JarFile 读取时为 -1）
+        private long localHeaderOffset;
+    }
+}
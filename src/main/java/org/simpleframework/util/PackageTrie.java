@@ -0,0 +1,184 @@
+package org.simpleframework.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 该类就是由包的 include/exclude 规则编译而成的前缀树
+ * 即
+ * 把每条规则按 . 拆分成一级一级的包名，存放到一棵前缀树中（规则中的 * 表示任意一级包名）
+ * 这样
+ * 扫描时只需要沿着前缀树往下走，就能判断某个包（即某个文件夹）是否需要被遍历，而不需要逐条匹配所有的规则
+ *
+ * 规则的含义如下
+ * 1. 每条规则都同时匹配该包以及它的所有子包（即 com.imooc.entity 和 com.imooc.entity.* 是等价的）
+ * 2. 只要被任意一条 exclude 规则匹配，该包就会被排除（它所对应的文件夹也就不会再被遍历了）
+ * 3. 没有 include 规则时，所有没被排除的包都会被扫描；有 include 规则时，只有被 include 规则匹配的包才会被扫描
+ */
+public class PackageTrie {
+    private static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+    private final boolean hasIncludes;
+    // 编译前的规则（用于区分不同规则下的扫描缓存）
+    private final String description;
+
+    private PackageTrie(Collection<String> includes, Collection<String> excludes) {
+        for (String include : includes) {
+            addPattern(include, true).include = true;
+        }
+        for (String exclude : excludes) {
+            addPattern(exclude, false).exclude = true;
+        }
+        this.hasIncludes = !includes.isEmpty();
+        this.description = "+" + String.join(",", new TreeSet<>(includes)) + "-" + String.join(",", new TreeSet<>(excludes));
+    }
+
+    /**
+     * 把 include/exclude 规则编译成前缀树
+     *
+     * @param includes include 规则（可以为 null）
+     * @param excludes exclude 规则（可以为 null）
+     * @return 前缀树，没有任何规则时返回 null（即不进行任何过滤）
+     */
+    public static PackageTrie compile(Collection<String> includes, Collection<String> excludes) {
+        includes = normalize(includes);
+        excludes = normalize(excludes);
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return null;
+        }
+        return new PackageTrie(includes, excludes);
+    }
+
+    private static List<String> normalize(Collection<String> patterns) {
+        if (ValidationUtil.isEmpty(patterns)) {
+            return Collections.emptyList();
+        }
+        List<String> patternList = new ArrayList<>();
+        for (String pattern : patterns) {
+            String trimmed = pattern.trim();
+            // 去掉末尾的 .* 或 .**（因为每条规则本来就会匹配所有的子包）
+            while (trimmed.endsWith(".*")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 2);
+            }
+            if (trimmed.endsWith(".**")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 3);
+            }
+            if (!trimmed.isEmpty()) {
+                patternList.add(trimmed);
+            }
+        }
+        return patternList;
+    }
+
+    private Node addPattern(String pattern, boolean include) {
+        Node node = root;
+        for (String segment : pattern.split("\\.")) {
+            // 标记该节点下面还有 include 规则（用于判断是否需要继续往下遍历）
+            node.includeBelow |= include;
+            node = WILDCARD.equals(segment)
+                    ? (node.wildcard == null ? node.wildcard = new Node() : node.wildcard)
+                    : node.children.computeIfAbsent(segment, key -> new Node());
+        }
+        return node;
+    }
+
+    /**
+     * 判断是否需要遍历指定包所对应的文件夹
+     * 即
+     * 该包没有被排除，并且它本身或者它的某个子包可能会被 include 规则匹配
+     *
+     * @param packageName 包名
+     * @return 是否需要遍历
+     */
+    public boolean shouldDescend(String packageName) {
+        Match match = match(packageName);
+        return !match.excluded && (!hasIncludes || match.included || match.onIncludePath);
+    }
+
+    /**
+     * 判断指定包下的类是否需要被扫描
+     *
+     * @param packageName 包名
+     * @return 是否需要被扫描
+     */
+    public boolean accept(String packageName) {
+        Match match = match(packageName);
+        return !match.excluded && (!hasIncludes || match.included);
+    }
+
+    /**
+     * 判断指定的类是否需要被扫描（即它所在的包是否需要被扫描）
+     *
+     * @param className 全类名
+     * @return 是否需要被扫描
+     */
+    public boolean acceptClass(String className) {
+        int index = className.lastIndexOf('.');
+        return accept(index < 0 ? "" : className.substring(0, index));
+    }
+
+    private Match match(String packageName) {
+        Match match = new Match();
+        List<Node> currentNodes = Collections.singletonList(root);
+        for (String segment : packageName.split("\\.")) {
+            List<Node> nextNodes = new ArrayList<>();
+            for (Node node : currentNodes) {
+                Node child = node.children.get(segment);
+                if (child != null) {
+                    nextNodes.add(child);
+                }
+                if (node.wildcard != null) {
+                    nextNodes.add(node.wildcard);
+                }
+            }
+            for (Node node : nextNodes) {
+                match.excluded |= node.exclude;
+                match.included |= node.include;
+            }
+            // 已经被排除时，就不需要再往下走了
+            if (match.excluded || nextNodes.isEmpty()) {
+                return match;
+            }
+            currentNodes = nextNodes;
+        }
+        // 走完了该包名之后前缀树中仍然有 include 规则的分支，就说明它的某个子包可能会被 include 规则匹配
+        for (Node node : currentNodes) {
+            match.onIncludePath |= node.includeBelow;
+        }
+        return match;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    /**
+     * 该类就是前缀树中的节点，每个节点对应一级包名
+     */
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        // 匹配任意一级包名的子节点
+        private Node wildcard;
+        // 是否有 include/exclude 规则在该节点结束
+        private boolean include;
+        private boolean exclude;
+        // 该节点的子节点中是否还有 include 规则
+        private boolean includeBelow;
+    }
+
+    /**
+     * 该类是对一个包的匹配结果的封装
+     */
+    private static class Match {
+        private boolean excluded;
+        private boolean included;
+        private boolean onIncludePath;
+    }
+}
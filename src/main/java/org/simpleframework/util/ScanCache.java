@@ -0,0 +1,197 @@
+package org.simpleframework.util;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * 该类就是类扫描结果的持久化缓存
+ * 即
+ * 把每个 .class 文件（或 jar 包）的扫描结果，以 文件路径 + 文件大小 + 最后修改时间（可选再加上文件内容的 CRC32 值）作为指纹保存到工作目录下
+ * 这样
+ * 重启时只要文件的指纹没有变化，就可以直接复用上一次的扫描结果，只有发生了变化的文件才需要重新读取
+ */
+@Slf4j
+public class ScanCache {
+    // 是否启用扫描缓存（默认启用）
+    public static final String CACHE_ENABLED_PROPERTY = "simpleframework.scan.cache";
+    // 扫描缓存文件所在的文件夹（默认为 setWorkDirectory() 方法设置的工作目录，没有设置时为 java.io.tmpdir/simpleframework）
+    public static final String CACHE_DIR_PROPERTY = "simpleframework.scan.cache.dir";
+    // 是否在指纹中加入文件内容的 CRC32 值（默认不加入，适用于部署时不会保留文件修改时间的场景）
+    public static final String CACHE_HASH_PROPERTY = "simpleframework.scan.cache.hash";
+    private static final String SEPARATOR = "\t";
+    private static final String NO_HASH = "-";
+
+    // 工作目录（如 Servlet 容器为当前 Web 应用分配的临时目录）
+    private static volatile File workDirectory;
+
+    // 该缓存文件的 Key（即 包名 + 注解描述符），用于防止不同的扫描条件共用同一个缓存文件
+    private final String cacheKey;
+    private final File cacheFile;
+    private final boolean hashEnabled;
+    // 上一次扫描保存下来的结果
+    private final Map<String, Entry> previousEntries;
+    // 本次扫描的结果（本次扫描中没有遇到的文件就不会再被保存，这样已经删除的文件就会被自动清理掉）
+    private final Map<String, Entry> currentEntries = new ConcurrentHashMap<>();
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    private ScanCache(String cacheKey, File cacheFile, boolean hashEnabled) {
+        this.cacheKey = cacheKey;
+        this.cacheFile = cacheFile;
+        this.hashEnabled = hashEnabled;
+        this.previousEntries = readEntries();
+    }
+
+    /**
+     * 设置工作目录，扫描缓存文件默认就保存在该目录下
+     *
+     * @param directory 工作目录
+     */
+    public static void setWorkDirectory(File directory) {
+        workDirectory = directory;
+    }
+
+    /**
+     * 打开指定包以及指定注解所对应的扫描缓存
+     *
+     * @param packageName           包名
+     * @param annotationDescriptors 注解的类型描述符集合
+     * @return 扫描缓存，没有启用扫描缓存时返回 null
+     */
+    public static ScanCache open(String packageName, Set<String> annotationDescriptors) {
+        if (!Boolean.parseBoolean(System.getProperty(CACHE_ENABLED_PROPERTY, "true"))) {
+            return null;
+        }
+        String cacheKey = packageName + "|" + String.join(",", new TreeSet<>(annotationDescriptors));
+        File cacheFile = new File(getCacheDirectory(), "scan-" + Integer.toHexString(cacheKey.hashCode()) + ".cache");
+        return new ScanCache(cacheKey, cacheFile, Boolean.getBoolean(CACHE_HASH_PROPERTY));
+    }
+
+    private static File getCacheDirectory() {
+        String directory = System.getProperty(CACHE_DIR_PROPERTY);
+        if (!ValidationUtil.isEmpty(directory)) {
+            return new File(directory);
+        }
+        if (workDirectory != null) {
+            return workDirectory;
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "simpleframework");
+    }
+
+    /**
+     * 获取文件上一次的扫描结果
+     *
+     * @param file .class 文件或者 jar 包
+     * @return 上一次的扫描结果，如果该文件是新增的或者它的指纹发生了变化就返回 null
+     */
+    public String lookup(File file) {
+        String path = file.getAbsolutePath();
+        Entry previous = previousEntries.get(path);
+        if (previous != null && previous.size == file.length() && previous.lastModified == file.lastModified()
+                && (!hashEnabled || previous.hash.equals(hash(file)))) {
+            currentEntries.put(path, previous);
+            hitCount.incrementAndGet();
+            return previous.value;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 记录文件本次的扫描结果
+     *
+     * @param file  .class 文件或者 jar 包
+     * @param value 扫描结果
+     */
+    public void record(File file, String value) {
+        currentEntries.put(file.getAbsolutePath(),
+                new Entry(file.length(), file.lastModified(), hashEnabled ? hash(file) : NO_HASH, value));
+    }
+
+    /**
+     * 把本次的扫描结果保存到缓存文件中（只有扫描结果发生了变化时才会真正写入文件）
+     */
+    public void save() {
+        log.debug("scan cache {}: {} hits, {} misses", cacheFile.getName(), hitCount.get(), missCount.get());
+        if (missCount.get() == 0 && currentEntries.size() == previousEntries.size()) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            // 先写入临时文件，再把临时文件重命名为缓存文件，这样即使写入过程中进程退出了，也不会留下一个不完整的缓存文件
+            File tempFile = new File(cacheFile.getPath() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(cacheKey);
+                writer.newLine();
+                for (Map.Entry<String, Entry> entry : currentEntries.entrySet()) {
+                    Entry value = entry.getValue();
+                    writer.write(String.join(SEPARATOR, entry.getKey(), String.valueOf(value.size),
+                            String.valueOf(value.lastModified), value.hash, value.value));
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 缓存写入失败并不影响本次启动，因此这里只打印警告日志
+            log.warn("unable to save scan cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private Map<String, Entry> readEntries() {
+        Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+        if (!cacheFile.isFile()) {
+            return entryMap;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            // 第一行是该缓存文件的 Key，如果与当前的 Key 不一致，就说明是其他扫描条件的缓存文件（即文件名冲突了），此时直接丢弃
+            if (!cacheKey.equals(reader.readLine())) {
+                return entryMap;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(SEPARATOR, -1);
+                entryMap.put(columns[0], new Entry(Long.parseLong(columns[1]), Long.parseLong(columns[2]), columns[3], columns[4]));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("discard unreadable scan cache {}: {}", cacheFile, e.getMessage());
+            entryMap.clear();
+        }
+        return entryMap;
+    }
+
+    private String hash(File file) {
+        try {
+            CRC32 crc32 = new CRC32();
+            crc32.update(Files.readAllBytes(file.toPath()));
+            return Long.toHexString(crc32.getValue());
+        } catch (IOException e) {
+            log.error("hash file error:", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 该类是对一个文件的指纹以及它的扫描结果的封装
+     */
+    @AllArgsConstructor
+    private static class Entry {
+        private long size;
+        private long lastModified;
+        private String hash;
+        private String value;
+    }
+}
@@ -0,0 +1,71 @@
+package org.simpleframework.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.core.annotation.Component;
+import org.simpleframework.core.annotation.ConditionalOnClass;
+import org.simpleframework.core.annotation.ConditionalOnMissingBean;
+import org.simpleframework.core.annotation.ConditionalOnProperty;
+import org.simpleframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BeanConditionEvaluatorTest {
+    @DisplayName("不满足条件的 Bean 类在实例化之前就被过滤掉：filterTest")
+    @Test
+    public void filterTest() {
+        BeanConditionEvaluator evaluator = new BeanConditionEvaluator(Environment.getInstance(), BeanContainer.getInstance());
+        List<Class<?>> classList = Arrays.asList(MissingPropertyBean.class, DefaultEnabledBean.class, WrongValueBean.class,
+                MissingClassBean.class, PresentClassBean.class, DefaultGreeter.class, CustomGreeter.class, DefaultCounter.class);
+        Assertions.assertEquals(Arrays.asList(DefaultEnabledBean.class, PresentClassBean.class, CustomGreeter.class, DefaultCounter.class),
+                evaluator.filter(classList));
+    }
+
+    interface Greeter {
+    }
+
+    interface Counter {
+    }
+
+    @Component
+    @ConditionalOnProperty(name = "simpleframework.test.absent")
+    static class MissingPropertyBean {
+    }
+
+    @Component
+    @ConditionalOnProperty(name = "simpleframework.test.absent", matchIfMissing = true)
+    static class DefaultEnabledBean {
+    }
+
+    @Component
+    @ConditionalOnProperty(name = "java.specification.version", havingValue = "0")
+    static class WrongValueBean {
+    }
+
+    @Component
+    @ConditionalOnClass("com.example.NotOnClasspath")
+    static class MissingClassBean {
+    }
+
+    @Component
+    @ConditionalOnClass("com.google.gson.Gson")
+    static class PresentClassBean {
+    }
+
+    // 已经有其他实现类时，默认实现不会被加载
+    @Component
+    @ConditionalOnMissingBean(Greeter.class)
+    static class DefaultGreeter implements Greeter {
+    }
+
+    @Component
+    static class CustomGreeter implements Greeter {
+    }
+
+    @Component
+    @ConditionalOnMissingBean(Counter.class)
+    static class DefaultCounter implements Counter {
+    }
+}
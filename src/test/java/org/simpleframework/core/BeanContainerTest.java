@@ -5,7 +5,26 @@ import com.imooc.controller.frontend.MainPageController;
 import com.imooc.service.solo.HeadLineService;
 import com.imooc.service.solo.impl.HeadLineServiceImpl;
 import org.junit.jupiter.api.*;
+import org.simpleframework.core.annotation.Component;
+import org.simpleframework.core.annotation.ConditionalOnProperty;
 import org.simpleframework.core.annotation.Controller;
+import org.simpleframework.core.annotation.Lazy;
+import org.simpleframework.core.annotation.PostConstruct;
+import org.simpleframework.core.annotation.PreDestroy;
+import org.simpleframework.core.annotation.Scope;
+import org.simpleframework.core.scope.RequestScope;
+import org.simpleframework.core.scope.Resettable;
+import org.simpleframework.core.scope.ScopeType;
+import org.simpleframework.inject.DependencyInjector;
+import org.simpleframework.inject.annotation.Autowired;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class BeanContainerTest {
@@ -46,5 +65,473 @@ public class BeanContainerTest {
         Assertions.assertEquals(true, beanContainer.isLoaded());
         Assertions.assertEquals(true, beanContainer.getClassesBySuper(HeadLineService.class).contains(HeadLineServiceImpl.class));
     }
+    @DisplayName("注解索引随 addBean/removeBean 更新：annotationIndexTest")
+    @Order(5)
+    @Test
+    public void annotationIndexTest(){
+        MainPageController controller = new MainPageController();
+        beanContainer.addBean(MainPageController.class, controller);
+        try {
+            Assertions.assertTrue(beanContainer.getClassesByAnnotation(Controller.class).contains(MainPageController.class));
+            // 用代理类对象替换原来的实例时，索引不会发生变化
+            beanContainer.addBean(MainPageController.class, new MainPageController());
+            Assertions.assertEquals(1, beanContainer.getClassesByAnnotation(Controller.class).stream()
+                    .filter(MainPageController.class::equals).count());
+        } finally {
+            beanContainer.removeBean(MainPageController.class);
+        }
+        Set<Class<?>> classSet = beanContainer.getClassesByAnnotation(Controller.class);
+        Assertions.assertTrue(classSet == null || !classSet.contains(MainPageController.class));
+    }
+    @DisplayName("类型层次索引随 addBean/removeBean 更新：supertypeIndexTest")
+    @Order(6)
+    @Test
+    public void supertypeIndexTest(){
+        beanContainer.addBean(HeadLineServiceImpl.class, new HeadLineServiceImpl());
+        try {
+            Assertions.assertTrue(beanContainer.getClassesBySuper(HeadLineService.class).contains(HeadLineServiceImpl.class));
+            Assertions.assertTrue(beanContainer.getClassesBySuper(Object.class).contains(HeadLineServiceImpl.class));
+            Assertions.assertNull(beanContainer.getClassesBySuper(HeadLineServiceImpl.class));
+        } finally {
+            beanContainer.removeBean(HeadLineServiceImpl.class);
+        }
+        Set<Class<?>> classSet = beanContainer.getClassesBySuper(HeadLineService.class);
+        Assertions.assertTrue(classSet == null || !classSet.contains(HeadLineServiceImpl.class));
+    }
+    @DisplayName("延迟加载的 Bean 第一次被获取时才实例化：lazyBeanTest")
+    @Order(7)
+    @Test
+    public void lazyBeanTest(){
+        beanContainer.addBean(HeadLineServiceImpl.class, new LazyBeanHolder(HeadLineServiceImpl.class, beanContainer));
+        try {
+            Assertions.assertTrue(beanContainer.isLazy(HeadLineServiceImpl.class));
+            Assertions.assertTrue(beanContainer.containsBean(HeadLineServiceImpl.class));
+            Assertions.assertFalse(beanContainer.getBeans().stream().anyMatch(HeadLineServiceImpl.class::isInstance));
+            // 获取引用时不会实例化该 Bean，第一次调用它的方法时才会实例化
+            HeadLineService reference = (HeadLineService) beanContainer.getBeanReference(HeadLineServiceImpl.class, HeadLineService.class);
+            Assertions.assertFalse(reference instanceof HeadLineServiceImpl);
+            Assertions.assertNull(reference.removeHeadLine(1));
+            Object bean = beanContainer.getBean(HeadLineServiceImpl.class);
+            Assertions.assertTrue(bean instanceof HeadLineServiceImpl);
+            Assertions.assertSame(bean, beanContainer.getBean(HeadLineServiceImpl.class));
+            Assertions.assertSame(bean, beanContainer.getBeanReference(HeadLineServiceImpl.class, HeadLineService.class));
+        } finally {
+            beanContainer.removeBean(HeadLineServiceImpl.class);
+        }
+    }
+    @DisplayName("REQUEST 作用域的 Bean 在同一个请求中是同一个实例：requestScopeTest")
+    @Order(8)
+    @Test
+    public void requestScopeTest(){
+        beanContainer.addBean(RequestCounter.class, new ScopedBeanHolder(RequestCounter.class, beanContainer));
+        try {
+            Assertions.assertTrue(beanContainer.isScoped(RequestCounter.class));
+            Assertions.assertThrows(RuntimeException.class, () -> beanContainer.getBean(RequestCounter.class));
+            RequestCounter reference = (RequestCounter) beanContainer.getBeanReference(RequestCounter.class, RequestCounter.class);
+
+            RequestScope.begin();
+            RequestCounter first = (RequestCounter) beanContainer.getBean(RequestCounter.class);
+            Assertions.assertSame(first, beanContainer.getBean(RequestCounter.class));
+            Assertions.assertEquals(1, reference.increment());
+            Assertions.assertEquals(2, first.increment());
+            RequestScope.end();
+
+            // 请求结束时实例被重置并放回对象池，下一个请求会复用它
+            RequestScope.begin();
+            Assertions.assertSame(first, beanContainer.getBean(RequestCounter.class));
+            Assertions.assertEquals(1, reference.increment());
+            RequestScope.end();
+        } finally {
+            RequestScope.end();
+            beanContainer.removeBean(RequestCounter.class);
+        }
+    }
+
+    @DisplayName("按名称获取 Bean：getBeanByNameTest")
+    @Order(9)
+    @Test
+    public void getBeanByNameTest(){
+        Assertions.assertEquals("HeadLineServiceImpl", BeanContainer.getBeanName(HeadLineServiceImpl.class));
+        Assertions.assertEquals("requestCounter", BeanContainer.getBeanName(NamedBean.class));
+        NamedBean namedBean = new NamedBean();
+        beanContainer.addBean(NamedBean.class, namedBean);
+        try {
+            Assertions.assertSame(namedBean, beanContainer.getBean("requestCounter"));
+            Assertions.assertEquals(NamedBean.class, beanContainer.getBeanClass("requestCounter"));
+            Assertions.assertNull(beanContainer.getBean("NamedBean"));
+        } finally {
+            beanContainer.removeBean(NamedBean.class);
+        }
+        Assertions.assertNull(beanContainer.getBean("requestCounter"));
+    }
+
+    @DisplayName("冻结之后查找 Bean，容器变化时自动解冻：freezeTest")
+    @Order(10)
+    @Test
+    public void freezeTest(){
+        HeadLineServiceImpl service = new HeadLineServiceImpl();
+        beanContainer.addBean(HeadLineServiceImpl.class, service);
+        try {
+            beanContainer.freeze();
+            Assertions.assertTrue(beanContainer.isFrozen());
+            Assertions.assertSame(service, beanContainer.getBean(HeadLineServiceImpl.class));
+            Assertions.assertNull(beanContainer.getBean(MainPageController.class));
+            Assertions.assertSame(beanContainer.getBeans(), beanContainer.getBeans());
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> beanContainer.getBeans().clear());
+
+            MainPageController controller = new MainPageController();
+            beanContainer.addBean(MainPageController.class, controller);
+            Assertions.assertFalse(beanContainer.isFrozen());
+            Assertions.assertSame(controller, beanContainer.getBean(MainPageController.class));
+            beanContainer.removeBean(MainPageController.class);
+        } finally {
+            beanContainer.removeBean(HeadLineServiceImpl.class);
+        }
+        Assertions.assertFalse(beanContainer.isFrozen());
+    }
+
+    @DisplayName("子容器中找不到的 Bean 到父容器中查找：childContainerTest")
+    @Order(11)
+    @Test
+    public void childContainerTest(){
+        HeadLineServiceImpl sharedService = new HeadLineServiceImpl();
+        beanContainer.addBean(HeadLineServiceImpl.class, sharedService);
+        try {
+            BeanContainer child = beanContainer.createChild();
+            MainPageController controller = new MainPageController();
+            child.addBean(MainPageController.class, controller);
+            Assertions.assertSame(beanContainer, child.getParent());
+            Assertions.assertSame(sharedService, child.getBean(HeadLineServiceImpl.class));
+            Assertions.assertSame(sharedService, child.getBean("HeadLineServiceImpl"));
+            Assertions.assertTrue(child.getClassesBySuper(HeadLineService.class).contains(HeadLineServiceImpl.class));
+            Assertions.assertSame(controller, child.getBean(MainPageController.class));
+            // 父容器看不到子容器中的 Bean
+            Assertions.assertNull(beanContainer.getBean(MainPageController.class));
+            Assertions.assertEquals(1, child.size());
+        } finally {
+            beanContainer.removeBean(HeadLineServiceImpl.class);
+        }
+    }
+
+    @DisplayName("按依赖顺序初始化，按相反的顺序销毁：lifecycleTest")
+    @Order(12)
+    @Test
+    public void lifecycleTest(){
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        LifecycleDao dao = new LifecycleDao(events);
+        LifecycleService service = new LifecycleService(events);
+        beanContainer.addBean(LifecycleDao.class, dao);
+        beanContainer.addBean(LifecycleService.class, service);
+        try {
+            beanContainer.initializeBeans(new HashSet<>(Arrays.asList(LifecycleDao.class, LifecycleService.class)));
+            Assertions.assertEquals(Arrays.asList("init dao", "init service"), events);
+
+            events.clear();
+            long start = System.currentTimeMillis();
+            beanContainer.destroyBeans(200);
+            // dao 的销毁方法会超时，但不会阻塞整个关闭流程
+            Assertions.assertTrue(System.currentTimeMillis() - start < 2000);
+            Assertions.assertEquals("destroy service", events.get(0));
+        } finally {
+            beanContainer.removeBean(LifecycleDao.class);
+            beanContainer.removeBean(LifecycleService.class);
+        }
+    }
+
+    @DisplayName("相互隔离的容器实例可以并行地装配：isolatedContainerTest")
+    @Order(13)
+    @Test
+    public void isolatedContainerTest() throws Exception {
+        List<BeanContainer> containers = Arrays.asList(new BeanContainer(), new BeanContainer());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (BeanContainer container : containers) {
+            container.addBean(LifecycleDao.class, new LifecycleDao(new ArrayList<>()));
+            container.addBean(LifecycleService.class, new LifecycleService(new ArrayList<>()));
+            futures.add(CompletableFuture.runAsync(() -> new DependencyInjector(container).doIoc()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        for (BeanContainer container : containers) {
+            LifecycleService service = (LifecycleService) container.getBean(LifecycleService.class);
+            Assertions.assertSame(container.getBean(LifecycleDao.class), service.lifecycleDao);
+            Assertions.assertNull(container.getParent());
+        }
+        Assertions.assertNotSame(containers.get(0).getBean(LifecycleDao.class), containers.get(1).getBean(LifecycleDao.class));
+        // 全局容器不受影响
+        Assertions.assertFalse(beanContainer.containsBean(LifecycleService.class));
+    }
+
+    @DisplayName("统计加载之后实际从未被初始化的类：uninitializedClassCountTest")
+    @Order(14)
+    @Test
+    public void uninitializedClassCountTest(){
+        BeanContainer container = new BeanContainer();
+        // 与扫描时一样，传入的都是 Bean 类（其中 DisabledProbeBean 会被条件注解过滤掉）
+        container.loadBeans(Arrays.asList(EagerProbeBean.class, LazyProbeBean.class, DisabledProbeBean.class));
+        container.initializeBeans();
+        Assertions.assertEquals(2, container.getUninitializedClassCount());
+        // 通过类注入延迟加载的 Bean 时会创建它的子类，此时它就被初始化了（即使还没有创建它的实例）
+        container.getBeanReference(LazyProbeBean.class, LazyProbeBean.class);
+        Assertions.assertEquals(1, container.getUninitializedClassCount());
+        // 每个容器都单独统计
+        Assertions.assertEquals(0, new BeanContainer().getUninitializedClassCount());
+    }
+
+    @DisplayName("不同包下的同名 Bean 类：duplicateBeanNameTest")
+    @Order(15)
+    @Test
+    public void duplicateBeanNameTest(){
+        BeanContainer container = new BeanContainer();
+        org.simpleframework.core.mock.first.DuplicateBean first = new org.simpleframework.core.mock.first.DuplicateBean();
+        container.addBean(org.simpleframework.core.mock.first.DuplicateBean.class, first);
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> container.addBean(
+                org.simpleframework.core.mock.second.DuplicateBean.class, new org.simpleframework.core.mock.second.DuplicateBean()));
+        // 异常信息中同时给出两个类，并且容器没有被修改
+        Assertions.assertTrue(e.getMessage().contains(org.simpleframework.core.mock.first.DuplicateBean.class.getName()));
+        Assertions.assertTrue(e.getMessage().contains(org.simpleframework.core.mock.second.DuplicateBean.class.getName()));
+        Assertions.assertFalse(container.containsBean(org.simpleframework.core.mock.second.DuplicateBean.class));
+        Assertions.assertEquals(1, container.size());
+
+        // 移除另一个同名的类时不会影响已有的名称索引
+        container.removeBean(org.simpleframework.core.mock.second.DuplicateBean.class);
+        Assertions.assertSame(first, container.getBean("DuplicateBean"));
+
+        // 先注册的类被移除之后，同名的另一个类就可以注册了
+        container.removeBean(org.simpleframework.core.mock.first.DuplicateBean.class);
+        Assertions.assertNull(container.getBean("DuplicateBean"));
+        container.addBean(org.simpleframework.core.mock.second.DuplicateBean.class, new org.simpleframework.core.mock.second.DuplicateBean());
+        Assertions.assertEquals(org.simpleframework.core.mock.second.DuplicateBean.class, container.getBeanClass("DuplicateBean"));
+    }
+
+    @DisplayName("子容器中有自己的实现类时，仍然可以按名称获取父容器中的 Bean：parentNamedBeanTest")
+    @Order(16)
+    @Test
+    public void parentNamedBeanTest(){
+        BeanContainer parent = new BeanContainer();
+        parent.loadBeans(Arrays.asList(ParentGreeter.class, LazyBean.class));
+        BeanContainer child = parent.createChild();
+        ChildGreeter childGreeter = new ChildGreeter();
+        child.addBean(ChildGreeter.class, childGreeter);
+
+        // 按类型查找实现类时，子容器中的实现类会覆盖父容器中的实现类
+        Assertions.assertEquals(Collections.singleton(ChildGreeter.class), child.getClassesBySuper(Greeter.class));
+        Assertions.assertSame(childGreeter, child.getBean("ChildGreeter"));
+        // 按名称或者类查找时，父容器中的 Bean 仍然可以被找到
+        Assertions.assertSame(parent.getBean(ParentGreeter.class), child.getBean("ParentGreeter"));
+        Assertions.assertEquals(ParentGreeter.class, child.getBeanClass("ParentGreeter"));
+        Assertions.assertTrue(child.containsBean(ParentGreeter.class));
+        Assertions.assertTrue(child.isLazy(LazyBean.class));
+        Assertions.assertFalse(child.isScoped(LazyBean.class));
+        // 遍历 Bean 的方法只返回子容器自己的 Bean
+        Assertions.assertEquals(Collections.singleton(ChildGreeter.class), child.getClassesByAnnotation(Component.class));
+        Assertions.assertEquals(Collections.singleton(ChildGreeter.class), child.getClasses());
+    }
+
+    @DisplayName("多个线程同时第一次获取延迟加载的 Bean 时只初始化一次：concurrentLazyBeanTest")
+    @Order(17)
+    @Test
+    public void concurrentLazyBeanTest() throws Exception {
+        BeanContainer container = new BeanContainer();
+        container.loadBeans(Collections.singletonList(SlowLazyBean.class));
+        SlowLazyBean.INIT_COUNT.set(0);
+        int threadCount = 8;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    return container.getBean(SlowLazyBean.class);
+                }));
+            }
+            startLatch.countDown();
+            Object bean = futures.get(0).get();
+            for (Future<Object> future : futures) {
+                Assertions.assertSame(bean, future.get());
+            }
+            Assertions.assertEquals(1, SlowLazyBean.INIT_COUNT.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("通过类注入延迟加载的 Bean 时不会调用它的构造方法：classReferenceTest")
+    @Order(18)
+    @Test
+    public void classReferenceTest(){
+        BeanContainer container = new BeanContainer();
+        container.loadBeans(Collections.singletonList(CountingLazyBean.class));
+        CountingLazyBean.CONSTRUCTED.set(0);
+        CountingLazyBean reference = (CountingLazyBean) container.getBeanReference(CountingLazyBean.class, CountingLazyBean.class);
+        Assertions.assertEquals(0, CountingLazyBean.CONSTRUCTED.get());
+        // 第一次调用方法时才会创建唯一的一个实例
+        Assertions.assertEquals("lazy", reference.name());
+        Assertions.assertEquals("lazy", reference.name());
+        Assertions.assertEquals(1, CountingLazyBean.CONSTRUCTED.get());
+
+        // 作用域代理类对象也不会调用构造方法
+        RequestCounter.CONSTRUCTED.set(0);
+        container.addBean(RequestCounter.class, new ScopedBeanHolder(RequestCounter.class, container));
+        container.getBeanReference(RequestCounter.class, RequestCounter.class);
+        Assertions.assertEquals(0, RequestCounter.CONSTRUCTED.get());
+    }
+
+    @DisplayName("PROTOTYPE 作用域的引用在每个请求中绑定一个实例，请求结束时才放回对象池：prototypeReferenceTest")
+    @Order(19)
+    @Test
+    public void prototypeReferenceTest(){
+        BeanContainer container = new BeanContainer();
+        ScopedBeanHolder holder = new ScopedBeanHolder(PooledPrototype.class, container);
+        container.addBean(PooledPrototype.class, holder);
+        PooledPrototype first = (PooledPrototype) container.getBeanReference(PooledPrototype.class, PooledPrototype.class);
+        PooledPrototype second = (PooledPrototype) container.getBeanReference(PooledPrototype.class, PooledPrototype.class);
+
+        RequestScope.begin();
+        // 同一个引用在同一个请求中操作的是同一个实例，不同的引用操作的是不同的实例
+        Assertions.assertEquals(1, first.increment());
+        Assertions.assertEquals(2, first.increment());
+        Assertions.assertEquals(1, second.increment());
+        Assertions.assertEquals(0, holder.getBeanPool().getIdleCount());
+        RequestScope.end();
+        Assertions.assertEquals(2, holder.getBeanPool().getIdleCount());
+
+        // 不在请求中时每个线程绑定一个实例，不会从对象池中获取实例
+        Assertions.assertEquals(1, first.increment());
+        Assertions.assertEquals(2, first.increment());
+        Assertions.assertEquals(2, holder.getBeanPool().getIdleCount());
+    }
+
+    @Component
+    public static class LifecycleDao {
+        private final List<String> events;
+
+        LifecycleDao(List<String> events) {
+            this.events = events;
+        }
+
+        @PostConstruct
+        private void init() {
+            events.add("init dao");
+        }
+
+        @PreDestroy
+        private void close() throws InterruptedException {
+            Thread.sleep(10000);
+        }
+    }
+
+    @Component
+    public static class LifecycleService {
+        @Autowired
+        private LifecycleDao lifecycleDao;
+        private final List<String> events;
+
+        LifecycleService(List<String> events) {
+            this.events = events;
+        }
+
+        @PostConstruct
+        private void init() {
+            events.add("init service");
+        }
+
+        @PreDestroy
+        private void close() {
+            events.add("destroy service");
+        }
+    }
+
+    @Lazy
+    @Component
+    public static class SlowLazyBean {
+        static final AtomicInteger INIT_COUNT = new AtomicInteger();
+
+        @PostConstruct
+        private void init() throws InterruptedException {
+            INIT_COUNT.incrementAndGet();
+            // 让其他线程有足够的时间同时进入 get() 方法
+            Thread.sleep(50);
+        }
+    }
+
+    @Lazy
+    @Component
+    public static class CountingLazyBean {
+        static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+        public CountingLazyBean() {
+            CONSTRUCTED.incrementAndGet();
+        }
+
+        public String name() {
+            return "lazy";
+        }
+    }
 
+    @Component
+    public static class EagerProbeBean {
+    }
+
+    @Lazy
+    @Component
+    public static class LazyProbeBean {
+    }
+
+    @ConditionalOnProperty(name = "simpleframework.test.disabled-probe", havingValue = "true")
+    @Component
+    public static class DisabledProbeBean {
+    }
+
+    @Component("requestCounter")
+    public static class NamedBean {
+    }
+
+    @Lazy
+    @Component
+    public static class LazyBean {
+    }
+
+    public interface Greeter {
+    }
+
+    @Component
+    public static class ParentGreeter implements Greeter {
+    }
+
+    @Component
+    public static class ChildGreeter implements Greeter {
+    }
+
+    @Scope(value = ScopeType.PROTOTYPE, pooled = true)
+    public static class PooledPrototype implements Resettable {
+        private int count;
+
+        public int increment() {
+            return ++count;
+        }
+
+        @Override
+        public void reset() {
+            count = 0;
+        }
+    }
+
+    @Scope(value = ScopeType.REQUEST, pooled = true)
+    public static class RequestCounter implements Resettable {
+        static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+        private int count;
+
+        public RequestCounter() {
+            CONSTRUCTED.incrementAndGet();
+        }
+
+        public int increment() {
+            return ++count;
+        }
+
+        @Override
+        public void reset() {
+            count = 0;
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package org.simpleframework.core;
+
+import com.imooc.controller.frontend.MainPageController;
+import com.imooc.service.combine.impl.HeadLineShopCategoryCombineServiceImpl;
+import com.imooc.service.solo.impl.HeadLineServiceImpl;
+import com.imooc.service.solo.impl.ShopCategoryServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.inject.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BeanDependencyGraphTest {
+    @DisplayName("按依赖关系拓扑排序：sortTest")
+    @Test
+    public void sortTest() {
+        BeanDependencyGraph graph = BeanDependencyGraph.build(Arrays.asList(MainPageController.class,
+                HeadLineShopCategoryCombineServiceImpl.class, HeadLineServiceImpl.class, ShopCategoryServiceImpl.class));
+        List<Class<?>> sortedClassList = graph.getSortedClasses();
+        Assertions.assertEquals(4, sortedClassList.size());
+        Assertions.assertTrue(sortedClassList.indexOf(HeadLineServiceImpl.class) < sortedClassList.indexOf(HeadLineShopCategoryCombineServiceImpl.class));
+        Assertions.assertTrue(sortedClassList.indexOf(ShopCategoryServiceImpl.class) < sortedClassList.indexOf(HeadLineShopCategoryCombineServiceImpl.class));
+        Assertions.assertTrue(sortedClassList.indexOf(HeadLineShopCategoryCombineServiceImpl.class) < sortedClassList.indexOf(MainPageController.class));
+        Assertions.assertTrue(graph.getCyclePaths().isEmpty());
+    }
+
+    @DisplayName("循环依赖时打印完整的依赖路径：cycleTest")
+    @Test
+    public void cycleTest() {
+        BeanDependencyGraph graph = BeanDependencyGraph.build(Arrays.asList(CycleA.class, CycleB.class));
+        Assertions.assertEquals(2, graph.getSortedClasses().size());
+        Assertions.assertEquals(1, graph.getCyclePaths().size());
+        Assertions.assertEquals(CycleA.class.getName() + " -> " + CycleB.class.getName() + " -> " + CycleA.class.getName(),
+                graph.getCyclePaths().get(0));
+    }
+
+    static class CycleA {
+        @Autowired
+        private CycleB cycleB;
+    }
+
+    static class CycleB {
+        @Autowired
+        private CycleA cycleA;
+    }
+}
@@ -0,0 +1,60 @@
+package org.simpleframework.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.core.annotation.Component;
+import org.simpleframework.core.annotation.Service;
+import org.simpleframework.inject.annotation.Autowired;
+import org.simpleframework.mvc.annotation.RequestMapping;
+import org.simpleframework.mvc.annotation.RequestParam;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.List;
+
+public class ClassMetadataTest {
+    @DisplayName("同一个类的反射元数据只读取一次，之后都从缓存中获取：classMetadataTest")
+    @Test
+    public void classMetadataTest() throws NoSuchMethodException {
+        ClassMetadata metadata = ClassMetadata.of(SampleBean.class);
+        Assertions.assertSame(metadata, ClassMetadata.of(SampleBean.class));
+        Assertions.assertSame(metadata.getFields(), ClassMetadata.of(SampleBean.class).getFields());
+
+        Assertions.assertTrue(metadata.isAnnotationPresent(Component.class));
+        Assertions.assertFalse(metadata.isAnnotationPresent(Service.class));
+        Assertions.assertEquals("sample", metadata.getAnnotation(Component.class).value());
+
+        List<Field> autowiredFields = metadata.getAnnotatedFields(Autowired.class);
+        Assertions.assertEquals(1, autowiredFields.size());
+        Assertions.assertEquals("dependency", autowiredFields.get(0).getName());
+        Assertions.assertSame(autowiredFields, metadata.getAnnotatedFields(Autowired.class));
+        Assertions.assertNotNull(metadata.getField("plain"));
+        Assertions.assertNull(metadata.getField("absent"));
+
+        List<Method> mappedMethods = metadata.getAnnotatedMethods(RequestMapping.class);
+        Assertions.assertEquals(1, mappedMethods.size());
+        List<Parameter> parameters = metadata.getParameters(mappedMethods.get(0));
+        Assertions.assertEquals("name", parameters.get(0).getAnnotation(RequestParam.class).value());
+        Assertions.assertSame(parameters, metadata.getParameters(mappedMethods.get(0)));
+
+        Method foreignMethod = Object.class.getDeclaredMethod("toString");
+        Assertions.assertThrows(RuntimeException.class, () -> metadata.getParameters(foreignMethod));
+    }
+
+    @Component("sample")
+    static class SampleBean {
+        @Autowired
+        private Object dependency;
+        private Object plain;
+
+        @RequestMapping("/hello")
+        public String hello(@RequestParam("name") String name) {
+            return name;
+        }
+
+        public void other() {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.simpleframework.core.index;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BeanIndexProcessorTest {
+    @DisplayName("编译期生成 Bean 索引：processTest")
+    @Test
+    public void processTest() throws Exception {
+        Path sourceDir = Files.createTempDirectory("bean-index-src");
+        Path outputDir = Files.createTempDirectory("bean-index-out");
+        Path packageDir = Files.createDirectories(sourceDir.resolve("sample"));
+        Path source = packageDir.resolve("SampleController.java");
+        Files.write(source, ("package sample;\n"
+                + "import org.simpleframework.core.annotation.Controller;\n"
+                + "import org.simpleframework.inject.annotation.Autowired;\n"
+                + "import org.simpleframework.mvc.annotation.RequestMapping;\n"
+                + "import org.simpleframework.mvc.type.RequestMethod;\n"
+                + "@Controller\n"
+                + "@RequestMapping(\"/sample\")\n"
+                + "public class SampleController {\n"
+                + "    @Autowired(\"SampleServiceImpl\")\n"
+                + "    private Runnable sampleService;\n"
+                + "    @RequestMapping(value = \"/list\", method = RequestMethod.POST)\n"
+                + "    public void list() {}\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+
+        Path serviceSource = packageDir.resolve("SampleService.java");
+        Files.write(serviceSource, ("package sample;\n"
+                + "import org.simpleframework.core.annotation.Service;\n"
+                + "@Service\n"
+                + "public class SampleService {\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(0, compile(outputDir, source, serviceSource));
+
+        // 增量编译：只重新编译 SampleService（并去掉它的注解），SampleController 的记录仍然要保留下来
+        Files.write(serviceSource, ("package sample;\n"
+                + "public class SampleService {\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        Path otherSource = packageDir.resolve("OtherService.java");
+        Files.write(otherSource, ("package sample;\n"
+                + "import org.simpleframework.core.annotation.Service;\n"
+                + "@Service\n"
+                + "public class OtherService {\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(0, compile(outputDir, serviceSource, otherSource));
+
+        Path unindexedDir = Files.createTempDirectory("bean-index-unindexed");
+        Files.createDirectories(unindexedDir.resolve("sample"));
+        ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{outputDir.toUri().toURL()}, getClass().getClassLoader())) {
+            BeanIndex beanIndex = BeanIndex.load(classLoader);
+            Assertions.assertNotNull(beanIndex);
+            // 父类加载器中还有本项目自己在编译期生成的索引文件，这里只检查 sample 包下的记录
+            Assertions.assertEquals(Arrays.asList("sample.SampleController", "sample.OtherService"), beanIndex.getBeanClassNames().stream()
+                    .filter(className -> className.startsWith("sample."))
+                    .collect(Collectors.toList()));
+            Assertions.assertTrue(beanIndex.isCovered("sample", classLoader));
+
+            Thread.currentThread().setContextClassLoader(classLoader);
+            Assertions.assertEquals(2, beanIndex.getBeanClasses("sample").size());
+
+            // 该包还存在于一个没有索引文件的根中时，就不能只依赖索引了
+            try (URLClassLoader mixedLoader = new URLClassLoader(new URL[]{outputDir.toUri().toURL(), unindexedDir.toUri().toURL()},
+                    getClass().getClassLoader())) {
+                Assertions.assertFalse(BeanIndex.load(mixedLoader).isCovered("sample", mixedLoader));
+                Assertions.assertFalse(BeanIndex.load(mixedLoader).isCovered("org.simpleframework", mixedLoader));
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalClassLoader);
+        }
+    }
+
+    private int compile(Path outputDir, Path... sources) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path") + File.pathSeparator + outputDir,
+                "-processor", BeanIndexProcessor.class.getName(),
+                "-d", outputDir.toString()));
+        for (Path source : sources) {
+            arguments.add(source.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        return compiler.run(null, null, null, arguments.toArray(new String[0]));
+    }
+}
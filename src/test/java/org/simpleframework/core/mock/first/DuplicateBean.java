@@ -0,0 +1,7 @@
+package org.simpleframework.core.mock.first;
+
+import org.simpleframework.core.annotation.Component;
+
+@Component
+public class DuplicateBean {
+}
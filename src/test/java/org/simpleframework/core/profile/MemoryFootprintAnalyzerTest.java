@@ -0,0 +1,91 @@
+package org.simpleframework.core.profile;
+
+import net.sf.cglib.proxy.MethodInterceptor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.aop.ProxyCreator;
+import org.simpleframework.core.BeanContainer;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MemoryFootprintAnalyzerTest {
+    @DisplayName("估算每个 Bean，代理以及子系统所占用的内存：analyzeTest")
+    @Test
+    public void analyzeTest() throws Exception {
+        BeanContainer beanContainer = new BeanContainer();
+        BigBean bigBean = new BigBean();
+        SmallBean smallBean = new SmallBean();
+        // 循环引用，以及 Bean 之间的相互引用
+        bigBean.self = bigBean;
+        bigBean.smallBean = smallBean;
+        smallBean.bigBean = bigBean;
+        beanContainer.addBean(BigBean.class, bigBean);
+        beanContainer.addBean(SmallBean.class, smallBean);
+        byte[] interceptorState = new byte[2048];
+        MethodInterceptor interceptor = (obj, method, args, methodProxy) -> interceptorState.length > 0 ? methodProxy.invokeSuper(obj, args) : null;
+        beanContainer.addBean(ProxiedBean.class, ProxyCreator.createProxy(ProxiedBean.class, interceptor));
+        Map<String, Object> routeTable = new HashMap<>();
+        routeTable.put("/big", bigBean);
+        routeTable.put("/payload", new byte[512]);
+
+        MemoryFootprintReport report = new MemoryFootprintAnalyzer(beanContainer).addSubsystem("routes", routeTable).analyze();
+        Map<String, MemoryFootprintReport.BeanFootprint> beanFootprints = report.getBeans().stream()
+                .collect(Collectors.toMap(MemoryFootprintReport.BeanFootprint::getBeanClass, bean -> bean));
+        MemoryFootprintReport.BeanFootprint big = beanFootprints.get(BigBean.class.getName());
+        MemoryFootprintReport.BeanFootprint small = beanFootprints.get(SmallBean.class.getName());
+        MemoryFootprintReport.BeanFootprint proxied = beanFootprints.get(ProxiedBean.class.getName());
+        Assertions.assertEquals(BigBean.class.getName(), report.getBeans().get(0).getBeanClass());
+        Assertions.assertTrue(big.getRetainedBytes() >= 4096 + 100 * 16);
+        // 其他 Bean 不会被计入
+        Assertions.assertTrue(small.getRetainedBytes() < 256);
+        Assertions.assertEquals("singleton", small.getKind());
+        // 代理的开销（即拦截器引用的对象）被单独统计
+        Assertions.assertTrue(proxied.getProxyBytes() >= 2048);
+        Assertions.assertEquals(0, big.getProxyBytes());
+
+        Map<String, MemoryFootprintReport.SubsystemFootprint> subsystems = report.getSubsystems().stream()
+                .collect(Collectors.toMap(MemoryFootprintReport.SubsystemFootprint::getName, subsystem -> subsystem));
+        Assertions.assertTrue(subsystems.get("proxies").getRetainedBytes() >= 2048);
+        Assertions.assertTrue(subsystems.get("routes").getRetainedBytes() >= 512);
+        Assertions.assertTrue(subsystems.get("routes").getRetainedBytes() < 4096);
+        Assertions.assertTrue(subsystems.get("container").getRetainedBytes() > 0);
+
+        // 访问的对象数达到上限时停止遍历
+        MemoryFootprintReport truncatedReport = new MemoryFootprintAnalyzer(beanContainer, 10).analyze();
+        Assertions.assertTrue(truncatedReport.getBeans().stream()
+                .anyMatch(bean -> bean.getBeanClass().equals(BigBean.class.getName()) && bean.isTruncated()));
+
+        File reportFile = new File(Files.createTempDirectory("memory-footprint").toFile(), MemoryFootprintAnalyzer.REPORT_FILE_NAME);
+        report.writeTo(reportFile);
+        Assertions.assertTrue(new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8).contains(BigBean.class.getName()));
+    }
+
+    public static class BigBean {
+        private final byte[] payload = new byte[4096];
+        private final List<Integer> numbers = new ArrayList<>();
+        private BigBean self;
+        private SmallBean smallBean;
+
+        public BigBean() {
+            for (int i = 0; i < 100; i++) {
+                numbers.add(i + 1000);
+            }
+        }
+    }
+
+    public static class SmallBean {
+        private BigBean bigBean;
+    }
+
+    public static class ProxiedBean {
+        private int counter;
+    }
+}
@@ -0,0 +1,49 @@
+package org.simpleframework.core.profile;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class StartupProfilerTest {
+    @DisplayName("记录启动步骤并输出报告：finishTest")
+    @Test
+    public void finishTest() throws Exception {
+        StartupProfiler profiler = new StartupProfiler(true);
+        for (int i = 0; i < 3; i++) {
+            profiler.time("aspect", "SampleAspect", () -> LockSupport.parkNanos(1_000_000));
+        }
+        Assertions.assertEquals("loaded", profiler.time("phase", "loadBeans", () -> "loaded"));
+        File reportFile = new File(Files.createTempDirectory("startup-profile").toFile(), StartupProfiler.REPORT_FILE_NAME);
+        profiler.finish(reportFile);
+
+        List<Map<String, Object>> records = new Gson().fromJson(
+                new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8),
+                new TypeToken<List<Map<String, Object>>>() {}.getType());
+        Map<Object, Map<String, Object>> recordMap = records.stream()
+                .collect(Collectors.toMap(record -> record.get("name"), Function.identity()));
+        Assertions.assertEquals(2, recordMap.size());
+        Assertions.assertEquals(3.0, recordMap.get("SampleAspect").get("count"));
+        Assertions.assertEquals(1.0, recordMap.get("loadBeans").get("count"));
+        Assertions.assertTrue(profiler.getRecords().isEmpty());
+    }
+
+    @DisplayName("未开启启动分析时不记录任何步骤：disabledTest")
+    @Test
+    public void disabledTest() {
+        StartupProfiler profiler = new StartupProfiler(false);
+        StartupStep step = profiler.start("phase", "loadBeans");
+        step.end();
+        Assertions.assertTrue(profiler.getRecords().isEmpty());
+    }
+}
@@ -0,0 +1,150 @@
+package org.simpleframework.core.reload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.core.BeanContainer;
+import org.simpleframework.inject.DependencyInjector;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HotReloaderTest {
+    // 被替换掉的 GreeterImpl 实例在销毁时会把自己的版本号记录到这里
+    public static final List<String> DESTROYED = new CopyOnWriteArrayList<>();
+
+    @DisplayName("热加载时发布下一代容器，等待上一代容器上的请求处理完毕之后再销毁旧实例：reloadTest")
+    @Test
+    public void reloadTest() throws Exception {
+        Path sourceDir = Files.createTempDirectory("hot-reload-src");
+        Path outputDir = Files.createTempDirectory("hot-reload-out");
+        Path packageDir = Files.createDirectories(sourceDir.resolve("sample"));
+        Path greeterSource = packageDir.resolve("GreeterImpl.java");
+        writeGreeter(greeterSource, "v1", true);
+        Path controllerSource = packageDir.resolve("GreetingController.java");
+        Files.write(controllerSource, ("package sample;\n"
+                + "import org.simpleframework.core.annotation.Controller;\n"
+                + "import org.simpleframework.inject.annotation.Autowired;\n"
+                + "@Controller\n"
+                + "public class GreetingController implements java.util.concurrent.Callable<String> {\n"
+                + "    @Autowired\n"
+                + "    private java.util.function.Supplier<String> greeter;\n"
+                + "    public String call() { return greeter.get(); }\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        Path clockSource = packageDir.resolve("Clock.java");
+        Files.write(clockSource, ("package sample;\n"
+                + "import org.simpleframework.core.annotation.Component;\n"
+                + "@Component\n"
+                + "public class Clock {\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(0, compile(outputDir, greeterSource, controllerSource, clockSource));
+
+        DESTROYED.clear();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{outputDir.toUri().toURL()}, getClass().getClassLoader())) {
+            BeanContainer current = new BeanContainer();
+            current.loadBeans(Arrays.asList(classLoader.loadClass("sample.GreeterImpl"),
+                    classLoader.loadClass("sample.GreetingController"), classLoader.loadClass("sample.Clock")));
+            new DependencyInjector(current).doIoc();
+            current.freeze();
+            Class<?> controllerClass = classLoader.loadClass("sample.GreetingController");
+            Class<?> clockClass = classLoader.loadClass("sample.Clock");
+            Object oldController = current.getBean(controllerClass);
+
+            HotReloader hotReloader = new HotReloader(current, Collections.emptyList(), outputDir.toFile(), classLoader);
+            AtomicReference<BeanContainer> published = new AtomicReference<>();
+            hotReloader.addReloadListener(published::set);
+            try {
+                // 重新编译 GreeterImpl 之后热加载
+                writeGreeter(greeterSource, "v2", true);
+                Assertions.assertEquals(0, compile(outputDir, greeterSource));
+                // 上一代容器上还有请求正在处理中时，发布下一代容器之后要等到该请求处理完毕才会销毁被替换掉的实例
+                current.beginRequest();
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                Future<?> reloading = executor.submit(() -> {
+                    hotReloader.reload(Collections.singleton("sample.GreeterImpl"), Collections.emptySet());
+                    return null;
+                });
+                try {
+                    while (published.get() == null) {
+                        Thread.sleep(10);
+                    }
+                    Thread.sleep(200);
+                    Assertions.assertFalse(reloading.isDone());
+                    Assertions.assertTrue(DESTROYED.isEmpty());
+                    Assertions.assertEquals("v1", call(oldController));
+                } finally {
+                    current.endRequest();
+                    reloading.get();
+                    executor.shutdown();
+                }
+
+                BeanContainer next = hotReloader.getBeanContainer();
+                Assertions.assertNotSame(current, next);
+                Assertions.assertSame(next, published.get());
+                Assertions.assertTrue(next.isFrozen());
+                // 依赖了 GreeterImpl 的 Controller 在下一代容器中被重新创建，没有变化也没有依赖它的 Bean 则直接复用
+                Assertions.assertEquals("v2", call(next.getBean(controllerClass)));
+                Assertions.assertSame(current.getBean(clockClass), next.getBean(clockClass));
+                // 上一代容器没有被修改，正在处理中的请求仍然可以用它处理完毕
+                Assertions.assertSame(oldController, current.getBean(controllerClass));
+                Assertions.assertEquals("v1", call(oldController));
+                Assertions.assertEquals(Collections.singletonList("v1"), DESTROYED);
+
+                // 下一次热加载失败（GreeterImpl 不再是 Bean 了，Controller 无法完成依赖注入）时，仍然保留当前这一代容器
+                writeGreeter(greeterSource, "v3", false);
+                Assertions.assertEquals(0, compile(outputDir, greeterSource));
+                Assertions.assertThrows(RuntimeException.class,
+                        () -> hotReloader.reload(Collections.singleton("sample.GreeterImpl"), Collections.emptySet()));
+                Assertions.assertSame(next, hotReloader.getBeanContainer());
+                Assertions.assertSame(next, published.get());
+                Assertions.assertEquals("v2", call(next.getBean(controllerClass)));
+                Assertions.assertEquals(Collections.singletonList("v1"), DESTROYED);
+            } finally {
+                hotReloader.stop();
+            }
+        }
+    }
+
+    private static String call(Object controller) throws Exception {
+        return ((Callable<?>) controller).call().toString();
+    }
+
+    private static void writeGreeter(Path source, String version, boolean bean) throws Exception {
+        Files.write(source, ("package sample;\n"
+                + "import org.simpleframework.core.annotation.PreDestroy;\n"
+                + (bean ? "@org.simpleframework.core.annotation.Service\n" : "")
+                + "public class GreeterImpl implements java.util.function.Supplier<String> {\n"
+                + "    public String get() { return \"" + version + "\"; }\n"
+                + "    @PreDestroy\n"
+                + "    public void destroy() { org.simpleframework.core.reload.HotReloaderTest.DESTROYED.add(get()); }\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int compile(Path outputDir, Path... sources) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path") + File.pathSeparator + outputDir,
+                "-proc:none",
+                "-d", outputDir.toString()));
+        for (Path source : sources) {
+            arguments.add(source.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        return compiler.run(null, null, null, arguments.toArray(new String[0]));
+    }
+}
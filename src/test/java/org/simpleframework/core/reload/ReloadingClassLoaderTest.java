@@ -0,0 +1,28 @@
+package org.simpleframework.core.reload;
+
+import com.imooc.controller.frontend.MainPageController;
+import com.imooc.service.combine.HeadLineShopCategoryCombineService;
+import com.imooc.service.combine.impl.HeadLineShopCategoryCombineServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+
+public class ReloadingClassLoaderTest {
+    @DisplayName("只重新定义指定的类：loadClassTest")
+    @Test
+    public void loadClassTest() throws Exception {
+        File classesDirectory = new File(MainPageController.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        ReloadingClassLoader classLoader = new ReloadingClassLoader(classesDirectory,
+                Collections.singleton(HeadLineShopCategoryCombineServiceImpl.class.getName()), getClass().getClassLoader());
+
+        Class<?> reloadedClass = classLoader.loadClass(HeadLineShopCategoryCombineServiceImpl.class.getName());
+        Assertions.assertNotSame(HeadLineShopCategoryCombineServiceImpl.class, reloadedClass);
+        Assertions.assertSame(reloadedClass, classLoader.loadClass(HeadLineShopCategoryCombineServiceImpl.class.getName()));
+        // 重新加载出来的类仍然可以赋值给父类加载器中的接口
+        Assertions.assertTrue(HeadLineShopCategoryCombineService.class.isAssignableFrom(reloadedClass));
+        Assertions.assertSame(MainPageController.class, classLoader.loadClass(MainPageController.class.getName()));
+    }
+}
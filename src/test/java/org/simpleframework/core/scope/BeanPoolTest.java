@@ -0,0 +1,40 @@
+package org.simpleframework.core.scope;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BeanPoolTest {
+    @DisplayName("归还的实例被重置后复用：acquireReleaseTest")
+    @Test
+    public void acquireReleaseTest() {
+        AtomicInteger createdCount = new AtomicInteger();
+        BeanPool beanPool = new BeanPool(1, () -> {
+            createdCount.incrementAndGet();
+            return new Counter();
+        });
+        Counter counter = (Counter) beanPool.acquire();
+        counter.value = 5;
+        beanPool.release(counter);
+        Assertions.assertEquals(1, beanPool.getIdleCount());
+        Assertions.assertSame(counter, beanPool.acquire());
+        Assertions.assertEquals(0, counter.value);
+        Assertions.assertEquals(1, createdCount.get());
+
+        // 空闲列表满了之后归还的实例会被直接丢弃
+        beanPool.release(new Counter());
+        beanPool.release(new Counter());
+        Assertions.assertEquals(1, beanPool.getIdleCount());
+    }
+
+    static class Counter implements Resettable {
+        int value;
+
+        @Override
+        public void reset() {
+            value = 0;
+        }
+    }
+}
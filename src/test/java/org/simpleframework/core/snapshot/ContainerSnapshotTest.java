@@ -0,0 +1,48 @@
+package org.simpleframework.core.snapshot;
+
+import com.imooc.controller.frontend.MainPageController;
+import com.imooc.service.combine.impl.HeadLineShopCategoryCombineServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.util.ClassUtil;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class ContainerSnapshotTest {
+    @DisplayName("保存并恢复容器快照：saveAndLoadTest")
+    @Test
+    public void saveAndLoadTest() throws Exception {
+        File workDirectory = Files.createTempDirectory("container-snapshot").toFile();
+        String fingerprint = ClassUtil.fingerprintPackage("com.imooc");
+        Assertions.assertNotNull(fingerprint);
+        Assertions.assertEquals(fingerprint, ClassUtil.fingerprintPackage("com.imooc"));
+
+        ContainerSnapshot.capture("com.imooc", fingerprint,
+                new HashSet<>(Arrays.asList(MainPageController.class, HeadLineShopCategoryCombineServiceImpl.class)),
+                Collections.singletonList(new ContainerSnapshot.Wiring(MainPageController.class.getName(),
+                        "headLineShopCategoryCombineService", HeadLineShopCategoryCombineServiceImpl.class.getName())),
+                Collections.singletonMap(MainPageController.class, Collections.emptyList()),
+                Collections.singletonList(new ContainerSnapshot.Route("GET", "/main/info",
+                        MainPageController.class.getName(), "getMainPageInfo", Collections.emptyList())))
+                .save(workDirectory);
+
+        ContainerSnapshot snapshot = ContainerSnapshot.load(workDirectory, "com.imooc", fingerprint);
+        Assertions.assertNotNull(snapshot);
+        Assertions.assertEquals(2, snapshot.getBeanClasses().size());
+        Assertions.assertEquals("headLineShopCategoryCombineService", snapshot.getWirings().get(0).getFieldName());
+        Map<Class<?>, List<Class<?>>> proxyClasses = snapshot.getProxyClasses();
+        Assertions.assertTrue(proxyClasses.containsKey(MainPageController.class));
+        Assertions.assertEquals("/main/info", snapshot.getRoutes().get(0).getHttpPath());
+
+        // 指纹不一致时快照就失效了
+        Assertions.assertNull(ContainerSnapshot.load(workDirectory, "com.imooc", fingerprint + "0"));
+        Assertions.assertNull(ContainerSnapshot.load(workDirectory, "com.imooc.entity", fingerprint));
+    }
+}
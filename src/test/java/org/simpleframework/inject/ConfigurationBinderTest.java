@@ -0,0 +1,78 @@
+package org.simpleframework.inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.core.BeanContainer;
+import org.simpleframework.core.annotation.Component;
+import org.simpleframework.core.env.Environment;
+import org.simpleframework.inject.annotation.Autowired;
+import org.simpleframework.inject.annotation.ConfigurationProperties;
+import org.simpleframework.inject.annotation.Value;
+
+public class ConfigurationBinderTest {
+    @DisplayName("绑定配置属性，配置属性变化后整体替换快照，只重新绑定 volatile 的 @Value 成员变量：bindAndReloadTest")
+    @Test
+    public void bindAndReloadTest() {
+        Environment environment = Environment.getInstance();
+        System.setProperty("simpleframework.test.page.pageSize", "20");
+        System.setProperty("simpleframework.test.greeting", "hello");
+        try {
+            environment.reload();
+            BeanContainer container = BeanContainer.getInstance().createChild();
+            container.addBean(PageProperties.class, new PageProperties());
+            container.addBean(PageService.class, new PageService());
+            new ConfigurationBinder(container, environment).doBind();
+            new DependencyInjector(container).doIoc();
+
+            PageService service = (PageService) container.getBean(PageService.class);
+            Assertions.assertEquals(20, service.pageProperties.getPageSize());
+            // 没有该配置属性时保持成员变量的初始值
+            Assertions.assertEquals(1, service.pageProperties.getPageIndex());
+            Assertions.assertEquals("hello", service.greeting);
+            // 没有该配置属性时使用 @Value 注解中的默认值
+            Assertions.assertEquals(3L, service.retries);
+
+            System.setProperty("simpleframework.test.page.pageSize", "50");
+            System.setProperty("simpleframework.test.greeting", "hi");
+            System.setProperty("simpleframework.test.retries", "5");
+            Assertions.assertTrue(environment.reload());
+            // 注入的是代理类对象，因此不需要重新注入就能读到新的配置属性
+            Assertions.assertEquals(50, service.pageProperties.getPageSize());
+            Assertions.assertEquals("hi", service.greeting);
+            // 非 volatile 的成员变量不会被重新绑定，保持启动时绑定的值
+            Assertions.assertEquals(3L, service.retries);
+            Assertions.assertFalse(environment.reload());
+        } finally {
+            System.clearProperty("simpleframework.test.page.pageSize");
+            System.clearProperty("simpleframework.test.greeting");
+            System.clearProperty("simpleframework.test.retries");
+            environment.reload();
+        }
+    }
+
+    @Component
+    @ConfigurationProperties(prefix = "simpleframework.test.page")
+    public static class PageProperties {
+        private int pageIndex = 1;
+        private int pageSize = 10;
+
+        public int getPageIndex() {
+            return pageIndex;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+    }
+
+    @Component
+    public static class PageService {
+        @Autowired
+        PageProperties pageProperties;
+        @Value("${simpleframework.test.greeting}")
+        volatile String greeting;
+        @Value("${simpleframework.test.retries:3}")
+        long retries;
+    }
+}
@@ -0,0 +1,124 @@
+package org.simpleframework.mvc.warmup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.simpleframework.core.snapshot.ContainerSnapshot;
+import org.simpleframework.mvc.RequestProcessorChain;
+import org.simpleframework.mvc.processor.RequestProcessor;
+import org.simpleframework.mvc.processor.impl.PreRequestProcessor;
+import org.simpleframework.mvc.processor.impl.ReadinessRequestProcessor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+public class WarmupRunnerTest {
+    @DisplayName("只保留与路由匹配的样例，只为加了 @Warmup 的路由自动生成样例：collectRequestsTest")
+    @Test
+    public void collectRequestsTest() {
+        List<ContainerSnapshot.Route> routes = Arrays.asList(route("GET", "/list"), route("POST", "/add"),
+                route("GET", "/get"), route("GET", "/remove"));
+        Set<String> warmupRouteKeys = new HashSet<>(Arrays.asList("GET /list", "GET /get"));
+        List<WarmupRequest> declared = Collections.singletonList(
+                new WarmupRequest("GET", "/get", Collections.singletonMap("id", "1")));
+        List<WarmupRequest> recorded = Arrays.asList(
+                new WarmupRequest("GET", "/get", Collections.singletonMap("id", "2")),
+                new WarmupRequest("GET", "/removed", Collections.emptyMap()));
+
+        Map<String, WarmupRequest> requestMap = new HashMap<>();
+        for (WarmupRequest request : WarmupRunner.collectRequests(routes, warmupRouteKeys, declared, recorded)) {
+            requestMap.put(request.routeKey(), request);
+        }
+        // 没有加 @Warmup 的 GET /remove 不会自动生成样例
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("GET /list", "GET /get")), requestMap.keySet());
+        // 手动声明的样例优先于记录下来的样例
+        Assertions.assertEquals("1", requestMap.get("GET /get").getParameters().get("id"));
+    }
+
+    @DisplayName("没有加 @Warmup 的路由只重放手动声明的样例，记录下来的样例不会被重放：collectUnmarkedRouteTest")
+    @Test
+    public void collectUnmarkedRouteTest() {
+        List<ContainerSnapshot.Route> routes = Arrays.asList(route("POST", "/add"), route("GET", "/headline/remove"));
+        List<WarmupRequest> declared = Collections.singletonList(
+                new WarmupRequest("POST", "/add", Collections.singletonMap("name", "declared")));
+        List<WarmupRequest> recorded = Collections.singletonList(
+                new WarmupRequest("GET", "/headline/remove", Collections.singletonMap("lineId", "1")));
+
+        List<WarmupRequest> requestList = WarmupRunner.collectRequests(routes, Collections.emptySet(), declared, recorded);
+        Assertions.assertEquals(1, requestList.size());
+        Assertions.assertEquals("POST /add", requestList.get(0).routeKey());
+    }
+
+    @DisplayName("只读取开启了记录的路由的样例：loadTest")
+    @Test
+    public void loadTest() throws IOException {
+        File workDirectory = Files.createTempDirectory("warmup-requests").toFile();
+        RequestRecorder recorder = new RequestRecorder(workDirectory);
+        recorder.record("GET", "/list", liveRequest(new WarmupRequest("GET", "/list", Collections.singletonMap("id", "1"))));
+        recorder.record("GET", "/remove", liveRequest(new WarmupRequest("GET", "/remove", Collections.singletonMap("id", "1"))));
+        recorder.save();
+
+        // 重启之后 GET /remove 已经关闭了记录，上一次保存的样例被丢弃
+        RequestRecorder restarted = new RequestRecorder(workDirectory);
+        List<WarmupRequest> requestList = restarted.load(Collections.singleton("GET /list"));
+        Assertions.assertEquals(1, requestList.size());
+        Assertions.assertEquals("GET /list", requestList.get(0).routeKey());
+        Assertions.assertEquals(1, restarted.getRecords().size());
+    }
+
+    @DisplayName("通过请求处理器链重放样例之后才就绪：runTest")
+    @Test
+    public void runTest() {
+        WarmupRequest warmupRequest = new WarmupRequest("GET", "/list/", Collections.singletonMap("id", "1"));
+        List<String> handledList = new ArrayList<>();
+        List<RequestProcessor> processorList = new ArrayList<>();
+        WarmupRunner[] runnerHolder = new WarmupRunner[1];
+        processorList.add(new PreRequestProcessor());
+        processorList.add(new ReadinessRequestProcessor("/ready", () -> runnerHolder[0].isReady()));
+        processorList.add(chain -> handledList.add(chain.getRequestPath() + "?id=" + chain.getRequest().getParameter("id")));
+        runnerHolder[0] = new WarmupRunner(processorList, Collections.singletonList(warmupRequest), 3);
+
+        Assertions.assertFalse(runnerHolder[0].isReady());
+        Assertions.assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, readinessCode(processorList));
+
+        runnerHolder[0].run();
+        Assertions.assertTrue(runnerHolder[0].isReady());
+        Assertions.assertEquals(Arrays.asList("/list?id=1", "/list?id=1", "/list?id=1"), handledList);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, readinessCode(processorList));
+    }
+
+    @DisplayName("不会记录预热请求：recordTest")
+    @Test
+    public void recordTest() {
+        RequestRecorder recorder = new RequestRecorder(null);
+        WarmupRequest warmupRequest = new WarmupRequest("GET", "/list", Collections.emptyMap());
+        recorder.record("GET", "/list", MockServletObjects.createRequest(warmupRequest));
+        Assertions.assertTrue(recorder.getRecords().isEmpty());
+    }
+
+    /**
+     * 创建一个不带预热标记的请求（即模拟线上真实的请求）
+     */
+    private static HttpServletRequest liveRequest(WarmupRequest warmupRequest) {
+        HttpServletRequest request = MockServletObjects.createRequest(warmupRequest);
+        request.removeAttribute(WarmupRunner.WARMUP_ATTRIBUTE);
+        return request;
+    }
+
+    private static int readinessCode(List<RequestProcessor> processorList) {
+        RequestProcessorChain chain = new RequestProcessorChain(processorList.iterator(),
+                MockServletObjects.createRequest(new WarmupRequest("GET", "/ready", Collections.emptyMap())),
+                MockServletObjects.createResponse());
+        chain.doRequestProcessorChain();
+        chain.doRender();
+        return chain.getResponseCode();
+    }
+
+    private static ContainerSnapshot.Route route(String httpMethod, String httpPath) {
+        return new ContainerSnapshot.Route(httpMethod, httpPath, "Controller", "method", Collections.emptyList());
+    }
+}
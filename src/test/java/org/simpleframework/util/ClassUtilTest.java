@@ -5,11 +5,30 @@ import lombok.Data;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.simpleframework.aop.annotation.Aspect;
+import org.simpleframework.core.annotation.Component;
+import org.simpleframework.core.annotation.Controller;
+import org.simpleframework.core.annotation.Repository;
+import org.simpleframework.core.annotation.Service;
 
+import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ClassUtilTest {
     @DisplayName("提取目标类方法：extractPackageClassTest")
@@ -34,4 +53,109 @@ public class ClassUtilTest {
             field.set("headLine", "22");
         }
     }
+
+    @DisplayName("并行提取目标类：extractPackageClassParallelTest")
+    @Test
+    public void extractPackageClassParallelTest() {
+        Set<Class<?>> serialSet = ClassUtil.extractPackageClass("com.imooc", false);
+        Set<Class<?>> parallelSet = ClassUtil.extractPackageClass("com.imooc", true);
+        Assertions.assertEquals(serialSet, parallelSet);
+    }
+
+    @DisplayName("按包的 include/exclude 规则提取目标类：extractFilteredPackageClassTest")
+    @Test
+    public void extractFilteredPackageClassTest() {
+        PackageTrie packageTrie = PackageTrie.compile(null, Arrays.asList("com.imooc.entity.*", "com.imooc.*.solo"));
+        for (boolean parallel : new boolean[]{false, true}) {
+            Set<String> classNames = classNames(ClassUtil.extractPackageClass("com.imooc", parallel, null, packageTrie));
+            Assertions.assertFalse(classNames.isEmpty());
+            Assertions.assertTrue(classNames.stream().noneMatch(name -> name.startsWith("com.imooc.entity.")));
+            Assertions.assertTrue(classNames.stream().noneMatch(name -> name.startsWith("com.imooc.service.solo.")));
+            Assertions.assertTrue(classNames.stream().anyMatch(name -> name.startsWith("com.imooc.service.combine.")));
+        }
+        Assertions.assertTrue(ClassUtil.extractPackageClass("com.imooc.entity", false, null, packageTrie).isEmpty());
+    }
+
+    @DisplayName("从 jar 包中提取目标类：extractJarPackageClassTest")
+    @Test
+    public void extractJarPackageClassTest() throws Exception {
+        Path classesRoot = Paths.get(ClassUtil.getClassLoader().getResource("com/imooc").toURI()).getParent().getParent();
+        File jarFile = File.createTempFile("simpleframework", ".jar");
+        jarFile.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarFile.toPath()));
+             Stream<Path> paths = Files.walk(classesRoot)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.equals(classesRoot)) {
+                    continue;
+                }
+                String entryName = classesRoot.relativize(path).toString().replace(File.separator, "/");
+                if (Files.isDirectory(path)) {
+                    out.putNextEntry(new JarEntry(entryName + "/"));
+                } else {
+                    out.putNextEntry(new JarEntry(entryName));
+                    out.write(Files.readAllBytes(path));
+                }
+                out.closeEntry();
+            }
+        }
+
+        List<Class<? extends Annotation>> beanAnnotations = Arrays.asList(Controller.class, Service.class);
+        Set<Class<?>> fileSet = ClassUtil.extractPackageClass("com.imooc");
+        Set<Class<?>> annotatedFileSet = ClassUtil.extractPackageClass("com.imooc", false, beanAnnotations);
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        // 模拟 Web 应用的类加载器：除了打包好的 jar 包之外，只能看到依赖的 jar 包，而看不到 target/classes
+        List<URL> urls = new ArrayList<>();
+        urls.add(jarFile.toURI().toURL());
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (entry.endsWith(".jar")) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+        }
+        try (URLClassLoader jarLoader = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getPlatformClassLoader())) {
+            Thread.currentThread().setContextClassLoader(jarLoader);
+            Assertions.assertEquals(classNames(fileSet), classNames(ClassUtil.extractPackageClass("com.imooc")));
+            Assertions.assertEquals(classNames(annotatedFileSet),
+                    classNames(ClassUtil.extractPackageClass("com.imooc", true, beanAnnotations)));
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    @DisplayName("按注解预筛选目标类：extractAnnotatedPackageClassTest")
+    @Test
+    public void extractAnnotatedPackageClassTest() {
+        List<Class<? extends Annotation>> beanAnnotations =
+                Arrays.asList(Component.class, Controller.class, Service.class, Repository.class, Aspect.class);
+        Set<Class<?>> expectedSet = new HashSet<>();
+        for (Class<?> clazz : ClassUtil.extractPackageClass("com.imooc")) {
+            for (Class<? extends Annotation> annotation : beanAnnotations) {
+                if (clazz.isAnnotationPresent(annotation)) {
+                    expectedSet.add(clazz);
+                }
+            }
+        }
+        Assertions.assertEquals(expectedSet, ClassUtil.extractPackageClass("com.imooc", false, beanAnnotations));
+        Assertions.assertEquals(expectedSet, ClassUtil.extractPackageClass("com.imooc", true, beanAnnotations));
+    }
+
+    @DisplayName("加载类时不进行初始化：loadClassWithoutInitializationTest")
+    @Test
+    public void loadClassWithoutInitializationTest() {
+        Class<?> clazz = ClassUtil.loadClass(StaticInitTarget.class.getName());
+        Assertions.assertFalse(staticInitialized);
+        ClassUtil.newInstance(clazz, true);
+        Assertions.assertTrue(staticInitialized);
+    }
+
+    private static Set<String> classNames(Set<Class<?>> classSet) {
+        return classSet.stream().map(Class::getName).collect(Collectors.toSet());
+    }
+
+    private static volatile boolean staticInitialized = false;
+
+    static class StaticInitTarget {
+        static {
+            staticInitialized = true;
+        }
+    }
 }
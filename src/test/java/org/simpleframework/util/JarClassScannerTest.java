@@ -0,0 +1,78 @@
+package org.simpleframework.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class JarClassScannerTest {
+    @DisplayName("ZIP64 格式的 jar 包退回到 JarFile 读取，close() 之后不能再读取：zip64FallbackTest")
+    @Test
+    public void zip64FallbackTest() throws Exception {
+        File jarFile = File.createTempFile("simpleframework-zip64", ".jar");
+        jarFile.deleteOnExit();
+        // 条目数不少于 65535 时 ZipOutputStream 会写出 ZIP64 中央目录结束记录
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            out.setLevel(0);
+            for (int i = 0; i < 0xFFFF; i++) {
+                out.putNextEntry(new JarEntry("filler/F" + i + ".txt"));
+                out.closeEntry();
+            }
+            out.putNextEntry(new JarEntry("sample/Sample.class"));
+            out.write("sample".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        JarClassScanner scanner = new JarClassScanner(jarFile);
+        List<JarClassScanner.JarClassEntry> entries;
+        try {
+            entries = scanner.getClassEntries("sample");
+            Assertions.assertEquals(1, entries.size());
+            Assertions.assertEquals("sample.Sample", entries.get(0).getClassName());
+            // 退回到 JarFile 读取的条目没有本地文件头的位置
+            Assertions.assertEquals(-1, entries.get(0).getLocalHeaderOffset());
+            Assertions.assertEquals("sample", new String(scanner.readEntryBytes(entries.get(0)), StandardCharsets.UTF_8));
+        } finally {
+            scanner.close();
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> scanner.readEntryBytes(entries.get(0)));
+    }
+
+    @DisplayName("条目不完整时抛出异常，而不是返回残缺的字节：incompleteEntryTest")
+    @Test
+    public void incompleteEntryTest() throws Exception {
+        File jarFile = File.createTempFile("simpleframework-truncated", ".jar");
+        jarFile.deleteOnExit();
+        byte[] content = new byte[4096];
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+            out.putNextEntry(new JarEntry("sample/Sample.class"));
+            out.write(content);
+            out.closeEntry();
+        }
+        // 把中央目录中记录的压缩前的大小改大，模拟解压出的数据不完整的条目
+        byte[] jarBytes = Files.readAllBytes(jarFile.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(jarBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int position = jarBytes.length - 22; position >= 0; position--) {
+            if (buffer.getInt(position) == 0x02014b50) {
+                buffer.putInt(position + 24, content.length + 100);
+                break;
+            }
+        }
+        Files.write(jarFile.toPath(), jarBytes);
+
+        try (JarClassScanner scanner = new JarClassScanner(jarFile)) {
+            List<JarClassScanner.JarClassEntry> entries = scanner.getClassEntries("sample");
+            Assertions.assertEquals(content.length + 100, entries.get(0).getSize());
+            RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> scanner.readEntryBytes(entries.get(0)));
+            Assertions.assertTrue(e.getMessage().contains("incomplete"));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.simpleframework.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PackageTrieTest {
+    @DisplayName("包的 include/exclude 规则：matchTest")
+    @Test
+    public void matchTest() {
+        Assertions.assertNull(PackageTrie.compile(null, Collections.emptyList()));
+
+        PackageTrie packageTrie = PackageTrie.compile(Arrays.asList("com.imooc.controller", "com.imooc.service"),
+                Arrays.asList("demo.*", "com.imooc.*.fixture", "com.imooc.service.solo"));
+        // 只有 include 规则所在的分支才需要遍历
+        Assertions.assertTrue(packageTrie.shouldDescend("com"));
+        Assertions.assertTrue(packageTrie.shouldDescend("com.imooc"));
+        Assertions.assertFalse(packageTrie.accept("com.imooc"));
+        Assertions.assertFalse(packageTrie.shouldDescend("com.imooc.entity"));
+        Assertions.assertTrue(packageTrie.accept("com.imooc.controller.frontend"));
+        // exclude 规则优先于 include 规则，并且 * 可以匹配任意一级包名
+        Assertions.assertFalse(packageTrie.shouldDescend("com.imooc.controller.fixture"));
+        Assertions.assertFalse(packageTrie.accept("com.imooc.service.solo.impl"));
+        Assertions.assertTrue(packageTrie.acceptClass("com.imooc.service.combine.impl.HeadLineShopCategoryCombineServiceImpl"));
+        Assertions.assertFalse(packageTrie.shouldDescend("demo"));
+    }
+}
@@ -0,0 +1,37 @@
+package org.simpleframework.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+
+public class ScanCacheTest {
+    @DisplayName("扫描缓存按指纹复用结果：lookupTest")
+    @Test
+    public void lookupTest() throws Exception {
+        File cacheDir = Files.createTempDirectory("scan-cache").toFile();
+        File classFile = File.createTempFile("Sample", ".class", cacheDir);
+        Files.write(classFile.toPath(), new byte[]{1, 2, 3});
+        Set<String> descriptors = Collections.singleton("Lsample/Annotation;");
+        System.setProperty(ScanCache.CACHE_DIR_PROPERTY, cacheDir.getAbsolutePath());
+        try {
+            ScanCache firstScan = ScanCache.open("sample", descriptors);
+            Assertions.assertNull(firstScan.lookup(classFile));
+            firstScan.record(classFile, "1");
+            firstScan.save();
+
+            ScanCache secondScan = ScanCache.open("sample", descriptors);
+            Assertions.assertEquals("1", secondScan.lookup(classFile));
+
+            Files.write(classFile.toPath(), new byte[]{1, 2, 3, 4});
+            Assertions.assertNull(ScanCache.open("sample", descriptors).lookup(classFile));
+            Assertions.assertNull(ScanCache.open("other", descriptors).lookup(classFile));
+        } finally {
+            System.clearProperty(ScanCache.CACHE_DIR_PROPERTY);
+        }
+    }
+}